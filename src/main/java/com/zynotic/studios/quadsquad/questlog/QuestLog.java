@@ -7,6 +7,8 @@ import com.zynotic.studios.quadsquad.questlog.scenes.DashboardScene;
 import com.zynotic.studios.quadsquad.questlog.scenes.LandingScene;
 import com.zynotic.studios.quadsquad.questlog.scenes.SignInScene;
 import com.zynotic.studios.quadsquad.questlog.scenes.SignUpScene;
+import com.zynotic.studios.quadsquad.questlog.services.CredentialHasher;
+import com.zynotic.studios.quadsquad.questlog.services.DataService;
 import com.zynotic.studios.quadsquad.questlog.utils.SessionManager;
 import javafx.application.Application;
 import javafx.geometry.*;
@@ -35,6 +37,7 @@ public class QuestLog extends Application {
     public void init() throws Exception {
         // Simulate some initialization time
         // Thread.sleep(2000);
+        CredentialHasher.calibrate();
     }
 
     /**
@@ -66,6 +69,9 @@ public class QuestLog extends Application {
         primaryStage.setX(centerX);
         primaryStage.setY(centerY);
 
+        // Restore a remembered session, if any, so the landing scene can go straight to the dashboard
+        session.restoreSession();
+
         // Create scene
         viewLandingScene();
 
@@ -73,6 +79,14 @@ public class QuestLog extends Application {
 
     }
 
+    /**
+     * Stops the application, writing any pending data changes to disk.
+     */
+    @Override
+    public void stop() {
+        DataService.flushAll();
+    }
+
     public static void viewLandingScene() {
         LandingScene landingScene = new LandingScene(session);
         Scene scene = new Scene(landingScene.getRoot());
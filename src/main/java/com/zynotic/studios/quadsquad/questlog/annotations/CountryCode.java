@@ -0,0 +1,21 @@
+package com.zynotic.studios.quadsquad.questlog.annotations;
+
+import com.zynotic.studios.quadsquad.questlog.validation.validators.CountryCodeValidator;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+import jakarta.validation.ReportAsSingleViolation;
+
+import java.lang.annotation.*;
+
+@Documented
+@Constraint(validatedBy = CountryCodeValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@ReportAsSingleViolation
+public @interface CountryCode {
+    String message() default "Invalid country code.";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -12,6 +12,7 @@ import com.zynotic.studios.quadsquad.questlog.entities.User;
 import com.zynotic.studios.quadsquad.questlog.entities.UserPhoneNumber;
 import com.zynotic.studios.quadsquad.questlog.services.DataService;
 import com.zynotic.studios.quadsquad.questlog.utils.OpenLink;
+import com.zynotic.studios.quadsquad.questlog.utils.TimeZones;
 import javafx.event.ActionEvent;
 import javafx.geometry.*;
 import javafx.scene.control.*;
@@ -88,7 +89,7 @@ public class AddTask {
         Button addBtn = new Button("Add");
         addBtn.setOnAction(e  -> {
             try {
-                taskServices.addData(new Task(user, null, taskTitle.getText(), taskDescription.getText(), taskDueDate.getValue().atStartOfDay(ZoneId.of(user.getTimezone()))));
+                taskServices.addData(new Task(user, null, taskTitle.getText(), taskDescription.getText(), taskDueDate.getValue().atStartOfDay(TimeZones.zoneOf(user.getTimezone()))));
             } catch (IOException ex) {
                 throw new RuntimeException(ex);
             }
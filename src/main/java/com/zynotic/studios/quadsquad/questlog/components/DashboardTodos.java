@@ -3,13 +3,13 @@ package com.zynotic.studios.quadsquad.questlog.components;
 import com.zynotic.studios.quadsquad.questlog.entities.Task;
 import com.zynotic.studios.quadsquad.questlog.entities.User;
 import com.zynotic.studios.quadsquad.questlog.services.DataService;
+import com.zynotic.studios.quadsquad.questlog.services.TaskColumns;
 import javafx.scene.layout.VBox;
 
-import java.time.LocalDate;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import com.zynotic.studios.quadsquad.questlog.utils.TimeZones;
+
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.IntPredicate;
 
 import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getRequiredApplicationProperty;
 
@@ -21,46 +21,22 @@ public class DashboardTodos {
 
     public DashboardTodos(String section, User user) {
         todosSection = new VBox();
-        ZonedDateTime today = ZonedDateTime.now(ZoneId.of(user.getTimezone()));
-
-        List<Task> allTasks = tasksService.readData();
-
-        for (Task task : allTasks) {
-            tasksService.readData();
-            if (user.getUsername().equals(task.getBoundToUser())) {
-                switch (section) {
-                    case "tasks":
-                        if (task.getBoundToProject() == null) {
-                            TaskCard taskCard = new TaskCard(task, tasksService);
-                            todosSection.getChildren().addAll(taskCard.getTask());
-                        }
-                        break;
-                    case "today":
-                        if (task.getDueDate(user).equals(today)) {
-                            TaskCard taskCard = new TaskCard(task, tasksService);
-                            todosSection.getChildren().addAll(taskCard.getTask());
-                        }
-                        break;
-                    case "upcoming":
-                        if (task.getDueDate(user).isAfter(today)) {
-                            TaskCard taskCard = new TaskCard(task, tasksService);
-                            todosSection.getChildren().addAll(taskCard.getTask());
-                        }
-                        break;
-                    case "overdue":
-                        if (task.getDueDate(user).isBefore(today)) {
-                            TaskCard taskCard = new TaskCard(task, tasksService);
-                            todosSection.getChildren().addAll(taskCard.getTask());
-                        }
-                        break;
-                    case "completed":
-                        if (task.isCompleted()) {
-                            TaskCard taskCard = new TaskCard(task, tasksService);
-                            todosSection.getChildren().addAll(taskCard.getTask());
-                        }
-                        break;
-                }
-            }
+        TimeZones.Day today = TimeZones.today(TimeZones.zoneOf(user.getTimezone()));
+
+        // Filter over the task columns and only build cards for the tasks that are shown
+        TaskColumns columns = TaskColumns.of(tasksService.snapshot());
+        IntPredicate inSection = switch (section) {
+            case "tasks" -> row -> columns.project(row) == TaskColumns.NO_PROJECT;
+            case "today" -> row -> today.contains(columns.dueDate(row));
+            case "upcoming" -> row -> columns.dueDate(row) >= today.end();
+            case "overdue" -> row -> columns.dueDate(row) != TaskColumns.NO_DATE && columns.dueDate(row) < today.start();
+            case "completed" -> columns::isCompleted;
+            default -> row -> false;
+        };
+
+        for (int row : columns.rows(columns.userCode(user.getUsername()), inSection)) {
+            TaskCard taskCard = new TaskCard(columns.task(row), tasksService);
+            todosSection.getChildren().addAll(taskCard.getTask());
         }
     }
 
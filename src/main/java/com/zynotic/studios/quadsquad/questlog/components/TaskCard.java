@@ -54,23 +54,27 @@ public class TaskCard {
         taskCard.setPrefWidth(Region.USE_COMPUTED_SIZE);
         checkAsComplete.setOnAction(e -> {
             if (checkAsComplete.isSelected()) {
-                task.setCompleted(true);
-                taskService.updateData(task);
+                taskService.editDataById(task.getId()).ifPresent(edited -> {
+                    edited.setCompleted(true);
+                    taskService.updateData(edited);
+                });
             }
         });
 
         Button deleteTaskBtn = new Button(null, new FontIcon(Material2OutlinedAL.DELETE));
         deleteTaskBtn.getStyleClass().addAll(Styles.BUTTON_CIRCLE, Styles.ROUNDED, Styles.DANGER, Styles.BUTTON_OUTLINED);
         deleteTaskBtn.setMnemonicParsing(true);
-        deleteTaskBtn.setOnAction(e -> {
-            task.setStatus(0);
-            taskService.updateData(task);
-        });
+        deleteTaskBtn.setOnAction(e -> taskService.editDataById(task.getId()).ifPresent(edited -> {
+            edited.setStatus(0);
+            taskService.updateData(edited);
+        }));
 
         actionComplete.getChildren().addAll(checkAsComplete);
         actionDelete.getChildren().addAll(deleteTaskBtn);
 
-        Tile taskCardHeaderContent = new Tile(task.getTitle(), task.getDescription());
+        // Descriptions are not loaded with the task list, so fetch this one now that its card is shown
+        String description = task.holdsDeferred("description") ? task.getDescription() : (String) taskService.getDeferredValue(task.getId(), "description").orElse(null);
+        Tile taskCardHeaderContent = new Tile(task.getTitle(), description);
         HBox.setHgrow(taskCardHeaderContent, Priority.ALWAYS);
 
         taskCardHeader.getChildren().addAll(actionComplete, taskCardHeaderContent, actionDelete);
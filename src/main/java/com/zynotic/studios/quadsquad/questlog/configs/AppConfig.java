@@ -36,14 +36,12 @@ public class AppConfig {
 
     private static final String BUNDLE_NAME = "application";
     private static ResourceBundle properties;
-    private static final Image errorIcon;
 
     private static final Logger logger = LogManager.getLogger(AppConfig.class);
 
     static {
         try {
             properties = ResourceBundle.getBundle(BUNDLE_NAME);
-            errorIcon = new Image(Objects.requireNonNull(AppConfig.class.getResource("/assets/images/logo/questlog/icons/dark/icon16s.png")).toString()); // Load error icon
         } catch (MissingResourceException e) {
             handleException("Could not load resource bundle '" + BUNDLE_NAME + "'.", e);
             properties = null;
@@ -101,6 +99,7 @@ public class AppConfig {
         alert.setHeaderText(null);
         alert.setContentText(contentText);
 
+        Image errorIcon = ErrorIcon.IMAGE;
         if (errorIcon != null) {
             ImageView iconView = new ImageView(errorIcon);
             iconView.setFitHeight(48);
@@ -130,6 +129,14 @@ public class AppConfig {
         logger.error(message, e);
     }
 
+    /**
+     * Holder of the error icon, so it is only loaded once an alert is shown and reading properties
+     * does not need the JavaFX toolkit.
+     */
+    private static final class ErrorIcon {
+        private static final Image IMAGE = new Image(Objects.requireNonNull(AppConfig.class.getResource("/assets/images/logo/questlog/icons/dark/icon16s.png")).toString()); // Load error icon
+    }
+
     /**
      * Custom exception class for missing application properties.
      */
@@ -0,0 +1,110 @@
+/*
+ * EntityCodecs.java
+ * Streaming JSON codecs of the entities.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.entities;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.DecimalUtils;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Streaming JSON codecs of the entities.
+ * Each entity carries a serializer and a deserializer reading and writing its fields in a fixed order
+ * straight against the generator and parser, so Jackson never introspects the entity classes.
+ * The JSON produced is identical to what reflective binding with the {@code JavaTimeModule} produces:
+ * instants as decimal epoch seconds, dates as [year, month, day] arrays and enums by name.
+ * <p>
+ * The {@code @JsonProperty} annotations on the entities still document the keys, and remain in effect
+ * for any object mapper the module is not registered with.
+ */
+public final class EntityCodecs {
+    private EntityCodecs() {
+    }
+
+    /**
+     * Creates a Jackson module registering the codecs of every entity.
+     *
+     * @return The module.
+     */
+    public static Module module() {
+        SimpleModule module = new SimpleModule("EntityCodecs");
+        module.addSerializer(Task.class, Task.Serializer.INSTANCE);
+        module.addDeserializer(Task.class, Task.Deserializer.INSTANCE);
+        module.addSerializer(Project.class, Project.Serializer.INSTANCE);
+        module.addDeserializer(Project.class, Project.Deserializer.INSTANCE);
+        module.addSerializer(User.class, User.Serializer.INSTANCE);
+        module.addDeserializer(User.class, User.Deserializer.INSTANCE);
+        module.addSerializer(UserPassword.class, UserPassword.Serializer.INSTANCE);
+        module.addDeserializer(UserPassword.class, UserPassword.Deserializer.INSTANCE);
+        module.addSerializer(UserPhoneNumber.class, UserPhoneNumber.Serializer.INSTANCE);
+        module.addDeserializer(UserPhoneNumber.class, UserPhoneNumber.Deserializer.INSTANCE);
+        module.addSerializer(UserSession.class, UserSession.Serializer.INSTANCE);
+        module.addDeserializer(UserSession.class, UserSession.Deserializer.INSTANCE);
+        return module;
+    }
+
+    /**
+     * Writes an instant as decimal epoch seconds.
+     *
+     * @param generator The generator.
+     * @param instant   The instant, or null.
+     * @throws IOException If writing fails.
+     */
+    static void writeInstant(JsonGenerator generator, Instant instant) throws IOException {
+        if (instant == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(DecimalUtils.toBigDecimal(instant.getEpochSecond(), instant.getNano()));
+        }
+    }
+
+    /**
+     * Writes a date as a [year, month, day] array.
+     *
+     * @param generator The generator.
+     * @param date      The date, or null.
+     * @throws IOException If writing fails.
+     */
+    static void writeLocalDate(JsonGenerator generator, LocalDate date) throws IOException {
+        if (date == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        generator.writeNumber(date.getYear());
+        generator.writeNumber(date.getMonthValue());
+        generator.writeNumber(date.getDayOfMonth());
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes an enum constant by name.
+     *
+     * @param generator The generator.
+     * @param constant  The constant, or null.
+     * @throws IOException If writing fails.
+     */
+    static void writeEnum(JsonGenerator generator, Enum<?> constant) throws IOException {
+        if (constant == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(constant.name());
+        }
+    }
+}
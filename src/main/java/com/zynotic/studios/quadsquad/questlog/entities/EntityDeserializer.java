@@ -0,0 +1,230 @@
+/*
+ * EntityDeserializer.java
+ * Base class of the streaming deserializers of the entities.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.entities;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.DecimalUtils;
+import com.zynotic.studios.quadsquad.questlog.utils.StringPool;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Base class of the streaming deserializers of the entities.
+ * Walks the fields of a JSON object and hands each one to {@link #readField}, which assigns it straight
+ * to the entity. Values in the format the entities are written in are read directly from the parser;
+ * anything else is passed on to Jackson so lenient input is accepted just as with reflective binding.
+ *
+ * @param <T> The type of entity.
+ */
+abstract class EntityDeserializer<T> extends StdDeserializer<T> {
+    /**
+     * Constructs the deserializer of an entity type.
+     *
+     * @param type The entity type.
+     */
+    EntityDeserializer(Class<T> type) {
+        super(type);
+    }
+
+    /**
+     * Creates an empty entity to read fields into.
+     *
+     * @return The entity.
+     */
+    abstract T create();
+
+    /**
+     * Reads a field into an entity.
+     *
+     * @param parser  The parser positioned on the field's value.
+     * @param context The deserialization context.
+     * @param target  The entity.
+     * @param name    The field name.
+     * @return True if the field is known, false if it should be handled as an unknown property.
+     * @throws IOException If reading fails.
+     */
+    abstract boolean readField(JsonParser parser, DeserializationContext context, T target, String name) throws IOException;
+
+    /**
+     * Reads an entity from a JSON object.
+     *
+     * @param parser  The parser positioned on the object.
+     * @param context The deserialization context.
+     * @return The entity.
+     * @throws IOException If reading fails.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (T) context.handleUnexpectedToken(handledType(), parser);
+        }
+        T target = create();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (!readField(parser, context, target, name)) {
+                context.handleUnknownProperty(parser, this, target, name);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Reads a string value.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The string, or null.
+     * @throws IOException If reading fails.
+     */
+    static String readString(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> null;
+            default -> context.readValue(parser, String.class);
+        };
+    }
+
+    /**
+     * Reads a string value, sharing the instance through the {@link StringPool}.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The pooled string, or null.
+     * @throws IOException If reading fails.
+     */
+    static String readPooledString(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            return StringPool.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        return StringPool.intern(readString(parser, context));
+    }
+
+    /**
+     * Reads an int value.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The value.
+     * @throws IOException If reading fails.
+     */
+    int readInt(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+            return parser.getIntValue();
+        }
+        return _parseIntPrimitive(parser, context);
+    }
+
+    /**
+     * Reads a nullable integer value.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The value, or null.
+     * @throws IOException If reading fails.
+     */
+    Integer readInteger(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            case VALUE_NULL -> null;
+            default -> context.readValue(parser, Integer.class);
+        };
+    }
+
+    /**
+     * Reads a boolean value.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The value.
+     * @throws IOException If reading fails.
+     */
+    boolean readBoolean(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_TRUE -> true;
+            case VALUE_FALSE -> false;
+            default -> _parseBooleanPrimitive(parser, context);
+        };
+    }
+
+    /**
+     * Reads an instant written as decimal epoch seconds.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The instant, or null.
+     * @throws IOException If reading fails.
+     */
+    static Instant readInstant(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_FLOAT -> DecimalUtils.extractSecondsAndNanos(parser.getDecimalValue(), Instant::ofEpochSecond);
+            case VALUE_NUMBER_INT -> Instant.ofEpochSecond(parser.getLongValue());
+            case VALUE_NULL -> null;
+            default -> context.readValue(parser, Instant.class);
+        };
+    }
+
+    /**
+     * Reads a date written as a [year, month, day] array.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The date, or null.
+     * @throws IOException If reading fails.
+     */
+    static LocalDate readLocalDate(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.hasToken(JsonToken.START_ARRAY)) {
+            return parser.hasToken(JsonToken.VALUE_NULL) ? null : context.readValue(parser, LocalDate.class);
+        }
+        int year = parser.nextIntValue(0);
+        int month = parser.nextIntValue(0);
+        int day = parser.nextIntValue(0);
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+            return (LocalDate) context.handleUnexpectedToken(LocalDate.class, parser);
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Reads an enum constant written as its name.
+     *
+     * @param parser   The parser positioned on the value.
+     * @param context  The deserialization context.
+     * @param enumType The enum type.
+     * @param <E>      The enum type.
+     * @return The constant, or null.
+     * @throws IOException If reading fails or the name is not a constant of the enum.
+     */
+    static <E extends Enum<E>> E readEnum(JsonParser parser, DeserializationContext context, Class<E> enumType) throws IOException {
+        if (!parser.hasToken(JsonToken.VALUE_STRING)) {
+            return parser.hasToken(JsonToken.VALUE_NULL) ? null : context.readValue(parser, enumType);
+        }
+        String name = parser.getText();
+        try {
+            return Enum.valueOf(enumType, name);
+        } catch (IllegalArgumentException e) {
+            return enumType.cast(context.handleWeirdStringValue(enumType, name, "not one of the values accepted for Enum class"));
+        }
+    }
+}
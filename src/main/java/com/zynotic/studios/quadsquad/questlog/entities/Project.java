@@ -19,20 +19,27 @@ package com.zynotic.studios.quadsquad.questlog.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import com.zynotic.studios.quadsquad.questlog.utils.PooledStringDeserializer;
+import com.zynotic.studios.quadsquad.questlog.utils.TimeZones;
 import jakarta.validation.constraints.*;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.Range;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
-import java.time.ZoneId;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Objects;
 
-import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getRequiredApplicationProperty;
-
 /**
  * Represents a project entity in the system.
  * Projects can be created, updated, and deleted.
@@ -42,9 +49,6 @@ public class Project implements Serializable, DataIdentifier {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    @JsonIgnore
-    private static final String APP_DEFAULT_TIMEZONE = getRequiredApplicationProperty("APP_DEFAULT_TIMEZONE");
-
     @NotNull(message = "Project ID cannot be null")
     @PositiveOrZero(message = "Project ID must greater that or equal to 0")
     @Min(value = 0, message = "Project ID must greater that or equal to 0")
@@ -60,13 +64,14 @@ public class Project implements Serializable, DataIdentifier {
     @NotBlank(message = "Username for Project cannot be blank")
     @Length(min = 4, max = 30, message = "Username should be at least 4 characters long and less than 30")
     @Pattern(regexp = "^[a-z0-9]+$", message = "Username can only contain letters (a-z) and digits (0-9)")
+    @JsonDeserialize(using = PooledStringDeserializer.class) // Shares repeated values
     @JsonProperty("boundToUser") // Maps 'boundToUser' field to JSON key
     private String boundToUser; // User to whom the project is bound
 
     @NotNull(message = "Project creation date cannot be null")
     @PastOrPresent(message = "Project creation date should be in the past")
     @JsonProperty("addedAt") // Maps 'addedAt' field to JSON key
-    private ZonedDateTime addedAt; // Date and time when the project was added
+    private Instant addedAt; // Date and time when the project was added
 
     @NotNull(message = "Status cannot be null")
     @Range(min = 0, max = 2, message = "Invalid status")
@@ -94,7 +99,7 @@ public class Project implements Serializable, DataIdentifier {
     ) {
         this.title = title;
         this.boundToUser = user.getUsername();
-        this.addedAt = ZonedDateTime.now(ZoneId.of(APP_DEFAULT_TIMEZONE)); // Set creation date and time to current date and time
+        this.addedAt = Instant.now(); // Set creation date and time to current date and time
         this.status = 1; // Default status is 'Active'
     }
 
@@ -210,11 +215,11 @@ public class Project implements Serializable, DataIdentifier {
             @NotNull(message = "User cannot be null")
             User user
     ) {
-        return addedAt.withZoneSameInstant(ZoneId.of(user.getTimezone()));
+        return addedAt.atZone(TimeZones.zoneOf(user.getTimezone()));
     }
 
     /**
-     * Sets the date and time when the project was added, adjusting it to the application's default timezone.
+     * Sets the date and time when the project was added.
      * Note: This method is private and should only be used internally.
      *
      * @param addedAt The date and time when the project was added.
@@ -224,7 +229,7 @@ public class Project implements Serializable, DataIdentifier {
             @PastOrPresent(message = "Project creation date should be in the past")
             ZonedDateTime addedAt
     ) {
-        this.addedAt = addedAt.withZoneSameInstant(ZoneId.of(APP_DEFAULT_TIMEZONE));
+        this.addedAt = addedAt.toInstant();
     }
 
     /**
@@ -272,4 +277,87 @@ public class Project implements Serializable, DataIdentifier {
     public int hashCode() {
         return Objects.hash(projectId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Streaming JSON serializer of projects.
+     */
+    static final class Serializer extends StdSerializer<Project> {
+        static final Serializer INSTANCE = new Serializer(); // Shared instance
+
+        /**
+         * Constructs the serializer.
+         */
+        private Serializer() {
+            super(Project.class);
+        }
+
+        /**
+         * Writes a project as a JSON object.
+         *
+         * @param project   The project.
+         * @param generator The generator.
+         * @param provider  The serializer provider.
+         * @throws IOException If writing fails.
+         */
+        @Override
+        public void serialize(Project project, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(project);
+            generator.writeNumberField("projectId", project.projectId);
+            generator.writeStringField("title", project.title);
+            generator.writeStringField("boundToUser", project.boundToUser);
+            generator.writeFieldName("addedAt");
+            EntityCodecs.writeInstant(generator, project.addedAt);
+            generator.writeNumberField("status", project.status);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Streaming JSON deserializer of projects.
+     */
+    static final class Deserializer extends EntityDeserializer<Project> {
+        static final Deserializer INSTANCE = new Deserializer(); // Shared instance
+
+        /**
+         * Constructs the deserializer.
+         */
+        private Deserializer() {
+            super(Project.class);
+        }
+
+        /**
+         * Creates an empty project.
+         *
+         * @return The project.
+         */
+        @Override
+        Project create() {
+            return new Project();
+        }
+
+        /**
+         * Reads a field into a project.
+         *
+         * @param parser  The parser positioned on the field's value.
+         * @param context The deserialization context.
+         * @param project The project.
+         * @param name    The field name.
+         * @return True if the field is known.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        boolean readField(JsonParser parser, DeserializationContext context, Project project, String name) throws IOException {
+            switch (name) {
+                case "projectId" -> project.projectId = readInt(parser, context);
+                case "title" -> project.title = readString(parser, context);
+                case "boundToUser" -> project.boundToUser = readPooledString(parser, context);
+                case "addedAt" -> project.addedAt = readInstant(parser, context);
+                case "status" -> project.status = readInt(parser, context);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -17,20 +17,28 @@ package com.zynotic.studios.quadsquad.questlog.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
 import jakarta.validation.constraints.*;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.Range;
 
+import com.zynotic.studios.quadsquad.questlog.utils.PooledStringDeserializer;
+import com.zynotic.studios.quadsquad.questlog.utils.TimeZones;
+
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
-import java.time.ZoneId;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Objects;
 
-import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getRequiredApplicationProperty;
-
 /**
  * Represents a task entity in the system.
  * Tasks can be created, updated, and deleted.
@@ -40,9 +48,6 @@ public class Task implements Serializable, DataIdentifier {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    @JsonIgnore
-    private static final String APP_DEFAULT_TIMEZONE = getRequiredApplicationProperty("APP_DEFAULT_TIMEZONE");
-
     @NotNull(message = "Task ID cannot be null")
     @PositiveOrZero(message = "Task ID must greater that or equal to 0")
     @Min(value = 0, message = "Task ID must greater that or equal to 0")
@@ -60,14 +65,16 @@ public class Task implements Serializable, DataIdentifier {
     @JsonProperty("description") // Maps 'description' field to JSON key
     private String description; // Description of the task
 
+    private transient boolean descriptionHeld; // Whether the description was loaded or set, rather than left in the data file
+
     @NotNull(message = "Task due date cannot be null")
     @JsonProperty("dueDate") // Maps 'dueDate' field to JSON key
-    private ZonedDateTime dueDate; // Due date and time of the task
+    private Instant dueDate; // Due date and time of the task
 
     @NotNull(message = "Task creation date cannot be null")
     @PastOrPresent(message = "Task creation date should be in past")
     @JsonProperty("addDate") // Maps 'addDate' field to JSON key
-    private ZonedDateTime addDate; // Date and time when the task was added
+    private Instant addDate; // Date and time when the task was added
 
     @NotNull(message = "Competed status cannot be null")
     @JsonProperty("completed") // Maps 'completed' field to JSON key
@@ -77,6 +84,7 @@ public class Task implements Serializable, DataIdentifier {
     @NotBlank(message = "Username for Task cannot be blank")
     @Length(min = 4, max = 30, message = "Username should be at least 4 characters long and less than 30")
     @Pattern(regexp = "^[a-z0-9]+$", message = "Username can only contain letters (a-z) and digits (0-9)")
+    @JsonDeserialize(using = PooledStringDeserializer.class) // Shares repeated values
     @JsonProperty("boundToUser") // Maps 'boundToUser' field to JSON key
     private String boundToUser; // User to whom the task is bound
 
@@ -119,8 +127,9 @@ public class Task implements Serializable, DataIdentifier {
         this.boundToProject = project == null ? null : project.getProjectId();
         this.title = title;
         this.description = description;
-        this.addDate = ZonedDateTime.now(ZoneId.of(APP_DEFAULT_TIMEZONE)); // Set creation date and time to current date and time
-        this.dueDate = dueDate.withZoneSameInstant(ZoneId.of(APP_DEFAULT_TIMEZONE));
+        this.descriptionHeld = true;
+        this.addDate = Instant.now(); // Set creation date and time to current date and time
+        this.dueDate = dueDate.toInstant();
         this.completed = false;
         this.boundToUser = user.getUsername();
         this.status = 1;
@@ -161,6 +170,39 @@ public class Task implements Serializable, DataIdentifier {
         return List.of("taskId"); // Specify unique keys
     }
 
+    /**
+     * Sets or Gets ordered keys associated with the task.
+     *
+     * @return The list of ordered keys.
+     */
+    @Override
+    @JsonIgnore
+    public List<String> orderedKeys() {
+        return List.of("dueDate", "boundToProject"); // Specify ordered keys
+    }
+
+    /**
+     * Sets or Gets deferred keys associated with the task.
+     *
+     * @return The list of deferred keys.
+     */
+    @Override
+    @JsonIgnore
+    public List<String> deferredKeys() {
+        return List.of("description"); // Specify deferred keys
+    }
+
+    /**
+     * Checks whether the task holds its description, because it was loaded with it or set since.
+     *
+     * @param key The deferred key.
+     * @return True if the field of the key holds its value.
+     */
+    @Override
+    public boolean holdsDeferred(String key) {
+        return !"description".equals(key) || descriptionHeld;
+    }
+
     /**
      * Retrieves the project ID.
      *
@@ -229,6 +271,9 @@ public class Task implements Serializable, DataIdentifier {
 
     /**
      * Retrieves the description of the task.
+     * Note: Descriptions are not loaded with tasks read from the data file; this returns null for them
+     * unless the description was set since, see {@link #holdsDeferred(String)}. Use
+     * DataService#getDeferredValue to load it by task ID.
      *
      * @return The description of the task.
      */
@@ -238,11 +283,13 @@ public class Task implements Serializable, DataIdentifier {
 
     /**
      * Sets the description of the task.
+     * Setting it to null clears the description stored in the data file when the task is updated.
      *
      * @param description The description of the task.
      */
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionHeld = true;
     }
 
     /**
@@ -255,11 +302,11 @@ public class Task implements Serializable, DataIdentifier {
             @NotNull(message = "User cannot be null")
             User user
     ) {
-        return dueDate.withZoneSameInstant(ZoneId.of(user.getTimezone()));
+        return dueDate.atZone(TimeZones.zoneOf(user.getTimezone()));
     }
 
     /**
-     * Sets the due date and time of the task, adjusting it to the application's default timezone.
+     * Sets the due date and time of the task.
      *
      * @param dueDate The due date and time of the task.
      */
@@ -268,7 +315,17 @@ public class Task implements Serializable, DataIdentifier {
             @FutureOrPresent(message = "Task due date should be in future")
             ZonedDateTime dueDate
     ) {
-        this.dueDate = dueDate.withZoneSameInstant(ZoneId.of(APP_DEFAULT_TIMEZONE));
+        this.dueDate = dueDate.toInstant();
+    }
+
+    /**
+     * Retrieves the due date and time of the task as seconds since the epoch.
+     *
+     * @return The due date in epoch seconds, or Long.MIN_VALUE if the task has no due date.
+     */
+    @JsonIgnore
+    public long getDueEpochSecond() {
+        return dueDate == null ? Long.MIN_VALUE : dueDate.getEpochSecond();
     }
 
     /**
@@ -281,11 +338,21 @@ public class Task implements Serializable, DataIdentifier {
             @NotNull(message = "User cannot be null")
             User user
     ) {
-        return addDate.withZoneSameInstant(ZoneId.of(user.getTimezone()));
+        return addDate.atZone(TimeZones.zoneOf(user.getTimezone()));
+    }
+
+    /**
+     * Retrieves the date and time when the task was added as seconds since the epoch.
+     *
+     * @return The creation date in epoch seconds, or Long.MIN_VALUE if the task has no creation date.
+     */
+    @JsonIgnore
+    public long getAddEpochSecond() {
+        return addDate == null ? Long.MIN_VALUE : addDate.getEpochSecond();
     }
 
     /**
-     * Sets the date and time when the task was added, adjusting it to the application's default timezone.
+     * Sets the date and time when the task was added.
      * Note: This method is private and should only be used internally.
      *
      * @param addDate The date and time when the task was added.
@@ -295,7 +362,7 @@ public class Task implements Serializable, DataIdentifier {
             @PastOrPresent(message = "Task creation date should be in past")
             ZonedDateTime addDate
     ) {
-        this.addDate = addDate.withZoneSameInstant(ZoneId.of(APP_DEFAULT_TIMEZONE));
+        this.addDate = addDate.toInstant();
     }
 
     /**
@@ -385,4 +452,104 @@ public class Task implements Serializable, DataIdentifier {
     public int hashCode() {
         return Objects.hash(taskId);
     }
+
+    /**
+     * Streaming JSON serializer of tasks.
+     */
+    static final class Serializer extends StdSerializer<Task> {
+        static final Serializer INSTANCE = new Serializer(); // Shared instance
+
+        /**
+         * Constructs the serializer.
+         */
+        private Serializer() {
+            super(Task.class);
+        }
+
+        /**
+         * Writes a task as a JSON object.
+         *
+         * @param task      The task.
+         * @param generator The generator.
+         * @param provider  The serializer provider.
+         * @throws IOException If writing fails.
+         */
+        @Override
+        public void serialize(Task task, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(task);
+            generator.writeNumberField("taskId", task.taskId);
+            generator.writeFieldName("boundToProject");
+            if (task.boundToProject == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(task.boundToProject);
+            }
+            generator.writeStringField("title", task.title);
+            generator.writeStringField("description", task.description);
+            generator.writeFieldName("dueDate");
+            EntityCodecs.writeInstant(generator, task.dueDate);
+            generator.writeFieldName("addDate");
+            EntityCodecs.writeInstant(generator, task.addDate);
+            generator.writeBooleanField("completed", task.completed);
+            generator.writeStringField("boundToUser", task.boundToUser);
+            generator.writeNumberField("status", task.status);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Streaming JSON deserializer of tasks.
+     */
+    static final class Deserializer extends EntityDeserializer<Task> {
+        static final Deserializer INSTANCE = new Deserializer(); // Shared instance
+
+        /**
+         * Constructs the deserializer.
+         */
+        private Deserializer() {
+            super(Task.class);
+        }
+
+        /**
+         * Creates an empty task.
+         *
+         * @return The task.
+         */
+        @Override
+        Task create() {
+            return new Task();
+        }
+
+        /**
+         * Reads a field into a task.
+         *
+         * @param parser  The parser positioned on the field's value.
+         * @param context The deserialization context.
+         * @param task    The task.
+         * @param name    The field name.
+         * @return True if the field is known.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        boolean readField(JsonParser parser, DeserializationContext context, Task task, String name) throws IOException {
+            switch (name) {
+                case "taskId" -> task.taskId = readInt(parser, context);
+                case "boundToProject" -> task.boundToProject = readInteger(parser, context);
+                case "title" -> task.title = readString(parser, context);
+                case "description" -> {
+                    task.description = readString(parser, context);
+                    task.descriptionHeld = true; // Present in the JSON, so loaded rather than left in the data file
+                }
+                case "dueDate" -> task.dueDate = readInstant(parser, context);
+                case "addDate" -> task.addDate = readInstant(parser, context);
+                case "completed" -> task.completed = readBoolean(parser, context);
+                case "boundToUser" -> task.boundToUser = readPooledString(parser, context);
+                case "status" -> task.status = readInt(parser, context);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -2,18 +2,28 @@ package com.zynotic.studios.quadsquad.questlog.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.zynotic.studios.quadsquad.questlog.annotations.AllowedValues;
 import com.zynotic.studios.quadsquad.questlog.annotations.YearsElapsed;
 import com.zynotic.studios.quadsquad.questlog.enums.Gender;
 import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import com.zynotic.studios.quadsquad.questlog.utils.PooledStringDeserializer;
+import com.zynotic.studios.quadsquad.questlog.utils.TimeZones;
 import jakarta.validation.constraints.*;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.Range;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Base64;
 import java.util.List;
@@ -82,13 +92,14 @@ public class User implements Serializable, DataIdentifier {
     @NotNull(message = "TimeZone cannot be null")
     @NotBlank(message = "TimeZone cannot be blank")
     @Length(min = 3, message = "Invalid timezone")
+    @JsonDeserialize(using = PooledStringDeserializer.class) // Shares repeated values
     @JsonProperty("timezone") // Maps 'timezone' field to JSON key
     private String timezone; // Timezone of the user
 
     @NotNull(message = "User creation date cannot be null")
     @PastOrPresent(message = "User creation date should be in the past")
     @JsonProperty("addedAt") // Maps 'addedAt' field to JSON key
-    private ZonedDateTime addedAt; // Date when the user was added to the system
+    private Instant addedAt; // Date when the user was added to the system
 
     @NotNull(message = "Status cannot be null")
     @Range(min = 0, max = 2, message = "Invalid status")
@@ -153,7 +164,7 @@ public class User implements Serializable, DataIdentifier {
         this.email = email;
         this.phoneNumber = phoneNumber;
         this.timezone = APP_DEFAULT_TIMEZONE;
-        this.addedAt = ZonedDateTime.now(ZoneId.of(APP_DEFAULT_TIMEZONE));
+        this.addedAt = Instant.now();
         this.status = 1;
     }
 
@@ -405,7 +416,7 @@ public class User implements Serializable, DataIdentifier {
      * @return The date when the user was added to the system.
      */
     public ZonedDateTime getAddedAt() {
-        return addedAt.withZoneSameInstant(ZoneId.of(timezone));
+        return addedAt.atZone(TimeZones.zoneOf(timezone));
     }
 
     /**
@@ -418,7 +429,7 @@ public class User implements Serializable, DataIdentifier {
             @PastOrPresent(message = "User creation date should be in the past")
             ZonedDateTime addedAt
     ) {
-        this.addedAt = addedAt.withZoneSameInstant(ZoneId.of(APP_DEFAULT_TIMEZONE));
+        this.addedAt = addedAt.toInstant();
     }
 
     /**
@@ -490,4 +501,111 @@ public class User implements Serializable, DataIdentifier {
     public int hashCode() {
         return Objects.hash(userId, username, email, phoneNumber);
     }
-}
\ No newline at end of file
+
+    /**
+     * Streaming JSON serializer of users.
+     */
+    static final class Serializer extends StdSerializer<User> {
+        static final Serializer INSTANCE = new Serializer(); // Shared instance
+
+        /**
+         * Constructs the serializer.
+         */
+        private Serializer() {
+            super(User.class);
+        }
+
+        /**
+         * Writes a user as a JSON object.
+         *
+         * @param user      The user.
+         * @param generator The generator.
+         * @param provider  The serializer provider.
+         * @throws IOException If writing fails.
+         */
+        @Override
+        public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(user);
+            generator.writeNumberField("userId", user.userId);
+            generator.writeStringField("name", user.name);
+            generator.writeFieldName("dateOfBirth");
+            EntityCodecs.writeLocalDate(generator, user.dateOfBirth);
+            generator.writeFieldName("gender");
+            EntityCodecs.writeEnum(generator, user.gender);
+            generator.writeStringField("username", user.username);
+            generator.writeFieldName("password");
+            if (user.password == null) {
+                generator.writeNull();
+            } else {
+                UserPassword.Serializer.INSTANCE.serialize(user.password, generator, provider);
+            }
+            generator.writeStringField("email", user.email);
+            generator.writeFieldName("phoneNumber");
+            if (user.phoneNumber == null) {
+                generator.writeNull();
+            } else {
+                UserPhoneNumber.Serializer.INSTANCE.serialize(user.phoneNumber, generator, provider);
+            }
+            generator.writeStringField("timezone", user.timezone);
+            generator.writeFieldName("addedAt");
+            EntityCodecs.writeInstant(generator, user.addedAt);
+            generator.writeNumberField("status", user.status);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Streaming JSON deserializer of users.
+     */
+    static final class Deserializer extends EntityDeserializer<User> {
+        static final Deserializer INSTANCE = new Deserializer(); // Shared instance
+
+        /**
+         * Constructs the deserializer.
+         */
+        private Deserializer() {
+            super(User.class);
+        }
+
+        /**
+         * Creates an empty user.
+         *
+         * @return The user.
+         */
+        @Override
+        User create() {
+            return new User();
+        }
+
+        /**
+         * Reads a field into a user.
+         *
+         * @param parser  The parser positioned on the field's value.
+         * @param context The deserialization context.
+         * @param user    The user.
+         * @param name    The field name.
+         * @return True if the field is known.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        boolean readField(JsonParser parser, DeserializationContext context, User user, String name) throws IOException {
+            switch (name) {
+                case "userId" -> user.userId = readInt(parser, context);
+                case "name" -> user.name = readString(parser, context);
+                case "dateOfBirth" -> user.dateOfBirth = readLocalDate(parser, context);
+                case "gender" -> user.gender = readEnum(parser, context, Gender.class);
+                case "username" -> user.username = readString(parser, context);
+                case "password" -> user.password = parser.hasToken(JsonToken.VALUE_NULL) ? null : UserPassword.Deserializer.INSTANCE.deserialize(parser, context);
+                case "email" -> user.email = readString(parser, context);
+                case "phoneNumber" -> user.phoneNumber = parser.hasToken(JsonToken.VALUE_NULL) ? null : UserPhoneNumber.Deserializer.INSTANCE.deserialize(parser, context);
+                case "timezone" -> user.timezone = readPooledString(parser, context);
+                case "addedAt" -> user.addedAt = readInstant(parser, context);
+                case "status" -> user.status = readInt(parser, context);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,12 +2,19 @@ package com.zynotic.studios.quadsquad.questlog.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import de.mkammerer.argon2.Argon2Advanced;
 import de.mkammerer.argon2.Argon2Factory;
 import de.mkammerer.argon2.Argon2Version;
 import de.mkammerer.argon2.HashResult;
 import jakarta.validation.constraints.Null;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
 import java.nio.charset.Charset;
@@ -17,6 +24,8 @@ import java.util.Base64;
 /**
  * Represents the password of a user entity.
  * Provides functionality for hashing and verifying passwords using Argon2 algorithm.
+ * The cost parameters a password was hashed with are stored along with it and used to verify it;
+ * passwords stored without them were hashed with the defaults.
  */
 public class UserPassword implements Serializable {
     @Serial
@@ -44,11 +53,11 @@ public class UserPassword implements Serializable {
     private byte[] password;
     @JsonIgnore
     private String hashedPassword;
-    @JsonIgnore
+    @JsonProperty("iterations")
     private int iterations;
-    @JsonIgnore
+    @JsonProperty("memory")
     private int memory;
-    @JsonIgnore
+    @JsonProperty("parallelism")
     private int parallelism;
     @JsonIgnore
     private int saltLength;
@@ -77,6 +86,20 @@ public class UserPassword implements Serializable {
         this.version = ZPU_DEFAULT_VERSION;
     }
 
+    /**
+     * Constructs a new UserPassword instance hashed with the given Argon2 cost parameters.
+     *
+     * @param iterations  The number of iterations.
+     * @param memory      The amount of memory, in KiB.
+     * @param parallelism The parallelism factor.
+     */
+    public UserPassword(int iterations, int memory, int parallelism) {
+        this();
+        this.iterations = iterations;
+        this.memory = memory;
+        this.parallelism = parallelism;
+    }
+
     /**
      * Retrieves the plain text password.
      *
@@ -178,17 +201,15 @@ public class UserPassword implements Serializable {
      *
      * @return The number of iterations used in password hashing.
      */
-    @JsonIgnore
     public int getIterations() {
         return iterations;
     }
 
     /**
-     * Retrieves the amount of memory (in bytes) used in password hashing.
+     * Retrieves the amount of memory (in KiB) used in password hashing.
      *
-     * @return The amount of memory (in bytes) used in password hashing.
+     * @return The amount of memory (in KiB) used in password hashing.
      */
-    @JsonIgnore
     public int getMemory() {
         return memory;
     }
@@ -198,7 +219,6 @@ public class UserPassword implements Serializable {
      *
      * @return The parallelism factor used in password hashing.
      */
-    @JsonIgnore
     public int getParallelism() {
         return parallelism;
     }
@@ -268,4 +288,111 @@ public class UserPassword implements Serializable {
     public boolean verifyPassword(String passwordToVerify, byte[] salt, int hashLength, byte[] rawHashedPassword) {
         return argon2.verifyAdvanced(iterations, memory, parallelism, passwordToVerify.getBytes(), salt, null, null, hashLength, version, rawHashedPassword);
     }
+
+    /**
+     * Measures how long hashing a throwaway password takes on this host with the given parameters.
+     *
+     * @param iterations  The number of iterations.
+     * @param memory      The amount of memory, in KiB.
+     * @param parallelism The parallelism factor.
+     * @return The time taken, in nanoseconds.
+     */
+    public static long measureHashNanos(int iterations, int memory, int parallelism) {
+        byte[] sample = argon2.generateSalt(ZPU_DEFAULT_SALT_LENGTH);
+        byte[] sampleSalt = argon2.generateSalt(ZPU_DEFAULT_SALT_LENGTH);
+        long start = System.nanoTime();
+        argon2.hashAdvanced(iterations, memory, parallelism, sample, sampleSalt, ZPU_DEFAULT_HASH_LENGTH, ZPU_DEFAULT_VERSION);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Streaming JSON serializer of passwords.
+     */
+    static final class Serializer extends StdSerializer<UserPassword> {
+        static final Serializer INSTANCE = new Serializer(); // Shared instance
+
+        /**
+         * Constructs the serializer.
+         */
+        private Serializer() {
+            super(UserPassword.class);
+        }
+
+        /**
+         * Writes a password as a JSON object.
+         *
+         * @param password  The password.
+         * @param generator The generator.
+         * @param provider  The serializer provider.
+         * @throws IOException If writing fails.
+         */
+        @Override
+        public void serialize(UserPassword password, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(password);
+            generator.writeFieldName("charset");
+            if (password.charset == null) {
+                generator.writeNull();
+            } else {
+                generator.writeString(password.charset.name());
+            }
+            generator.writeNumberField("hashLength", password.hashLength);
+            generator.writeNumberField("iterations", password.iterations);
+            generator.writeNumberField("memory", password.memory);
+            generator.writeNumberField("parallelism", password.parallelism);
+            generator.writeStringField("rawHashedPassword", password.rawHashedPassword);
+            generator.writeStringField("salt", password.salt);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Streaming JSON deserializer of passwords.
+     */
+    static final class Deserializer extends EntityDeserializer<UserPassword> {
+        static final Deserializer INSTANCE = new Deserializer(); // Shared instance
+
+        /**
+         * Constructs the deserializer.
+         */
+        private Deserializer() {
+            super(UserPassword.class);
+        }
+
+        /**
+         * Creates an empty password.
+         *
+         * @return The password.
+         */
+        @Override
+        UserPassword create() {
+            return new UserPassword();
+        }
+
+        /**
+         * Reads a field into a password.
+         *
+         * @param parser  The parser positioned on the field's value.
+         * @param context The deserialization context.
+         * @param password The password.
+         * @param name    The field name.
+         * @return True if the field is known.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        boolean readField(JsonParser parser, DeserializationContext context, UserPassword password, String name) throws IOException {
+            switch (name) {
+                case "charset" -> password.charset = parser.hasToken(JsonToken.VALUE_STRING) ? Charset.forName(parser.getText()) : context.readValue(parser, Charset.class);
+                case "hashLength" -> password.hashLength = readInt(parser, context);
+                case "iterations" -> password.iterations = readInt(parser, context);
+                case "memory" -> password.memory = readInt(parser, context);
+                case "parallelism" -> password.parallelism = readInt(parser, context);
+                case "rawHashedPassword" -> password.rawHashedPassword = readString(parser, context);
+                case "salt" -> password.salt = readString(parser, context);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
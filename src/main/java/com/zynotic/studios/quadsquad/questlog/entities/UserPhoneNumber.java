@@ -18,20 +18,29 @@ package com.zynotic.studios.quadsquad.questlog.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.Phonenumber;
 import com.zynotic.studios.quadsquad.questlog.annotations.AllowedValues;
+import com.zynotic.studios.quadsquad.questlog.annotations.CountryCallingCode;
+import com.zynotic.studios.quadsquad.questlog.annotations.CountryCode;
+import com.zynotic.studios.quadsquad.questlog.utils.Countries;
+import com.zynotic.studios.quadsquad.questlog.utils.PooledStringDeserializer;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.UniqueElements;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -43,34 +52,33 @@ public class UserPhoneNumber implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-    @JsonIgnore
-    private static final String COUNTRY_CALLING_CODE_DATA = "database/countryCallingCode.json"; // File path for country calling codes data
     @JsonIgnore
     private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance(); // PhoneNumberUtil instance
     @JsonIgnore
-    private static Map<String, String> countryCallingCodes; // Map to store country calling codes
-
-    static {
-        try {
-            loadCountryCallingCodes(); // Load country calling codes from file
-        } catch (IOException e) {
-            // Handle the exception
+    private static final int PARSED_CACHE_CAPACITY = 256; // Parsed numbers kept by the cache
+    @JsonIgnore
+    private static final Map<ParsedKey, Parsed> parsedCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ParsedKey, Parsed> eldest) {
+            return size() > PARSED_CACHE_CAPACITY;
         }
-    }
+    }; // Recently parsed numbers, least recently used first; guarded by itself
 
     @JsonIgnore
-    private final Phonenumber.PhoneNumber phoneNumber = new Phonenumber.PhoneNumber(); // PhoneNumber instance
+    private Parsed parsed; // Parse, validation and format results of the number, shared through the cache
     @NotNull(message = "Country code cannot be null")
     @NotBlank(message = "Country code cannot be blank")
     @Length(min = 2, max = 2, message = "Country code should be 2 characters long")
-    @AllowedValues(valueList = {"AC", "AD", "AE", "AF", "AG", "AI", "AL", "AM", "AO", "AR", "AS", "AT", "AU", "AW", "AX", "AZ", "BA", "BB", "BD", "BE", "BF", "BG", "BH", "BI", "BJ", "BL", "BM", "BN", "BO", "BQ", "BR", "BS", "BT", "BW", "BY", "BZ", "CA", "CC", "CD", "CF", "CG", "CH", "CI", "CK", "CL", "CM", "CN", "CO", "CR", "CU", "CV", "CW", "CX", "CY", "CZ", "DE", "DJ", "DK", "DM", "DO", "DZ", "EC", "EE", "EG", "EH", "ER", "ES", "ET", "FI", "FJ", "FK", "FM", "FO", "FR", "GA", "GB", "GD", "GE", "GF", "GG", "GH", "GI", "GL", "GM", "GN", "GP", "GQ", "GR", "GT", "GU", "GW", "GY", "HK", "HN", "HR", "HT", "HU", "ID", "IE", "IL", "IM", "IN", "IO", "IQ", "IR", "IS", "IT", "JE", "JM", "JO", "JP", "KE", "KG", "KH", "KI", "KM", "KN", "KP", "KR", "KW", "KY", "KZ", "LA", "LB", "LC", "LI", "LK", "LR", "LS", "LT", "LU", "LV", "LY", "MA", "MC", "MD", "ME", "MF", "MG", "MH", "MK", "ML", "MM", "MN", "MO", "MP", "MQ", "MR", "MS", "MT", "MU", "MV", "MW", "MX", "MY", "MZ", "NA", "NC", "NE", "NF", "NG", "NI", "NL", "NO", "NP", "NR", "NU", "NZ", "OM", "PA", "PE", "PF", "PG", "PH", "PK", "PL", "PM", "PR", "PS", "PT", "PW", "PY", "QA", "RE", "RO", "RS", "RU", "RW", "SA", "SB", "SC", "SD", "SE", "SG", "SH", "SI", "SJ", "SK", "SL", "SM", "SN", "SO", "SR", "SS", "ST", "SV", "SX", "SY", "SZ", "TA", "TC", "TD", "TG", "TH", "TJ", "TK", "TL", "TM", "TN", "TO", "TR", "TT", "TV", "TW", "TZ", "UA", "UG", "US", "UY", "UZ", "VA", "VC", "VE", "VG", "VI", "VN", "VU", "WF", "WS", "XK", "YE", "YT", "ZA", "ZM", "ZW"})
+    @CountryCode
+    @JsonDeserialize(using = PooledStringDeserializer.class) // Shares repeated values
     @JsonProperty("countryCode")
     private String countryCode; // The country code of the user's phone number
 
     @NotNull(message = "Country calling code cannot be null")
     @NotBlank(message = "Country calling code cannot be blank")
     @Length(min = 1, max = 4, message = "Country calling code should be at least 1 character long and less than 4")
-    @AllowedValues(valueList = {"247", "376", "971", "93", "1", "355", "374", "244", "54", "43", "61", "297", "358", "994", "387", "880", "32", "226", "359", "973", "257", "229", "590", "673", "591", "599", "55", "975", "267", "375", "501", "243", "236", "242", "41", "225", "682", "56", "237", "86", "57", "506", "53", "238", "357", "420", "49", "253", "45", "213", "593", "372", "20", "212", "291", "34", "251", "679", "500", "691", "298", "33", "241", "44", "995", "594", "233", "350", "299", "220", "224", "240", "30", "502", "245", "592", "852", "504", "385", "509", "36", "62", "353", "972", "91", "246", "964", "98", "354", "39", "962", "81", "254", "996", "855", "686", "269", "850", "82", "965", "7", "856", "961", "423", "94", "231", "266", "370", "352", "371", "218", "377", "373", "382", "261", "692", "389", "223", "95", "976", "853", "596", "222", "356", "230", "960", "265", "52", "60", "258", "264", "687", "227", "672", "234", "505", "31", "47", "977", "674", "683", "64", "968", "507", "51", "689", "675", "63", "92", "48", "508", "970", "351", "680", "595", "974", "262", "40", "381", "250", "966", "677", "248", "249", "46", "65", "290", "386", "421", "232", "378", "221", "252", "597", "211", "239", "503", "963", "268", "235", "228", "66", "992", "690", "670", "993", "216", "676", "90", "688", "886", "255", "380", "256", "598", "998", "58", "84", "678", "681", "685", "383", "967", "27", "260", "263"})
+    @CountryCallingCode
+    @JsonDeserialize(using = PooledStringDeserializer.class) // Shares repeated values
     @JsonProperty("countryCallingCode")
     private String countryCallingCode; // The country calling code of the user's phone number
 
@@ -116,7 +124,7 @@ public class UserPhoneNumber implements Serializable {
             @NotNull(message = "Country code cannot be null")
             @NotBlank(message = "Country code cannot be blank")
             @Length(min = 2, max = 2, message = "Country code should be 2 characters long")
-            @AllowedValues(valueList = {"AC", "AD", "AE", "AF", "AG", "AI", "AL", "AM", "AO", "AR", "AS", "AT", "AU", "AW", "AX", "AZ", "BA", "BB", "BD", "BE", "BF", "BG", "BH", "BI", "BJ", "BL", "BM", "BN", "BO", "BQ", "BR", "BS", "BT", "BW", "BY", "BZ", "CA", "CC", "CD", "CF", "CG", "CH", "CI", "CK", "CL", "CM", "CN", "CO", "CR", "CU", "CV", "CW", "CX", "CY", "CZ", "DE", "DJ", "DK", "DM", "DO", "DZ", "EC", "EE", "EG", "EH", "ER", "ES", "ET", "FI", "FJ", "FK", "FM", "FO", "FR", "GA", "GB", "GD", "GE", "GF", "GG", "GH", "GI", "GL", "GM", "GN", "GP", "GQ", "GR", "GT", "GU", "GW", "GY", "HK", "HN", "HR", "HT", "HU", "ID", "IE", "IL", "IM", "IN", "IO", "IQ", "IR", "IS", "IT", "JE", "JM", "JO", "JP", "KE", "KG", "KH", "KI", "KM", "KN", "KP", "KR", "KW", "KY", "KZ", "LA", "LB", "LC", "LI", "LK", "LR", "LS", "LT", "LU", "LV", "LY", "MA", "MC", "MD", "ME", "MF", "MG", "MH", "MK", "ML", "MM", "MN", "MO", "MP", "MQ", "MR", "MS", "MT", "MU", "MV", "MW", "MX", "MY", "MZ", "NA", "NC", "NE", "NF", "NG", "NI", "NL", "NO", "NP", "NR", "NU", "NZ", "OM", "PA", "PE", "PF", "PG", "PH", "PK", "PL", "PM", "PR", "PS", "PT", "PW", "PY", "QA", "RE", "RO", "RS", "RU", "RW", "SA", "SB", "SC", "SD", "SE", "SG", "SH", "SI", "SJ", "SK", "SL", "SM", "SN", "SO", "SR", "SS", "ST", "SV", "SX", "SY", "SZ", "TA", "TC", "TD", "TG", "TH", "TJ", "TK", "TL", "TM", "TN", "TO", "TR", "TT", "TV", "TW", "TZ", "UA", "UG", "US", "UY", "UZ", "VA", "VC", "VE", "VG", "VI", "VN", "VU", "WF", "WS", "XK", "YE", "YT", "ZA", "ZM", "ZW"})
+            @CountryCode
             String countryCode,
 
             @NotNull(message = "National number cannot be null")
@@ -128,10 +136,8 @@ public class UserPhoneNumber implements Serializable {
             @AllowedValues(enumClass = PhoneNumberUtil.PhoneNumberType.class)
             PhoneNumberUtil.PhoneNumberType numberType
     ) {
-        // Set country code and national number for phoneNumber
-        phoneNumber.setCountryCode(Integer.parseInt(Objects.requireNonNull(getCountryCallingCode(countryCode))));
-        phoneNumber.setNationalNumber(Long.parseLong(nationalNumber));
-
+        // Parse the number, or reuse the results of the same number parsed before
+        parsed = parse(countryCode, Long.parseLong(nationalNumber), numberType);
 
         this.countryCode = countryCode;
         this.countryCallingCode = getCountryCallingCode(countryCode);
@@ -140,26 +146,14 @@ public class UserPhoneNumber implements Serializable {
         this.nationalNumber = getNationalNumber();
     }
 
-    @JsonIgnore
-    private static void loadCountryCallingCodes() throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        File file = new File(COUNTRY_CALLING_CODE_DATA);
-        countryCallingCodes = objectMapper.readValue(file, new TypeReference<Map<String, String>>() {
-        });
-    }
-
     /**
      * Gets an array of country codes.
      *
      * @return An array of country codes.
-     * @throws IOException If an I/O error occurs.
      */
     @JsonIgnore
-    public static String[] getCountries() throws IOException {
-        if (countryCallingCodes == null) {
-            loadCountryCallingCodes();
-        }
-        return countryCallingCodes.keySet().toArray(new String[0]);
+    public static String[] getCountries() {
+        return Countries.codes();
     }
 
     /**
@@ -172,17 +166,10 @@ public class UserPhoneNumber implements Serializable {
             @NotNull(message = "Country code cannot be null")
             @NotBlank(message = "Country code cannot be blank")
             @Length(min = 2, max = 2, message = "Country code should be 2 characters long")
-            @AllowedValues(valueList = {"AC", "AD", "AE", "AF", "AG", "AI", "AL", "AM", "AO", "AR", "AS", "AT", "AU", "AW", "AX", "AZ", "BA", "BB", "BD", "BE", "BF", "BG", "BH", "BI", "BJ", "BL", "BM", "BN", "BO", "BQ", "BR", "BS", "BT", "BW", "BY", "BZ", "CA", "CC", "CD", "CF", "CG", "CH", "CI", "CK", "CL", "CM", "CN", "CO", "CR", "CU", "CV", "CW", "CX", "CY", "CZ", "DE", "DJ", "DK", "DM", "DO", "DZ", "EC", "EE", "EG", "EH", "ER", "ES", "ET", "FI", "FJ", "FK", "FM", "FO", "FR", "GA", "GB", "GD", "GE", "GF", "GG", "GH", "GI", "GL", "GM", "GN", "GP", "GQ", "GR", "GT", "GU", "GW", "GY", "HK", "HN", "HR", "HT", "HU", "ID", "IE", "IL", "IM", "IN", "IO", "IQ", "IR", "IS", "IT", "JE", "JM", "JO", "JP", "KE", "KG", "KH", "KI", "KM", "KN", "KP", "KR", "KW", "KY", "KZ", "LA", "LB", "LC", "LI", "LK", "LR", "LS", "LT", "LU", "LV", "LY", "MA", "MC", "MD", "ME", "MF", "MG", "MH", "MK", "ML", "MM", "MN", "MO", "MP", "MQ", "MR", "MS", "MT", "MU", "MV", "MW", "MX", "MY", "MZ", "NA", "NC", "NE", "NF", "NG", "NI", "NL", "NO", "NP", "NR", "NU", "NZ", "OM", "PA", "PE", "PF", "PG", "PH", "PK", "PL", "PM", "PR", "PS", "PT", "PW", "PY", "QA", "RE", "RO", "RS", "RU", "RW", "SA", "SB", "SC", "SD", "SE", "SG", "SH", "SI", "SJ", "SK", "SL", "SM", "SN", "SO", "SR", "SS", "ST", "SV", "SX", "SY", "SZ", "TA", "TC", "TD", "TG", "TH", "TJ", "TK", "TL", "TM", "TN", "TO", "TR", "TT", "TV", "TW", "TZ", "UA", "UG", "US", "UY", "UZ", "VA", "VC", "VE", "VG", "VI", "VN", "VU", "WF", "WS", "XK", "YE", "YT", "ZA", "ZM", "ZW"})
+            @CountryCode
             String countryCode
     ) {
-        if (countryCallingCodes == null) {
-            try {
-                loadCountryCallingCodes();
-            } catch (IOException e) {
-                return null;
-            }
-        }
-        return countryCallingCodes.get(countryCode);
+        return Countries.callingCode(countryCode);
     }
 
     /**
@@ -213,7 +200,7 @@ public class UserPhoneNumber implements Serializable {
             @NotNull(message = "Country code cannot be null")
             @NotBlank(message = "Country code cannot be blank")
             @Length(min = 2, max = 2, message = "Country code should be 2 characters long")
-            @AllowedValues(valueList = {"AC", "AD", "AE", "AF", "AG", "AI", "AL", "AM", "AO", "AR", "AS", "AT", "AU", "AW", "AX", "AZ", "BA", "BB", "BD", "BE", "BF", "BG", "BH", "BI", "BJ", "BL", "BM", "BN", "BO", "BQ", "BR", "BS", "BT", "BW", "BY", "BZ", "CA", "CC", "CD", "CF", "CG", "CH", "CI", "CK", "CL", "CM", "CN", "CO", "CR", "CU", "CV", "CW", "CX", "CY", "CZ", "DE", "DJ", "DK", "DM", "DO", "DZ", "EC", "EE", "EG", "EH", "ER", "ES", "ET", "FI", "FJ", "FK", "FM", "FO", "FR", "GA", "GB", "GD", "GE", "GF", "GG", "GH", "GI", "GL", "GM", "GN", "GP", "GQ", "GR", "GT", "GU", "GW", "GY", "HK", "HN", "HR", "HT", "HU", "ID", "IE", "IL", "IM", "IN", "IO", "IQ", "IR", "IS", "IT", "JE", "JM", "JO", "JP", "KE", "KG", "KH", "KI", "KM", "KN", "KP", "KR", "KW", "KY", "KZ", "LA", "LB", "LC", "LI", "LK", "LR", "LS", "LT", "LU", "LV", "LY", "MA", "MC", "MD", "ME", "MF", "MG", "MH", "MK", "ML", "MM", "MN", "MO", "MP", "MQ", "MR", "MS", "MT", "MU", "MV", "MW", "MX", "MY", "MZ", "NA", "NC", "NE", "NF", "NG", "NI", "NL", "NO", "NP", "NR", "NU", "NZ", "OM", "PA", "PE", "PF", "PG", "PH", "PK", "PL", "PM", "PR", "PS", "PT", "PW", "PY", "QA", "RE", "RO", "RS", "RU", "RW", "SA", "SB", "SC", "SD", "SE", "SG", "SH", "SI", "SJ", "SK", "SL", "SM", "SN", "SO", "SR", "SS", "ST", "SV", "SX", "SY", "SZ", "TA", "TC", "TD", "TG", "TH", "TJ", "TK", "TL", "TM", "TN", "TO", "TR", "TT", "TV", "TW", "TZ", "UA", "UG", "US", "UY", "UZ", "VA", "VC", "VE", "VG", "VI", "VN", "VU", "WF", "WS", "XK", "YE", "YT", "ZA", "ZM", "ZW"})
+            @CountryCode
             String countryCode,
 
             @NotNull(message = "Phone number type cannot be null")
@@ -242,7 +229,7 @@ public class UserPhoneNumber implements Serializable {
             @NotNull(message = "Country code cannot be null")
             @NotBlank(message = "Country code cannot be blank")
             @Length(min = 2, max = 2, message = "Country code should be 2 characters long")
-            @AllowedValues(valueList = {"AC", "AD", "AE", "AF", "AG", "AI", "AL", "AM", "AO", "AR", "AS", "AT", "AU", "AW", "AX", "AZ", "BA", "BB", "BD", "BE", "BF", "BG", "BH", "BI", "BJ", "BL", "BM", "BN", "BO", "BQ", "BR", "BS", "BT", "BW", "BY", "BZ", "CA", "CC", "CD", "CF", "CG", "CH", "CI", "CK", "CL", "CM", "CN", "CO", "CR", "CU", "CV", "CW", "CX", "CY", "CZ", "DE", "DJ", "DK", "DM", "DO", "DZ", "EC", "EE", "EG", "EH", "ER", "ES", "ET", "FI", "FJ", "FK", "FM", "FO", "FR", "GA", "GB", "GD", "GE", "GF", "GG", "GH", "GI", "GL", "GM", "GN", "GP", "GQ", "GR", "GT", "GU", "GW", "GY", "HK", "HN", "HR", "HT", "HU", "ID", "IE", "IL", "IM", "IN", "IO", "IQ", "IR", "IS", "IT", "JE", "JM", "JO", "JP", "KE", "KG", "KH", "KI", "KM", "KN", "KP", "KR", "KW", "KY", "KZ", "LA", "LB", "LC", "LI", "LK", "LR", "LS", "LT", "LU", "LV", "LY", "MA", "MC", "MD", "ME", "MF", "MG", "MH", "MK", "ML", "MM", "MN", "MO", "MP", "MQ", "MR", "MS", "MT", "MU", "MV", "MW", "MX", "MY", "MZ", "NA", "NC", "NE", "NF", "NG", "NI", "NL", "NO", "NP", "NR", "NU", "NZ", "OM", "PA", "PE", "PF", "PG", "PH", "PK", "PL", "PM", "PR", "PS", "PT", "PW", "PY", "QA", "RE", "RO", "RS", "RU", "RW", "SA", "SB", "SC", "SD", "SE", "SG", "SH", "SI", "SJ", "SK", "SL", "SM", "SN", "SO", "SR", "SS", "ST", "SV", "SX", "SY", "SZ", "TA", "TC", "TD", "TG", "TH", "TJ", "TK", "TL", "TM", "TN", "TO", "TR", "TT", "TV", "TW", "TZ", "UA", "UG", "US", "UY", "UZ", "VA", "VC", "VE", "VG", "VI", "VN", "VU", "WF", "WS", "XK", "YE", "YT", "ZA", "ZM", "ZW"})
+            @CountryCode
             String countryCode
     ) {
         this.countryCode = countryCode;
@@ -266,7 +253,7 @@ public class UserPhoneNumber implements Serializable {
             @NotNull(message = "Country calling code cannot be null")
             @NotBlank(message = "Country calling code cannot be blank")
             @Length(min = 1, max = 4, message = "Country calling code should be at least 1 character long and less than 4")
-            @AllowedValues(valueList = {"247", "376", "971", "93", "1", "355", "374", "244", "54", "43", "61", "297", "358", "994", "387", "880", "32", "226", "359", "973", "257", "229", "590", "673", "591", "599", "55", "975", "267", "375", "501", "243", "236", "242", "41", "225", "682", "56", "237", "86", "57", "506", "53", "238", "357", "420", "49", "253", "45", "213", "593", "372", "20", "212", "291", "34", "251", "679", "500", "691", "298", "33", "241", "44", "995", "594", "233", "350", "299", "220", "224", "240", "30", "502", "245", "592", "852", "504", "385", "509", "36", "62", "353", "972", "91", "246", "964", "98", "354", "39", "962", "81", "254", "996", "855", "686", "269", "850", "82", "965", "7", "856", "961", "423", "94", "231", "266", "370", "352", "371", "218", "377", "373", "382", "261", "692", "389", "223", "95", "976", "853", "596", "222", "356", "230", "960", "265", "52", "60", "258", "264", "687", "227", "672", "234", "505", "31", "47", "977", "674", "683", "64", "968", "507", "51", "689", "675", "63", "92", "48", "508", "970", "351", "680", "595", "974", "262", "40", "381", "250", "966", "677", "248", "249", "46", "65", "290", "386", "421", "232", "378", "221", "252", "597", "211", "239", "503", "963", "268", "235", "228", "66", "992", "690", "670", "993", "216", "676", "90", "688", "886", "255", "380", "256", "598", "998", "58", "84", "678", "681", "685", "383", "967", "27", "260", "263"})
+            @CountryCallingCode
             String countryCallingCode
     ) {
         this.countryCallingCode = countryCallingCode;
@@ -279,7 +266,7 @@ public class UserPhoneNumber implements Serializable {
      */
     @JsonIgnore
     public String getNationalNumber() {
-        return phoneNumberUtil.format(phoneNumber, PhoneNumberUtil.PhoneNumberFormat.NATIONAL);
+        return parsed().formats.get(PhoneNumberUtil.PhoneNumberFormat.NATIONAL);
     }
 
     /**
@@ -316,7 +303,7 @@ public class UserPhoneNumber implements Serializable {
             @AllowedValues(enumClass = PhoneNumberUtil.PhoneNumberFormat.class)
             PhoneNumberUtil.PhoneNumberFormat phoneNumberFormat
     ) {
-        return phoneNumberUtil.format(phoneNumber, phoneNumberFormat);
+        return parsed().formats.get(phoneNumberFormat);
     }
 
 
@@ -327,7 +314,7 @@ public class UserPhoneNumber implements Serializable {
      */
     @JsonIgnore
     public boolean isValid() {
-        return phoneNumberUtil.isValidNumber(phoneNumber);
+        return parsed().valid;
     }
 
     /**
@@ -337,7 +324,7 @@ public class UserPhoneNumber implements Serializable {
      */
     @JsonIgnore
     public boolean isPossible() {
-        return phoneNumberUtil.isPossibleNumberForType(phoneNumber, numberType);
+        return parsed().possibleForType;
     }
 
     /**
@@ -347,8 +334,7 @@ public class UserPhoneNumber implements Serializable {
      */
     @JsonIgnore
     public String impossibleReason() {
-        PhoneNumberUtil.ValidationResult reasons = phoneNumberUtil.isPossibleNumberWithReason(phoneNumber);
-        return switch (reasons) {
+        return switch (parsed().possibility) {
             case IS_POSSIBLE -> null;
             case IS_POSSIBLE_LOCAL_ONLY ->
                     "The phone number format might only be valid for local calls. Consider including the country code.";
@@ -359,6 +345,46 @@ public class UserPhoneNumber implements Serializable {
         };
     }
 
+    /**
+     * Parses a number, or retrieves the results of the same number from the cache.
+     * Typing in the sign-up form and opening the About page validate and format the same few numbers over
+     * and over; the cache turns those repeats into a lookup.
+     *
+     * @param countryCode    The two-letter country code.
+     * @param nationalNumber The digits of the national number.
+     * @param numberType     The type of phone number.
+     * @return The results of the number.
+     */
+    private static Parsed parse(String countryCode, long nationalNumber, PhoneNumberUtil.PhoneNumberType numberType) {
+        ParsedKey key = new ParsedKey(countryCode, nationalNumber, numberType);
+        synchronized (parsedCache) {
+            Parsed cached = parsedCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Phonenumber.PhoneNumber phoneNumber = new Phonenumber.PhoneNumber();
+        phoneNumber.setCountryCode(Integer.parseInt(Objects.requireNonNull(getCountryCallingCode(countryCode))));
+        phoneNumber.setNationalNumber(nationalNumber);
+        Parsed result = new Parsed(phoneNumber, numberType);
+        synchronized (parsedCache) {
+            parsedCache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the results of the number, computing them for a number read from JSON, which is not parsed.
+     *
+     * @return The results.
+     */
+    private Parsed parsed() {
+        if (parsed == null) {
+            parsed = new Parsed(new Phonenumber.PhoneNumber(), numberType);
+        }
+        return parsed;
+    }
+
     /**
      * Indicates whether some other object is "equal to" this one.
      *
@@ -382,4 +408,123 @@ public class UserPhoneNumber implements Serializable {
     public int hashCode() {
         return Objects.hash(countryCode, countryCallingCode, nationalNumber, numberType);
     }
+
+    /**
+     * Key of a parsed number in the cache.
+     *
+     * @param countryCode    The two-letter country code.
+     * @param nationalNumber The digits of the national number.
+     * @param numberType     The type of phone number.
+     */
+    private record ParsedKey(String countryCode, long nationalNumber, PhoneNumberUtil.PhoneNumberType numberType) {
+    }
+
+    /**
+     * Parse, validation and format results of a number, computed once and never changed.
+     */
+    private static final class Parsed implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final PhoneNumberUtil.ValidationResult possibility; // Whether the number is possible, or why not
+        private final boolean possibleForType; // Whether the number is possible for its type
+        private final boolean valid; // Whether the number is valid
+        private final Map<PhoneNumberUtil.PhoneNumberFormat, String> formats = new EnumMap<>(PhoneNumberUtil.PhoneNumberFormat.class); // Number in every format
+
+        /**
+         * Computes the results of a number.
+         *
+         * @param phoneNumber The number.
+         * @param numberType  The type of phone number, or null if unknown.
+         */
+        private Parsed(Phonenumber.PhoneNumber phoneNumber, PhoneNumberUtil.PhoneNumberType numberType) {
+            this.possibility = phoneNumberUtil.isPossibleNumberWithReason(phoneNumber);
+            this.possibleForType = numberType != null && phoneNumberUtil.isPossibleNumberForType(phoneNumber, numberType);
+            this.valid = phoneNumberUtil.isValidNumber(phoneNumber);
+            for (PhoneNumberUtil.PhoneNumberFormat format : PhoneNumberUtil.PhoneNumberFormat.values()) {
+                formats.put(format, phoneNumberUtil.format(phoneNumber, format));
+            }
+        }
+    }
+
+    /**
+     * Streaming JSON serializer of phone numbers.
+     */
+    static final class Serializer extends StdSerializer<UserPhoneNumber> {
+        static final Serializer INSTANCE = new Serializer(); // Shared instance
+
+        /**
+         * Constructs the serializer.
+         */
+        private Serializer() {
+            super(UserPhoneNumber.class);
+        }
+
+        /**
+         * Writes a phone number as a JSON object.
+         *
+         * @param phoneNumber The phone number.
+         * @param generator The generator.
+         * @param provider  The serializer provider.
+         * @throws IOException If writing fails.
+         */
+        @Override
+        public void serialize(UserPhoneNumber phoneNumber, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(phoneNumber);
+            generator.writeStringField("countryCode", phoneNumber.countryCode);
+            generator.writeStringField("countryCallingCode", phoneNumber.countryCallingCode);
+            generator.writeStringField("nationalNumber", phoneNumber.nationalNumber);
+            generator.writeFieldName("numberType");
+            EntityCodecs.writeEnum(generator, phoneNumber.numberType);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Streaming JSON deserializer of phone numbers.
+     */
+    static final class Deserializer extends EntityDeserializer<UserPhoneNumber> {
+        static final Deserializer INSTANCE = new Deserializer(); // Shared instance
+
+        /**
+         * Constructs the deserializer.
+         */
+        private Deserializer() {
+            super(UserPhoneNumber.class);
+        }
+
+        /**
+         * Creates an empty phone number.
+         *
+         * @return The phone number.
+         */
+        @Override
+        UserPhoneNumber create() {
+            return new UserPhoneNumber();
+        }
+
+        /**
+         * Reads a field into a phone number.
+         *
+         * @param parser  The parser positioned on the field's value.
+         * @param context The deserialization context.
+         * @param phoneNumber The phone number.
+         * @param name    The field name.
+         * @return True if the field is known.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        boolean readField(JsonParser parser, DeserializationContext context, UserPhoneNumber phoneNumber, String name) throws IOException {
+            switch (name) {
+                case "countryCode" -> phoneNumber.countryCode = readPooledString(parser, context);
+                case "countryCallingCode" -> phoneNumber.countryCallingCode = readPooledString(parser, context);
+                case "nationalNumber" -> phoneNumber.nationalNumber = readString(parser, context);
+                case "numberType" -> phoneNumber.numberType = readEnum(parser, context, PhoneNumberUtil.PhoneNumberType.class);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,269 @@
+/*
+ * UserSession.java
+ * Represents a remembered sign-in of a user on a device.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Represents a remembered sign-in of a user on a device.
+ * The session only keeps an HMAC tag of its token, binding the token to the user, the device and the expiry;
+ * the token itself stays on the device that signed in.
+ */
+public class UserSession implements Serializable, DataIdentifier {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "Session ID cannot be null")
+    @PositiveOrZero(message = "Session ID must greater that or equal to 0")
+    @Min(value = 0, message = "Session ID must greater that or equal to 0")
+    @JsonProperty("sessionId") // Maps 'sessionId' field to JSON key
+    private int sessionId; // Unique ID of the session
+
+    @NotNull(message = "User ID cannot be null")
+    @PositiveOrZero(message = "User ID must greater that or equal to 0")
+    @JsonProperty("userId") // Maps 'userId' field to JSON key
+    private int userId; // ID of the signed-in user
+
+    @NotNull(message = "Device cannot be null")
+    @NotBlank(message = "Device cannot be blank")
+    @JsonProperty("device") // Maps 'device' field to JSON key
+    private String device; // Fingerprint of the device the session belongs to
+
+    @NotNull(message = "Session tag cannot be null")
+    @NotBlank(message = "Session tag cannot be blank")
+    @JsonProperty("tag") // Maps 'tag' field to JSON key
+    private String tag; // HMAC of the token, user, device and expiry
+
+    @NotNull(message = "Session expiry cannot be null")
+    @JsonProperty("expiresAt") // Maps 'expiresAt' field to JSON key
+    private Instant expiresAt; // Date and time the session expires
+
+    /**
+     * Constructs a new UserSession instance.
+     */
+    public UserSession() {
+    }
+
+    /**
+     * Constructs a session of a user on a device.
+     *
+     * @param userId    The ID of the signed-in user.
+     * @param device    The fingerprint of the device.
+     * @param tag       The HMAC tag of the session token.
+     * @param expiresAt The date and time the session expires.
+     */
+    public UserSession(int userId, String device, String tag, Instant expiresAt) {
+        this.userId = userId;
+        this.device = device;
+        this.tag = tag;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Retrieves the ID of the session.
+     * Note: This method is implemented to fulfill the DataIdentifier interface requirement.
+     *
+     * @return The ID of the session.
+     */
+    @Override
+    @JsonIgnore
+    public int getId() {
+        return sessionId;
+    }
+
+    /**
+     * Sets the ID of the session.
+     * Note: This method is implemented to fulfill the DataIdentifier interface requirement.
+     *
+     * @param sessionId The ID of the session.
+     */
+    @Override
+    @JsonIgnore
+    public void setId(int sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Sets or Gets unique keys associated with the session.
+     *
+     * @return The list of unique keys.
+     */
+    @Override
+    @JsonIgnore
+    public List<String> uniqueKeys() {
+        return List.of("sessionId"); // Specify unique keys
+    }
+
+    /**
+     * Retrieves the ID of the signed-in user.
+     *
+     * @return The user ID.
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Retrieves the fingerprint of the device the session belongs to.
+     *
+     * @return The device fingerprint.
+     */
+    public String getDevice() {
+        return device;
+    }
+
+    /**
+     * Retrieves the HMAC tag of the session token.
+     *
+     * @return The tag, Base64 encoded.
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Retrieves the date and time the session expires.
+     *
+     * @return The expiry.
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one.
+     *
+     * @param o The reference object with which to compare.
+     * @return {@code true} if this object is the same as the obj argument; {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserSession that = (UserSession) o;
+        return sessionId == that.sessionId;
+    }
+
+    /**
+     * Returns a hash code value for the object.
+     *
+     * @return A hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(sessionId);
+    }
+
+    /**
+     * Streaming JSON serializer of sessions.
+     */
+    static final class Serializer extends StdSerializer<UserSession> {
+        static final Serializer INSTANCE = new Serializer(); // Shared instance
+
+        /**
+         * Constructs the serializer.
+         */
+        private Serializer() {
+            super(UserSession.class);
+        }
+
+        /**
+         * Writes a session as a JSON object.
+         *
+         * @param session   The session.
+         * @param generator The generator.
+         * @param provider  The serializer provider.
+         * @throws IOException If writing fails.
+         */
+        @Override
+        public void serialize(UserSession session, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(session);
+            generator.writeNumberField("sessionId", session.sessionId);
+            generator.writeNumberField("userId", session.userId);
+            generator.writeStringField("device", session.device);
+            generator.writeStringField("tag", session.tag);
+            generator.writeFieldName("expiresAt");
+            EntityCodecs.writeInstant(generator, session.expiresAt);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Streaming JSON deserializer of sessions.
+     */
+    static final class Deserializer extends EntityDeserializer<UserSession> {
+        static final Deserializer INSTANCE = new Deserializer(); // Shared instance
+
+        /**
+         * Constructs the deserializer.
+         */
+        private Deserializer() {
+            super(UserSession.class);
+        }
+
+        /**
+         * Creates an empty session.
+         *
+         * @return The session.
+         */
+        @Override
+        UserSession create() {
+            return new UserSession();
+        }
+
+        /**
+         * Reads a field into a session.
+         *
+         * @param parser  The parser positioned on the field's value.
+         * @param context The deserialization context.
+         * @param session The session.
+         * @param name    The field name.
+         * @return True if the field is known.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        boolean readField(JsonParser parser, DeserializationContext context, UserSession session, String name) throws IOException {
+            switch (name) {
+                case "sessionId" -> session.sessionId = readInt(parser, context);
+                case "userId" -> session.userId = readInt(parser, context);
+                case "device" -> session.device = readString(parser, context);
+                case "tag" -> session.tag = readString(parser, context);
+                case "expiresAt" -> session.expiresAt = readInstant(parser, context);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * DataChangeListener.java
+ * Interface for objects notified when the data of a data file changes.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.interfaces;
+
+import com.zynotic.studios.quadsquad.questlog.services.DataChangeEvent;
+
+/**
+ * Interface for objects notified when the data of a data file changes,
+ * whether the change was made by this application instance or by another one sharing the file.
+ * Listeners are called on the thread that made or detected the change: the thread of the write, which may
+ * be the JavaFX thread, or a background thread for changes made by another instance. Listeners updating the
+ * scene must hand over to the JavaFX thread when they are not already on it.
+ *
+ * @param <P> The type of data entity implementing the DataIdentifier interface.
+ */
+@FunctionalInterface
+public interface DataChangeListener<P extends DataIdentifier> {
+
+    /**
+     * Called after the data changed.
+     *
+     * @param event The change.
+     */
+    void onDataChanged(DataChangeEvent<P> event);
+}
@@ -45,4 +45,50 @@ public interface DataIdentifier {
     default List<String> uniqueKeys() {
         return List.of(); // Return an empty list by default
     }
+
+    /**
+     * Sets or Gets ordered keys associated with the object.
+     * Ordered keys are indexed in sorted order and can be queried by range.
+     *
+     * @return The list of ordered keys.
+     */
+    default List<String> orderedKeys() {
+        return List.of(); // Return an empty list by default
+    }
+
+    /**
+     * Sets or Gets deferred keys associated with the object.
+     * Deferred keys hold large text that is left in the data file when records are loaded;
+     * their fields are null in loaded records and their values are read on demand by ID.
+     *
+     * @return The list of deferred keys.
+     */
+    default List<String> deferredKeys() {
+        return List.of(); // Return an empty list by default
+    }
+
+    /**
+     * Checks whether the object holds the value of a deferred key, because it was loaded with it or set since.
+     * A value the object does not hold keeps the one stored in the data file when the object is written;
+     * a value it holds is written as is, so setting a deferred value to null clears it.
+     * Objects declaring deferred keys must track this; by default every value is held.
+     *
+     * @param key The deferred key.
+     * @return True if the field of the key holds its value.
+     */
+    default boolean holdsDeferred(String key) {
+        return true; // No value is left in the data file by default
+    }
+
+    /**
+     * Gets the migrations of the stored form of the object, oldest first.
+     * The schema version of the entity is the number of migrations; migration {@code i} upgrades records
+     * written at version {@code i} to version {@code i + 1}. Data files without a version are at version 0.
+     * Migrations only ever append: a released migration must never be changed or removed.
+     *
+     * @return The list of migrations.
+     */
+    default List<RecordMigration> migrations() {
+        return List.of(); // Return an empty list by default
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * RecordMigration.java
+ * Interface for upgrades of the stored form of a record from one schema version to the next.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.interfaces;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Interface for upgrades of the stored form of a record from one schema version to the next.
+ * Migrations are declared by entities through {@link DataIdentifier#migrations()} and applied to each
+ * record as a data file written at an older version is read, for example:
+ * <pre>{@code
+ * record -> record.set("summary", record.remove("title"))
+ * }</pre>
+ */
+@FunctionalInterface
+public interface RecordMigration {
+
+    /**
+     * Upgrades a record in place.
+     *
+     * @param record The JSON object of the record, as written at the previous schema version.
+     */
+    void migrate(ObjectNode record);
+}
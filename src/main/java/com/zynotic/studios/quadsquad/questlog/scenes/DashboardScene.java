@@ -10,15 +10,24 @@ import com.zynotic.studios.quadsquad.questlog.components.DashboardProjects;
 import com.zynotic.studios.quadsquad.questlog.components.DashboardTodos;
 import com.zynotic.studios.quadsquad.questlog.components.Dialog;
 import com.zynotic.studios.quadsquad.questlog.entities.Project;
+import com.zynotic.studios.quadsquad.questlog.entities.Task;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataChangeListener;
+import com.zynotic.studios.quadsquad.questlog.services.DataChangeEvent;
 import com.zynotic.studios.quadsquad.questlog.services.DataService;
 import com.zynotic.studios.quadsquad.questlog.utils.SessionManager;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.event.EventHandler;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.geometry.VPos;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 import org.kordamp.ikonli.javafx.FontIcon;
 import org.kordamp.ikonli.material2.Material2OutlinedAL;
 import org.kordamp.ikonli.material2.Material2OutlinedMZ;
@@ -28,11 +37,16 @@ import java.util.*;
 
 public class DashboardScene {
     DataService<Project> projectService = new DataService<>("database/projects.json", Project.class);
+    DataService<Task> taskService = new DataService<>("database/tasks.json", Task.class);
     private final StackPane root;
     private final VBox dashboardContent = new VBox();
     private final Map<String, VBox> sections = new HashMap<>();
     private final Stage primaryStage;
     private final TreeItem<String> dashboardMenu;
+    private final DataChangeListener<Task> taskChangeListener = this::onTasksChanged;
+    private final EventHandler<WindowEvent> windowHiddenHandler = event -> detach();
+    private final ChangeListener<Scene> stageSceneListener = this::onStageSceneChanged;
+    private String currentSection = "tasks";
     private int loadedProjectsCount = 0;
     private List<Project> loadedProjects = new ArrayList<Project>();
     SessionManager sessionManager;
@@ -50,6 +64,10 @@ public class DashboardScene {
             primaryStage.setTitle("QuestLog - Dashboard > Task");
 
             initializeSections();
+            taskService.addChangeListener(taskChangeListener);
+            // Stop listening once the dashboard is replaced or its window is closed, however that happens
+            primaryStage.sceneProperty().addListener(stageSceneListener);
+            primaryStage.addEventHandler(WindowEvent.WINDOW_HIDDEN, windowHiddenHandler);
             ScrollPane dashboardContentScrollWrapper = new ScrollPane();
             GridPane dashboardMenuContent = new GridPane();
 
@@ -63,6 +81,7 @@ public class DashboardScene {
             Button signOut = new Button("Sign Out", new FontIcon(Material2OutlinedAL.LOG_OUT));
             ToolBar dashboardMenuBottomBar = new ToolBar(new Spacer(80), signOut);
             signOut.setOnAction(e -> {
+                detach();
                 sessionManager.signOut();
                 QuestLog.viewSignInScene();
             });
@@ -161,16 +180,49 @@ public class DashboardScene {
     }
 
     private void initializeSections() {
-        DashboardTodos defaultDashboardSection = new DashboardTodos("tasks", sessionManager.getUser());
-        sections.put("tasks", defaultDashboardSection.getTodosSection());
-        sections.put("today", new DashboardTodos("today", sessionManager.getUser()).getTodosSection());
-        sections.put("upcoming", new DashboardTodos("upcoming", sessionManager.getUser()).getTodosSection());
-        sections.put("overdue", new DashboardTodos("overdue", sessionManager.getUser()).getTodosSection());
-        sections.put("completed", new DashboardTodos("completed", sessionManager.getUser()).getTodosSection());
-
+        buildTodoSections();
         sections.put("projects", new DashboardProjects("completed").getProjectsSection());
 
-        setupSection(defaultDashboardSection.getTodosSection());
+        setupSection(sections.get("tasks"));
+    }
+
+    private void buildTodoSections() {
+        for (String sectionKey : List.of("tasks", "today", "upcoming", "overdue", "completed")) {
+            sections.put(sectionKey, new DashboardTodos(sectionKey, sessionManager.getUser()).getTodosSection());
+        }
+    }
+
+    // Task changes are reported on the thread that made or detected them, which may already be the JavaFX thread
+    private void onTasksChanged(DataChangeEvent<Task> event) {
+        if (Platform.isFxApplicationThread()) {
+            refreshTodoSections();
+        } else {
+            Platform.runLater(this::refreshTodoSections);
+        }
+    }
+
+    private void onStageSceneChanged(ObservableValue<? extends Scene> observable, Scene oldScene, Scene newScene) {
+        if (oldScene != null && oldScene == root.getScene()) {
+            detach();
+        }
+    }
+
+    // Unregisters everything the dashboard registered outside itself, so a replaced dashboard can be collected
+    private void detach() {
+        taskService.removeChangeListener(taskChangeListener);
+        primaryStage.sceneProperty().removeListener(stageSceneListener);
+        primaryStage.removeEventHandler(WindowEvent.WINDOW_HIDDEN, windowHiddenHandler);
+    }
+
+    // Rebuilds the task lists after tasks change, including changes made by another running instance
+    private void refreshTodoSections() {
+        if (!sessionManager.isSignedIn()) {
+            return;
+        }
+        buildTodoSections();
+        if (sections.containsKey(currentSection)) {
+            setupSection(sections.get(currentSection));
+        }
     }
 
     private void setupSection(VBox section) {
@@ -180,6 +232,7 @@ public class DashboardScene {
     }
 
     private void switchSection(String sectionKey, String title) {
+        currentSection = sectionKey;
         VBox section = sections.getOrDefault(sectionKey, createProjectSection(title));
         setupSection(section);
         primaryStage.setTitle("QuestLog - Dashboard > " + title.substring(0, 1).toUpperCase() + title.substring(1));
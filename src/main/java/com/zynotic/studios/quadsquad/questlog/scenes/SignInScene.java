@@ -5,8 +5,11 @@ import atlantafx.base.controls.PasswordTextField;
 import atlantafx.base.theme.Styles;
 import com.zynotic.studios.quadsquad.questlog.QuestLog;
 import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.services.CredentialHasher;
 import com.zynotic.studios.quadsquad.questlog.services.DataService;
+import com.zynotic.studios.quadsquad.questlog.services.UserLookup;
 import com.zynotic.studios.quadsquad.questlog.utils.SessionManager;
+import javafx.application.Platform;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -122,6 +125,9 @@ public class SignInScene {
 
             passwordField.setRight(passwordToggleIcon);
 
+            CheckBox rememberMeCheckBox = new CheckBox("Remember me");
+            rememberMeCheckBox.setMnemonicParsing(true);
+
             Button createAccountBtn = new Button("Create account");
             createAccountBtn.getStyleClass().addAll(Styles.FLAT);
             createAccountBtn.setMnemonicParsing(true);
@@ -157,13 +163,13 @@ public class SignInScene {
                 validator.validate();
 
                 if (!hasError) {
-                    signIn(username, password, sessionManager, usernameField, passwordField, passwordErrorMessage);
+                    signIn(username, password, rememberMeCheckBox.isSelected(), sessionManager, usernameField, passwordField, passwordErrorMessage, signInBtn);
                 }
             });
 
             signInActionBtnGroup.setSpacing(10);
             signInActionBtnGroup.setAlignment(Pos.CENTER_RIGHT);
-            signInActionBtnGroup.getChildren().addAll(createAccountBtn, signInBtn);
+            signInActionBtnGroup.getChildren().addAll(rememberMeCheckBox, createAccountBtn, signInBtn);
 
             signInForm.addRow(0, signInFormHeader);
             signInForm.addRow(1, new VBox(5, usernameLabel, usernameField, usernameErrorMessage));
@@ -194,31 +200,38 @@ public class SignInScene {
         return root;
     }
 
-    private void signIn(String username, String password, SessionManager sessionManager, Control fieldUsername, PasswordTextField fieldPassword, Text fieldError) {
-        Optional<User> loginAttemptUserData = usersService.getDataByKeyValue("username", username);
+    private void signIn(String username, String password, boolean rememberMe, SessionManager sessionManager, Control fieldUsername, PasswordTextField fieldPassword, Text fieldError, Button signInBtn) {
+        Optional<User> loginAttemptUserData = UserLookup.shared().byUsername(username);
         if (loginAttemptUserData.isPresent()) {
             User loginAttemptUser = loginAttemptUserData.get();
-            if (loginAttemptUser.verifyPassword(password)) {
-                try {
-                    sessionManager.signInSuccess(loginAttemptUser);
-                    validator.clear();
-                    QuestLog.viewDashboardScene();
-                } catch (IOException | URISyntaxException e) {
-                    throw new RuntimeException(e);
+            signInBtn.setDisable(true);
+            CredentialHasher.verify(loginAttemptUser, password, usersService).whenComplete((verified, error) -> Platform.runLater(() -> {
+                signInBtn.setDisable(false);
+                if (error != null) {
+                    error.printStackTrace();
                 }
-            } else {
-                validator.createCheck()
-                        .withMethod(c -> c.error("Username or Password incorrect"))
-                        .decoratingWith(m -> signInFormDecorator(m, new Control[]{fieldUsername}, new PasswordTextField[]{fieldPassword}))
-                        .decorates(fieldError)
-                        .immediate();
-            }
+                if (Boolean.TRUE.equals(verified)) {
+                    try {
+                        sessionManager.signInSuccess(loginAttemptUser, rememberMe);
+                        validator.clear();
+                        QuestLog.viewDashboardScene();
+                    } catch (IOException | URISyntaxException e) {
+                        throw new RuntimeException(e);
+                    }
+                } else {
+                    signInFailed(fieldUsername, fieldPassword, fieldError);
+                }
+            }));
         } else {
-            validator.createCheck()
-                    .withMethod(c -> c.error("Username or Password incorrect"))
-                    .decoratingWith(m -> signInFormDecorator(m, new Control[]{fieldUsername}, new PasswordTextField[]{fieldPassword}))
-                    .decorates(fieldError)
-                    .immediate();
+            signInFailed(fieldUsername, fieldPassword, fieldError);
         }
     }
+
+    private void signInFailed(Control fieldUsername, PasswordTextField fieldPassword, Text fieldError) {
+        validator.createCheck()
+                .withMethod(c -> c.error("Username or Password incorrect"))
+                .decoratingWith(m -> signInFormDecorator(m, new Control[]{fieldUsername}, new PasswordTextField[]{fieldPassword}))
+                .decorates(fieldError)
+                .immediate();
+    }
 }
@@ -11,8 +11,12 @@ import com.zynotic.studios.quadsquad.questlog.entities.User;
 import com.zynotic.studios.quadsquad.questlog.entities.UserPassword;
 import com.zynotic.studios.quadsquad.questlog.entities.UserPhoneNumber;
 import com.zynotic.studios.quadsquad.questlog.enums.Gender;
+import com.zynotic.studios.quadsquad.questlog.services.CredentialHasher;
 import com.zynotic.studios.quadsquad.questlog.services.DataService;
+import com.zynotic.studios.quadsquad.questlog.utils.Countries;
 import com.zynotic.studios.quadsquad.questlog.utils.SessionManager;
+import com.zynotic.studios.quadsquad.questlog.validation.AsyncFieldCheck;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.HPos;
@@ -39,6 +43,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -53,6 +58,9 @@ public class SignUpScene {
     private static final String APP_DEFAULT_TIMEZONE = getRequiredApplicationProperty("APP_DEFAULT_TIMEZONE");
     LocalDate today = LocalDate.now(ZoneId.of(APP_DEFAULT_TIMEZONE));
     private Validator validator = new Validator();
+    private final AsyncFieldCheck<String> usernameAvailabilityCheck = usernameAvailabilityCheck(usersService);
+    private final AsyncFieldCheck<String> emailAvailabilityCheck = emailAvailabilityCheck(usersService);
+    private final AsyncFieldCheck<List<String>> phoneNumberCheck = phoneNumberCheck(usersService);
     private final AtomicBoolean touchedName = new AtomicBoolean(false);
     private final AtomicBoolean touchedUsername = new AtomicBoolean(false);
     private final AtomicBoolean touchedEmail = new AtomicBoolean(false);
@@ -67,6 +75,8 @@ public class SignUpScene {
     public record CountryCallingCodeWithFlag(String text) {}
 
     private static class CountryCallingCodeWithFlagCell extends ListCell<CountryCallingCodeWithFlag> {
+        private static final Image[] flags = new Image[Countries.count()]; // Flags loaded so far, by country index
+
         @Override
         protected void updateItem(CountryCallingCodeWithFlag countryCallingCodeWithFlag, boolean isEmpty) {
             super.updateItem(countryCallingCodeWithFlag, isEmpty);
@@ -75,7 +85,7 @@ public class SignUpScene {
                 setGraphic(null);
                 setText(null);
             } else {
-                ImageView countryFlag = new ImageView(new Image("/assets/images/flags/3x2/png/" + countryCallingCodeWithFlag.text() + ".png"));
+                ImageView countryFlag = new ImageView(flag(countryCallingCodeWithFlag.text()));
                 countryFlag.setFitHeight(2*6);
                 countryFlag.setPreserveRatio(true);
                 setGraphic(countryFlag);
@@ -83,6 +93,18 @@ public class SignUpScene {
                 setText("(" + countryCallingCodeWithFlag.text() + ") +" + getCountryCallingCode(countryCallingCodeWithFlag.text()));
             }
         }
+
+        // Loads the flag of a country once, so scrolling the list reuses the decoded images
+        private static Image flag(String countryCode) {
+            int index = Countries.indexOf(countryCode);
+            if (index < 0) {
+                return new Image("/assets/images/flags/3x2/png/" + countryCode + ".png");
+            }
+            if (flags[index] == null) {
+                flags[index] = new Image("/assets/images/flags/3x2/png/" + countryCode + ".png");
+            }
+            return flags[index];
+        }
     }
 
     public record GenderBadge(String text) {}
@@ -179,7 +201,8 @@ public class SignUpScene {
             usernameErrorMessage.getStyleClass().addAll(Styles.TEXT);
             validator.createCheck()
                     .dependsOn("username", usernameField.textProperty())
-                    .withMethod(c -> validatorUsername(c, usersService, touchedUsername))
+                    .dependsOn("usernameChecked", usernameAvailabilityCheck.resultsProperty())
+                    .withMethod(c -> validatorUsername(c, usernameAvailabilityCheck, touchedUsername))
                     .decoratingWith(m -> signUpFormDecorator(m, new CustomTextField[]{usernameField}, null, null))
                     .decorates(usernameErrorMessage)
                     .immediate();
@@ -196,7 +219,8 @@ public class SignUpScene {
             emailErrorMessage.getStyleClass().addAll(Styles.TEXT);
             validator.createCheck()
                     .dependsOn("email", emailField.textProperty())
-                    .withMethod(c -> validatorEmail(c, usersService, touchedEmail))
+                    .dependsOn("emailChecked", emailAvailabilityCheck.resultsProperty())
+                    .withMethod(c -> validatorEmail(c, emailAvailabilityCheck, touchedEmail))
                     .decoratingWith(m -> signUpFormDecorator(m, new CustomTextField[]{emailField}, null, null))
                     .decorates(emailErrorMessage)
                     .immediate();
@@ -236,7 +260,8 @@ public class SignUpScene {
             validator.createCheck()
                     .dependsOn("phoneNumberCountryCode", phoneNumberCountryCodeField.textProperty())
                     .dependsOn("phoneNumberSubscriberNumber", phoneNumberSubscriberNumberField.textProperty())
-                    .withMethod(c -> validatorPhoneNumber(c, usersService, touchedPhoneNumber))
+                    .dependsOn("phoneNumberChecked", phoneNumberCheck.resultsProperty())
+                    .withMethod(c -> validatorPhoneNumber(c, phoneNumberCheck, touchedPhoneNumber))
                     .decoratingWith(m -> signUpFormDecorator(m, new CustomTextField[]{phoneNumberSubscriberNumberField}, new ComboBox<?>[]{phoneNumberCountryCodeInputField}, null))
                     .decorates(phoneNumberErrorMessage)
                     .immediate();
@@ -432,10 +457,21 @@ public class SignUpScene {
                     phoneNumberSubscriberNumber = phoneNumberSubscriberNumberField.getText();
                 }
 
+                // Settle background checks still waiting or running, so no input is accepted unchecked
+                if (!username.isBlank()) {
+                    usernameAvailabilityCheck.checkNow(username);
+                }
+                if (!email.isBlank()) {
+                    emailAvailabilityCheck.checkNow(email);
+                }
+                if (phoneNumberCountryCode != null) {
+                    phoneNumberCheck.checkNow(List.of(phoneNumberCountryCode, phoneNumberSubscriberNumber));
+                }
+
                 validator.validate();
 
                 if (!hasError && !validator.containsErrors()) {
-                    signUp(name, dateOfBirth, gender, username, password, email, phoneNumberCountryCode, phoneNumberSubscriberNumber);
+                    signUp(name, dateOfBirth, gender, username, password, email, phoneNumberCountryCode, phoneNumberSubscriberNumber, signUpBtn);
                 }
             });
 
@@ -462,17 +498,22 @@ public class SignUpScene {
         return root;
     }
 
-    private void signUp(String name, LocalDate dateOfBirth, Gender gender, String username, String password, String email, String phoneNumberCountryCode, String phoneNumberSubscriberNumber) {
+    private void signUp(String name, LocalDate dateOfBirth, Gender gender, String username, String password, String email, String phoneNumberCountryCode, String phoneNumberSubscriberNumber, Button signUpBtn) {
         UserPhoneNumber newUserPhoneNumber = new UserPhoneNumber(phoneNumberCountryCode, phoneNumberSubscriberNumber, PhoneNumberUtil.PhoneNumberType.MOBILE);
-        UserPassword newUserPassword = new UserPassword();
-        newUserPassword.setPassword(password);
-        newUserPassword.hashPassword();
-        User newUser = new User(name, dateOfBirth, gender, username, newUserPassword, email, newUserPhoneNumber);
-        try {
-            usersService.addData(newUser);
-            QuestLog.viewSignInScene();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        signUpBtn.setDisable(true);
+        CredentialHasher.hash(password).whenComplete((hashedPassword, error) -> Platform.runLater(() -> {
+            signUpBtn.setDisable(false);
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            User newUser = new User(name, dateOfBirth, gender, username, hashedPassword, email, newUserPhoneNumber);
+            try {
+                usersService.addData(newUser);
+                QuestLog.viewSignInScene();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }));
     }
 }
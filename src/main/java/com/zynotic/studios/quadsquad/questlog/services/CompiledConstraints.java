@@ -0,0 +1,377 @@
+/*
+ * CompiledConstraints.java
+ * Plain Java checks compiled from the constraint annotations of entity fields.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.QuestLog;
+import jakarta.validation.ClockProvider;
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
+import jakarta.validation.constraints.*;
+import org.hibernate.validator.constraints.Length;
+import org.hibernate.validator.constraints.Range;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Plain Java checks compiled from the constraint annotations of entity fields.
+ * Each supported constraint is turned once into a predicate over the field value with its message as a
+ * constant: patterns are compiled up front, and the application's own constraints, such as
+ * {@code @AllowedValues}, call their validator directly. Validating a property then needs neither the
+ * Hibernate metadata model nor expression-language message interpolation.
+ * <p>
+ * A field is only compiled if every one of its constraints is understood here, belongs to the default
+ * group and has a literal message; any other field is left to Hibernate Validator, as are entities with
+ * class-level, getter or cascaded constraints, {@code @Email} and constraints of other libraries. The checks
+ * follow Hibernate's semantics, including treating null as valid for every constraint but the null checks.
+ */
+final class CompiledConstraints {
+    private CompiledConstraints() {
+    }
+
+    /**
+     * Checks whether an entity class can be validated property by property from its fields alone.
+     *
+     * @param typeClass The entity class.
+     * @return True if the class has no class-level or getter constraints and no constrained superclass.
+     */
+    static boolean supportsClass(Class<?> typeClass) {
+        if (typeClass.getSuperclass() != Object.class || hasConstraint(typeClass.getAnnotations())) {
+            return false;
+        }
+        for (Method method : typeClass.getDeclaredMethods()) {
+            if (method.getParameterCount() == 0 && hasConstraint(method.getAnnotations())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the fields of an entity class carrying constraints.
+     *
+     * @param typeClass The entity class.
+     * @return The constrained fields, in declaration order.
+     */
+    static List<Field> constrainedFields(Class<?> typeClass) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : typeClass.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && (hasConstraint(field.getAnnotations()) || field.isAnnotationPresent(Valid.class))) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Compiles the constraints of a field.
+     *
+     * @param field The field.
+     * @return The checks, or null if the field must be validated by Hibernate Validator.
+     */
+    static List<Check> compile(Field field) {
+        if (field.isAnnotationPresent(Valid.class)) {
+            return null;
+        }
+        List<Check> checks = new ArrayList<>();
+        for (Annotation annotation : field.getAnnotations()) {
+            if (!annotation.annotationType().isAnnotationPresent(Constraint.class)) {
+                if (isConstraintList(annotation)) {
+                    return null;
+                }
+                continue;
+            }
+            Check check = compile(annotation, field.getType());
+            if (check == null) {
+                return null;
+            }
+            checks.add(check);
+        }
+        return checks;
+    }
+
+    /**
+     * Compiles a single constraint.
+     *
+     * @param annotation The constraint annotation.
+     * @param type       The type of the constrained field.
+     * @return The check, or null if the constraint is not supported on the type.
+     */
+    private static Check compile(Annotation annotation, Class<?> type) {
+        String message;
+        Class<?>[] groups;
+        try {
+            message = (String) annotation.annotationType().getMethod("message").invoke(annotation);
+            groups = (Class<?>[]) annotation.annotationType().getMethod("groups").invoke(annotation);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return null;
+        }
+        if (message.contains("{") || message.contains("$") || groups.length > 0) {
+            return null; // Needs interpolation or a validation group
+        }
+        boolean textual = CharSequence.class.isAssignableFrom(type);
+        boolean integral = type == int.class || type == long.class || type == short.class || type == byte.class
+                || type == Integer.class || type == Long.class || type == Short.class || type == Byte.class;
+        boolean temporal = type == Instant.class || type == LocalDate.class || type == ZonedDateTime.class;
+        Predicate<Object> test;
+        if (annotation instanceof NotNull) {
+            test = Objects::nonNull;
+        } else if (annotation instanceof NotBlank) {
+            test = !textual ? null : value -> value != null && ((CharSequence) value).toString().trim().length() > 0;
+        } else if (annotation instanceof Length length) {
+            test = !textual ? null : text(text -> text.length() >= length.min() && text.length() <= length.max());
+        } else if (annotation instanceof Pattern pattern) {
+            test = !textual ? null : pattern(pattern);
+        } else if (annotation instanceof Min min) {
+            test = !integral ? null : integral(value -> value >= min.value());
+        } else if (annotation instanceof PositiveOrZero) {
+            test = !integral ? null : integral(value -> value >= 0);
+        } else if (annotation instanceof Range range) {
+            test = !integral ? null : integral(value -> value >= range.min() && value <= range.max());
+        } else if (annotation instanceof Past) {
+            test = !temporal ? null : temporal(comparison -> comparison < 0);
+        } else if (annotation instanceof PastOrPresent) {
+            test = !temporal ? null : temporal(comparison -> comparison <= 0);
+        } else if (annotation instanceof FutureOrPresent) {
+            test = !temporal ? null : temporal(comparison -> comparison >= 0);
+        } else {
+            test = custom(annotation);
+        }
+        return test == null ? null : new Check(test, message);
+    }
+
+    /**
+     * Builds a check over character sequences, accepting null.
+     *
+     * @param test The check of a non-null sequence.
+     * @return The check, rejecting values that are not character sequences.
+     */
+    private static Predicate<Object> text(Predicate<CharSequence> test) {
+        return value -> value == null || (value instanceof CharSequence text && test.test(text));
+    }
+
+    /**
+     * Builds a check over integral numbers, accepting null.
+     *
+     * @param test The check of a non-null number.
+     * @return The check, rejecting values that are not integral numbers.
+     */
+    private static Predicate<Object> integral(LongPredicate test) {
+        return value -> value == null
+                || ((value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+                && test.test(((Number) value).longValue()));
+    }
+
+    /**
+     * Builds a check comparing a date or instant with the present, accepting null.
+     *
+     * @param test The check of the comparison of the value with the present.
+     * @return The check, rejecting values of unsupported types.
+     */
+    private static Predicate<Object> temporal(IntPredicate test) {
+        return value -> {
+            Clock clock = Clock.systemDefaultZone();
+            if (value == null) {
+                return true;
+            } else if (value instanceof Instant instant) {
+                return test.test(instant.compareTo(Instant.now(clock)));
+            } else if (value instanceof LocalDate date) {
+                return test.test(date.compareTo(LocalDate.now(clock)));
+            } else if (value instanceof ZonedDateTime dateTime) {
+                return test.test(dateTime.compareTo(ZonedDateTime.now(clock)));
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Compiles a pattern constraint.
+     *
+     * @param pattern The constraint.
+     * @return The check.
+     */
+    private static Predicate<Object> pattern(Pattern pattern) {
+        int flags = 0;
+        for (Pattern.Flag flag : pattern.flags()) {
+            flags |= flag.getValue();
+        }
+        java.util.regex.Pattern compiled = java.util.regex.Pattern.compile(pattern.regexp(), flags);
+        return text(text -> compiled.matcher(text).matches());
+    }
+
+    /**
+     * Compiles a constraint of the application by calling its single validator directly.
+     * Validators of other libraries may rely on the full Hibernate context, so their constraints are left
+     * to Hibernate Validator.
+     *
+     * @param annotation The constraint.
+     * @return The check, or null if the constraint is not the application's own or has no single validator.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate<Object> custom(Annotation annotation) {
+        Class<? extends ConstraintValidator<?, ?>>[] validators = annotation.annotationType().getAnnotation(Constraint.class).validatedBy();
+        if (validators.length != 1 || !validators[0].getPackageName().startsWith(QuestLog.class.getPackageName())) {
+            return null;
+        }
+        String messageTemplate;
+        try {
+            messageTemplate = (String) annotation.annotationType().getMethod("message").invoke(annotation);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+        try {
+            ConstraintValidator validator = validators[0].getDeclaredConstructor().newInstance();
+            validator.initialize(annotation);
+            return value -> {
+                ValueContext context = new ValueContext(messageTemplate);
+                try {
+                    return validator.isValid(value, context) || context.defaultDisabled;
+                } catch (ClassCastException e) {
+                    return false;
+                }
+            };
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether annotations include a constraint.
+     *
+     * @param annotations The annotations.
+     * @return True if one of them is a constraint or a list of constraints.
+     */
+    private static boolean hasConstraint(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType().isAnnotationPresent(Constraint.class) || isConstraintList(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an annotation is a container of repeated constraints, such as {@code @Pattern.List}.
+     *
+     * @param annotation The annotation.
+     * @return True if the annotation holds constraints.
+     */
+    private static boolean isConstraintList(Annotation annotation) {
+        try {
+            Class<?> valueType = annotation.annotationType().getMethod("value").getReturnType();
+            return valueType.isArray() && valueType.getComponentType().isAnnotationPresent(Constraint.class);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Context handed to the application's validators, which decide from the value alone.
+     * It reports through the constraint's own message only: building custom violations is not supported.
+     */
+    private static final class ValueContext implements ConstraintValidatorContext {
+        private static final ClockProvider clockProvider = Clock::systemDefaultZone; // Clock of the present
+
+        private final String messageTemplate; // Message of the constraint
+        private boolean defaultDisabled; // Whether the validator suppressed the constraint's message
+
+        /**
+         * Constructs the context of one validation.
+         *
+         * @param messageTemplate The message of the constraint.
+         */
+        private ValueContext(String messageTemplate) {
+            this.messageTemplate = messageTemplate;
+        }
+
+        /**
+         * Suppresses the constraint's message, so a failed check reports nothing.
+         */
+        @Override
+        public void disableDefaultConstraintViolation() {
+            defaultDisabled = true;
+        }
+
+        /**
+         * Retrieves the message of the constraint.
+         *
+         * @return The message.
+         */
+        @Override
+        public String getDefaultConstraintMessageTemplate() {
+            return messageTemplate;
+        }
+
+        /**
+         * Retrieves the provider of the clock of the present.
+         *
+         * @return The clock provider of the system default zone.
+         */
+        @Override
+        public ClockProvider getClockProvider() {
+            return clockProvider;
+        }
+
+        /**
+         * Refuses to build a custom violation.
+         *
+         * @param messageTemplate The message of the violation.
+         * @return Never returns.
+         * @throws ValidationException Always.
+         */
+        @Override
+        public ConstraintViolationBuilder buildConstraintViolationWithTemplate(String messageTemplate) {
+            throw new ValidationException("Custom violations are not supported by compiled constraints");
+        }
+
+        /**
+         * Unwraps the context, which is only possible as itself.
+         *
+         * @param type The type to unwrap to.
+         * @param <T>  The type to unwrap to.
+         * @return The context.
+         * @throws ValidationException If the context is not of the type.
+         */
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            if (type.isInstance(this)) {
+                return type.cast(this);
+            }
+            throw new ValidationException("Compiled constraints cannot provide " + type.getName());
+        }
+    }
+
+    /**
+     * A compiled constraint.
+     *
+     * @param test    The check, given the field value.
+     * @param message The message reported when the check fails.
+     */
+    record Check(Predicate<Object> test, String message) {
+    }
+}
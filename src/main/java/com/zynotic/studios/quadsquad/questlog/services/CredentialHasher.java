@@ -0,0 +1,376 @@
+/*
+ * CredentialHasher.java
+ * Background executor running Argon2 password hashing and verification off the JavaFX thread.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.entities.UserPassword;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getApplicationProperty;
+
+/**
+ * Background executor running Argon2 password hashing and verification off the JavaFX thread.
+ * Every hash holds {@link UserPassword#ZPU_DEFAULT_MEMORY} KiB of native memory while it runs, so the
+ * number of hashes run at once is capped by the memory that can be spared for them: half of the free
+ * physical memory when the executor is created, divided by the memory of one hash. Each hash runs on
+ * several Argon2 lanes, one thread each, so the limit is also kept to the number of processors divided by
+ * the lanes. Further requests wait in the queue instead of allocating more native memory.
+ * <p>
+ * One slot is kept for verifications, which a user signing in is waiting on: the calibration, hashes of
+ * new passwords and rehashes run on one thread fewer than the limit, so a verification never waits behind
+ * them. For that the limit is at least two whenever the memory allows it, even where the processors alone
+ * would allow one; the two hashes then share the processors, which only slows them down. Where the memory
+ * only allows a single hash, verifications and other hashes take turns. Requests of the same kind run in
+ * the order they were made.
+ * <p>
+ * New passwords are hashed with iterations calibrated on this host, so a hash takes about
+ * {@code APP_PASSWORD_HASH_TARGET_MILLIS} milliseconds. The calibration is the first background job to run,
+ * with as many lanes as there are processors, up to {@link #MAX_LANES}, and only its iteration count is
+ * tuned: the memory stays at {@link UserPassword#ZPU_DEFAULT_MEMORY} so the concurrency limit holds. Extra
+ * lanes fill the same memory in parallel, so they buy more iterations within the target.
+ * <p>
+ * Passwords are always verified with the parameters stored with them; once a password is verified with a
+ * lower cost than the calibrated one, it is hashed again and saved. Calibration never goes below
+ * {@link UserPassword#ZPU_DEFAULT_ITERATIONS}, and a password hashed at a higher cost, for instance on a
+ * faster host, is left as it is.
+ * <p>
+ * Results are completed on a hashing thread; callers updating the scene must hand them back to the
+ * JavaFX thread themselves.
+ */
+public final class CredentialHasher {
+    private static final Logger logger = LogManager.getLogger(CredentialHasher.class);
+
+    private static final int PRIORITY_CALIBRATE = 0; // Priority of the calibration, run first
+    private static final int PRIORITY_VERIFY = 1; // Priority of verifications
+    private static final int PRIORITY_HASH = 2; // Priority of new password hashes and rehashes
+    private static final int RESERVED_FOR_VERIFY = 1; // Slots background hashes leave to verifications
+
+    private static final long DEFAULT_TARGET_MILLIS = 500; // Hashing time aimed at if none is configured
+    private static final int MINIMUM_ITERATIONS = UserPassword.ZPU_DEFAULT_ITERATIONS; // Fewest iterations calibration may pick, so a slow host never weakens hashes
+    private static final int PROBE_ITERATIONS = 3; // Iterations of the second calibration run
+    private static final int MAX_LANES = 8; // Most Argon2 lanes a hash is split into
+
+    private static final int lanes = laneCount(); // Argon2 lanes of each new hash
+    private static final int concurrency = concurrencyLimit(); // Number of hashes run at once
+    private static final Semaphore slots = new Semaphore(concurrency, true); // Hashes allowed to hold their memory at once
+    private static final AtomicLong sequence = new AtomicLong(); // Order of requests of the same priority
+    private static final ThreadPoolExecutor verifier = createExecutor("verifier", concurrency); // Threads running verifications
+    private static final ThreadPoolExecutor hasher = createExecutor("hasher", Math.max(1, concurrency - RESERVED_FOR_VERIFY)); // Threads running the calibration, hashes and rehashes
+    private static final CompletableFuture<Parameters> target = new CompletableFuture<>(); // Calibrated parameters, completed by the calibration job
+    private static final AtomicBoolean calibrationStarted = new AtomicBoolean(); // Whether the calibration job was queued
+
+    private CredentialHasher() {
+    }
+
+    /**
+     * Starts calibrating the hashing parameters in the background, if not started yet.
+     * Called at startup so the calibration is done before the first password is hashed.
+     */
+    public static void calibrate() {
+        ensureCalibrationStarted();
+    }
+
+    /**
+     * Queues the calibration job once, ahead of every other hash, and retrieves its result.
+     *
+     * @return A future completed with the calibrated parameters.
+     */
+    private static CompletableFuture<Parameters> ensureCalibrationStarted() {
+        if (calibrationStarted.compareAndSet(false, true)) {
+            submit(hasher, PRIORITY_CALIBRATE, CredentialHasher::measureParameters).whenComplete((parameters, error) -> {
+                if (error != null) {
+                    target.completeExceptionally(error);
+                } else {
+                    target.complete(parameters);
+                }
+            });
+        }
+        return target;
+    }
+
+    /**
+     * Verifies a password against the stored password of a user in the background.
+     * If the password matches but was hashed at a lower cost than the calibrated one, it is hashed again
+     * afterwards and the user is updated in the given service.
+     *
+     * @param user     The user.
+     * @param password The password to verify.
+     * @param users    The service storing the user.
+     * @return A future completed with true if the password matches, false otherwise.
+     */
+    public static CompletableFuture<Boolean> verify(User user, String password, DataService<User> users) {
+        CompletableFuture<Boolean> verified = submit(verifier, PRIORITY_VERIFY, () -> user.verifyPassword(password));
+        verified.thenAccept(matches -> {
+            if (matches) {
+                rehashIfBelowTarget(user, password, users);
+            }
+        });
+        return verified;
+    }
+
+    /**
+     * Hashes a new password in the background with the calibrated parameters.
+     *
+     * @param password The plain text password.
+     * @return A future completed with the hashed password.
+     */
+    public static CompletableFuture<UserPassword> hash(String password) {
+        return ensureCalibrationStarted().thenCompose(parameters -> submit(hasher, PRIORITY_HASH, () -> parameters.hash(password)));
+    }
+
+    /**
+     * Hashes a verified password again with the calibrated parameters if it was hashed at a lower cost.
+     *
+     * @param user     The user.
+     * @param password The verified plain text password.
+     * @param users    The service storing the user.
+     */
+    private static void rehashIfBelowTarget(User user, String password, DataService<User> users) {
+        ensureCalibrationStarted().thenCompose(parameters -> !parameters.isBelowTarget(user.getPassword())
+                ? CompletableFuture.completedFuture(null)
+                : submit(hasher, PRIORITY_HASH, () -> {
+                    // Update a fresh copy, the caller's user may be read by the UI while this runs
+                    UserPassword rehashed = parameters.hash(password);
+                    users.editDataById(user.getId()).ifPresent(stored -> {
+                        stored.setPassword(rehashed);
+                        users.updateData(stored);
+                        logger.info("Rehashed the password of user {} with {} iterations", user.getId(), parameters.iterations());
+                    });
+                    return null;
+                })).exceptionally(e -> {
+            logger.warn("Could not rehash the password of user {}", user.getId(), e);
+            return null;
+        });
+    }
+
+    /**
+     * Calibrates the number of iterations to the configured hashing time on this host.
+     * Hashing time grows linearly with iterations, so two timed runs give the fixed cost and the cost of an
+     * iteration.
+     *
+     * @return The calibrated parameters.
+     */
+    private static Parameters measureParameters() {
+        int memory = UserPassword.ZPU_DEFAULT_MEMORY;
+        int parallelism = lanes;
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis());
+        UserPassword.measureHashNanos(1, memory, parallelism); // Loads the native library and touches the memory
+        long single = UserPassword.measureHashNanos(1, memory, parallelism);
+        long probe = UserPassword.measureHashNanos(PROBE_ITERATIONS, memory, parallelism);
+        int iterations = calibratedIterations(targetNanos, single, probe);
+        logger.info("Calibrated password hashing to {} iterations for {} ms", iterations, TimeUnit.NANOSECONDS.toMillis(targetNanos));
+        return new Parameters(iterations, memory, parallelism);
+    }
+
+    /**
+     * Computes the number of iterations a hash takes the target time with, from two timed runs.
+     *
+     * @param targetNanos The hashing time aimed at, in nanoseconds.
+     * @param singleNanos The time of a hash with one iteration, in nanoseconds.
+     * @param probeNanos  The time of a hash with {@link #PROBE_ITERATIONS} iterations, in nanoseconds.
+     * @return The iterations, never fewer than {@link #MINIMUM_ITERATIONS}.
+     */
+    static int calibratedIterations(long targetNanos, long singleNanos, long probeNanos) {
+        long perIteration = Math.max(1, (probeNanos - singleNanos) / (PROBE_ITERATIONS - 1));
+        long fixed = Math.max(0, singleNanos - perIteration);
+        return (int) Math.max(MINIMUM_ITERATIONS, Math.min(Integer.MAX_VALUE, (targetNanos - fixed) / perIteration));
+    }
+
+    /**
+     * Reads the configured hashing time.
+     *
+     * @return The hashing time aimed at, in milliseconds.
+     */
+    private static long targetMillis() {
+        String configured = getApplicationProperty("APP_PASSWORD_HASH_TARGET_MILLIS");
+        try {
+            long millis = configured == null ? DEFAULT_TARGET_MILLIS : Long.parseLong(configured.trim());
+            return millis > 0 ? millis : DEFAULT_TARGET_MILLIS;
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid APP_PASSWORD_HASH_TARGET_MILLIS: {}", configured);
+            return DEFAULT_TARGET_MILLIS;
+        }
+    }
+
+    /**
+     * Retrieves the number of hashes run at once.
+     *
+     * @return The concurrency limit.
+     */
+    public static int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Queues a hashing job.
+     * The job waits for a free slot once it is picked up, so no more hashes than the limit hold memory at once.
+     *
+     * @param pool     The executor to run the job on.
+     * @param priority The priority of the job, lower first.
+     * @param work     The work of the job.
+     * @param <T>      The type of result.
+     * @return A future completed with the result of the job.
+     */
+    private static <T> CompletableFuture<T> submit(ThreadPoolExecutor pool, int priority, Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            pool.execute(new Job(priority, sequence.getAndIncrement(), () -> {
+                slots.acquireUninterruptibly();
+                try {
+                    future.complete(work.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    slots.release();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Retrieves the number of Argon2 lanes new passwords are hashed with.
+     *
+     * @return The lane count.
+     */
+    public static int lanes() {
+        return lanes;
+    }
+
+    /**
+     * Computes the number of Argon2 lanes from the processors available.
+     *
+     * @return The lane count, between one and {@link #MAX_LANES}.
+     */
+    private static int laneCount() {
+        return Math.max(1, Math.min(MAX_LANES, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Computes the number of hashes that may run at once from the free memory, processors and lanes.
+     * The limit is raised to leave a slot for verifications if the memory allows it.
+     *
+     * @return The concurrency limit, at least one.
+     */
+    private static int concurrencyLimit() {
+        long perHash = UserPassword.ZPU_DEFAULT_MEMORY * 1024L;
+        long budget;
+        OperatingSystemMXBean system = ManagementFactory.getOperatingSystemMXBean();
+        if (system instanceof com.sun.management.OperatingSystemMXBean physical) {
+            budget = physical.getFreeMemorySize() / 2;
+        } else {
+            Runtime runtime = Runtime.getRuntime();
+            budget = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        }
+        int byProcessors = Math.max(1 + RESERVED_FOR_VERIFY, Runtime.getRuntime().availableProcessors() / lanes);
+        int limit = (int) Math.max(1, Math.min(byProcessors, budget / perHash));
+        logger.info("Credential hashing limited to {} at a time on {} lanes each", limit, lanes);
+        return limit;
+    }
+
+    /**
+     * Creates an executor whose queue orders jobs by priority.
+     *
+     * @param name    The name of its threads.
+     * @param threads The number of threads.
+     * @return The executor.
+     */
+    private static ThreadPoolExecutor createExecutor(String name, int threads) {
+        AtomicInteger created = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "questlog-credential-" + name + "-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Calibrated Argon2 cost parameters.
+     *
+     * @param iterations  The number of iterations.
+     * @param memory      The amount of memory, in KiB.
+     * @param parallelism The parallelism factor.
+     */
+    private record Parameters(int iterations, int memory, int parallelism) {
+        /**
+         * Hashes a password with these parameters.
+         *
+         * @param password The plain text password.
+         * @return The hashed password.
+         */
+        UserPassword hash(String password) {
+            UserPassword hashed = new UserPassword(iterations, memory, parallelism);
+            hashed.setPassword(password);
+            hashed.hashPassword();
+            return hashed;
+        }
+
+        /**
+         * Checks whether a password was hashed at a cost far enough below these parameters to be hashed again.
+         * Iteration counts less than a quarter below the calibrated one are accepted, so calibration noise
+         * between runs does not rehash every password. A higher cost is never lowered, and the lane count
+         * alone does not trigger a rehash, since lanes only split the same work.
+         *
+         * @param password The hashed password.
+         * @return True if the password should be hashed again.
+         */
+        boolean isBelowTarget(UserPassword password) {
+            return password.getMemory() < memory
+                    || password.getIterations() < iterations - Math.max(1, iterations / 4);
+        }
+    }
+
+    /**
+     * A queued hashing job.
+     *
+     * @param priority The priority of the job, lower first.
+     * @param order    The order the job was queued in, among jobs of the same priority.
+     * @param work     The work of the job.
+     */
+    private record Job(int priority, long order, Runnable work) implements Runnable, Comparable<Job> {
+        /**
+         * Runs the job.
+         */
+        @Override
+        public void run() {
+            work.run();
+        }
+
+        /**
+         * Orders jobs by priority, then by the order they were queued in.
+         *
+         * @param other The other job.
+         * @return The comparison.
+         */
+        @Override
+        public int compareTo(Job other) {
+            int comparison = Integer.compare(priority, other.priority);
+            return comparison != 0 ? comparison : Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * DataBloomFilter.java
+ * Bloom filter over the string forms of the values of a key.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+/**
+ * Bloom filter over the string forms of the values of a key.
+ * Answers "definitely absent" or "possibly present" from a bit array, without touching the strings held by
+ * the index. It is sized for about one false positive in a hundred at its capacity; values can be added
+ * but not removed, so it is rebuilt by its owner once it is full or too many values were removed
+ * (see {@link DataIndex#remove(int)}).
+ */
+final class DataBloomFilter {
+    private static final int BITS_PER_VALUE = 10; // Bits per value, for about 1% false positives
+    private static final int HASHES = 7; // Bits set per value
+
+    private final long[] bits; // Bit array
+    private final long bitCount; // Number of bits
+    private final int capacity; // Values the filter is sized for
+    private int size; // Values added so far
+
+    /**
+     * Constructs an empty filter.
+     *
+     * @param capacity The number of values the filter is sized for.
+     */
+    DataBloomFilter(int capacity) {
+        this.capacity = Math.max(64, capacity);
+        this.bits = new long[(int) (((long) this.capacity * BITS_PER_VALUE + 63) / 64)];
+        this.bitCount = bits.length * 64L;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The string form of the value.
+     */
+    void add(String value) {
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        size++;
+    }
+
+    /**
+     * Checks whether a value may have been added.
+     *
+     * @param value The string form of the value.
+     * @return False if the value was definitely never added, true if it possibly was.
+     */
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Integer.toUnsignedLong(first + i * second) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the filter holds as many values as it was sized for.
+     *
+     * @return True if the false positive rate would grow past its target with more values.
+     */
+    boolean isFull() {
+        return size >= capacity;
+    }
+
+    /**
+     * Computes a 64-bit hash of a string, FNV-1a over its characters with a final mix.
+     *
+     * @param value The string.
+     * @return The hash.
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * DataChangeEvent.java
+ * Describes a change of the data of a data file.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+
+import java.util.Set;
+
+/**
+ * Describes a change of the data of a data file.
+ *
+ * @param <P> The type of data entity implementing the DataIdentifier interface.
+ */
+public final class DataChangeEvent<P extends DataIdentifier> {
+    private final DataSnapshot<P> snapshot; // Data right after the change
+    private final Set<Integer> addedIds; // IDs of added records
+    private final Set<Integer> updatedIds; // IDs of updated records
+    private final Set<Integer> removedIds; // IDs of removed records
+    private final boolean external; // Whether another application instance made the change
+
+    /**
+     * Constructs a change event.
+     *
+     * @param snapshot   The data right after the change.
+     * @param addedIds   The IDs of added records.
+     * @param updatedIds The IDs of updated records.
+     * @param removedIds The IDs of removed records.
+     * @param external   True if the change was made by another application instance.
+     */
+    DataChangeEvent(DataSnapshot<P> snapshot, Set<Integer> addedIds, Set<Integer> updatedIds, Set<Integer> removedIds, boolean external) {
+        this.snapshot = snapshot;
+        this.addedIds = Set.copyOf(addedIds);
+        this.updatedIds = Set.copyOf(updatedIds);
+        this.removedIds = Set.copyOf(removedIds);
+        this.external = external;
+    }
+
+    /**
+     * Retrieves the data right after the change.
+     *
+     * @return The snapshot of the data.
+     */
+    public DataSnapshot<P> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Retrieves the IDs of added records.
+     *
+     * @return The added IDs.
+     */
+    public Set<Integer> getAddedIds() {
+        return addedIds;
+    }
+
+    /**
+     * Retrieves the IDs of updated records.
+     *
+     * @return The updated IDs.
+     */
+    public Set<Integer> getUpdatedIds() {
+        return updatedIds;
+    }
+
+    /**
+     * Retrieves the IDs of removed records.
+     *
+     * @return The removed IDs.
+     */
+    public Set<Integer> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * Checks whether another application instance made the change.
+     *
+     * @return True if the change was read from the file, false if it was made by this instance.
+     */
+    public boolean isExternal() {
+        return external;
+    }
+
+    /**
+     * Checks whether the change touched any record.
+     *
+     * @return True if nothing was added, updated or removed.
+     */
+    public boolean isEmpty() {
+        return addedIds.isEmpty() && updatedIds.isEmpty() && removedIds.isEmpty();
+    }
+}
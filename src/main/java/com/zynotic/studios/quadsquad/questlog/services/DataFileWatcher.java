@@ -0,0 +1,110 @@
+/*
+ * DataFileWatcher.java
+ * Watches data directories for changes made by other application instances.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches data directories for changes made by other application instances.
+ * A single daemon thread waits on a {@link WatchService}; when a watched data file is created or modified,
+ * the owning store reloads it and notifies its listeners. Watched stores then no longer check the file
+ * on every read.
+ */
+final class DataFileWatcher {
+    private static final Logger logger = LogManager.getLogger(DataFileWatcher.class);
+    private static final long SETTLE_MILLIS = 50; // Time given to a burst of events to settle before reloading
+
+    private static final Map<Path, Map<String, DataStore<?>>> watched = new ConcurrentHashMap<>(); // Directory -> file name -> store
+    private static WatchService watchService; // Shared watch service, null until first use or if unsupported
+
+    private DataFileWatcher() {
+    }
+
+    /**
+     * Starts watching the data file of a store.
+     *
+     * @param store The store to keep in sync with its file.
+     * @return True if the file is watched, false if the platform cannot watch it.
+     */
+    static synchronized boolean watch(DataStore<?> store) {
+        Path file = store.file().toPath();
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return false;
+        }
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                Thread thread = new Thread(DataFileWatcher::run, "questlog-data-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            if (!watched.containsKey(directory)) {
+                directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+            }
+            watched.computeIfAbsent(directory, dir -> new ConcurrentHashMap<>()).put(file.getFileName().toString(), store);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Could not watch {}, falling back to checking it on access", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits for file system events and reloads the stores whose files changed.
+     */
+    private static void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+                Thread.sleep(SETTLE_MILLIS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            Map<String, DataStore<?>> stores = watched.getOrDefault(directory, Map.of());
+            Set<DataStore<?>> changed = new HashSet<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    changed.addAll(stores.values());
+                } else if (event.context() instanceof Path name) {
+                    DataStore<?> store = stores.get(name.toString());
+                    if (store != null) {
+                        changed.add(store);
+                    }
+                }
+            }
+            key.reset();
+            for (DataStore<?> store : changed) {
+                try {
+                    store.reloadIfChanged();
+                } catch (RuntimeException e) {
+                    logger.error("Could not reload {}", store.file(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * DataIndex.java
+ * Secondary index over a single key of a data store.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Secondary index over a single key of a data store.
+ * Unique indexes are hashed on the string form of the key (matching {@link DataService#isDuplicate(String, Object)}),
+ * ordered indexes are sorted on the natural order of the key and support range lookups.
+ * The index keeps the key each record was indexed under, so records mutated in place can still be re-indexed.
+ * Hashed indexes also keep a {@link DataBloomFilter} of their keys, so most lookups of keys no record has,
+ * such as availability checks of new usernames, are answered without probing the map.
+ */
+final class DataIndex {
+    private static final Logger logger = LogManager.getLogger(DataIndex.class);
+
+    private static final int MIN_STALE_KEYS = 64; // Fewest removed keys worth rebuilding the filter for
+
+    private final Field field; // Field the index is built on
+    private final boolean ordered; // Whether the index is sorted
+    private final Map<Object, Set<Integer>> entries; // Indexed key -> record IDs
+    private final Set<Integer> nullEntries = new HashSet<>(); // Record IDs whose key is null
+    private final Map<Integer, Object> indexedKeys = new HashMap<>(); // Record ID -> key it is indexed under
+    private DataBloomFilter filter; // Filter of the keys of a hashed index, null for an ordered one
+    private int staleKeys; // Keys no longer indexed but still set in the filter
+
+    /**
+     * Constructs an empty index over the given field.
+     *
+     * @param field   The field to index.
+     * @param ordered True for a sorted index, false for a hashed one.
+     */
+    DataIndex(Field field, boolean ordered) {
+        this.field = field;
+        this.ordered = ordered;
+        this.entries = ordered ? new TreeMap<>() : new HashMap<>();
+        this.filter = ordered ? null : new DataBloomFilter(0);
+    }
+
+    /**
+     * Checks whether this index is sorted.
+     *
+     * @return True if the index supports range lookups.
+     */
+    boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Adds or re-indexes a record under its current key.
+     *
+     * @param id     The ID of the record.
+     * @param record The record.
+     */
+    void put(int id, Object record) {
+        Object key = normalize(readKey(record));
+        if (indexedKeys.containsKey(id) && Objects.equals(indexedKeys.get(id), key)) {
+            return; // Already indexed under this key
+        }
+        remove(id);
+        indexedKeys.put(id, key);
+        if (key == null) {
+            nullEntries.add(id);
+        } else {
+            entries.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+            if (filter != null) {
+                filter.add((String) key);
+                if (filter.isFull()) {
+                    rebuildFilter();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a record from the index using the key it was indexed under.
+     * Keys no record is indexed under any more stay set in the filter; once they are as many as the keys
+     * still indexed, the filter is rebuilt so its false positive rate does not keep growing.
+     *
+     * @param id The ID of the record.
+     */
+    void remove(int id) {
+        if (!indexedKeys.containsKey(id)) {
+            return;
+        }
+        Object key = indexedKeys.remove(id);
+        if (key == null) {
+            nullEntries.remove(id);
+            return;
+        }
+        Set<Integer> ids = entries.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                entries.remove(key);
+                if (filter != null && ++staleKeys >= Math.max(MIN_STALE_KEYS, entries.size())) {
+                    rebuildFilter();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether any record may be indexed under the given key.
+     *
+     * @param value The key to look up.
+     * @return False if no record has the key, true if one possibly has.
+     */
+    boolean mightContain(Object value) {
+        Object key = normalize(value);
+        if (key == null) {
+            return !nullEntries.isEmpty();
+        }
+        return filter == null || filter.mightContain((String) key);
+    }
+
+    /**
+     * Retrieves the IDs of records indexed under the given key.
+     *
+     * @param value The key to look up.
+     * @return The matching record IDs, possibly empty.
+     */
+    Set<Integer> get(Object value) {
+        Object key = normalize(value);
+        if (key == null) {
+            return Collections.unmodifiableSet(nullEntries);
+        }
+        Set<Integer> ids = entries.get(key);
+        return ids == null ? Set.of() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Retrieves the IDs of records whose key falls within the given range, in key order.
+     * Records with a null key are never part of a range.
+     *
+     * @param from The inclusive lower bound, or null for unbounded.
+     * @param to   The exclusive upper bound, or null for unbounded.
+     * @return The matching record IDs in key order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    List<Integer> range(Object from, Object to) {
+        if (!ordered) {
+            throw new IllegalStateException("Range lookups require an ordered index on '" + field.getName() + "'");
+        }
+        NavigableMap map = (NavigableMap) entries;
+        NavigableMap<Object, Set<Integer>> view;
+        if (from != null && to != null) {
+            view = map.subMap(from, true, to, false);
+        } else if (from != null) {
+            view = map.tailMap(from, true);
+        } else if (to != null) {
+            view = map.headMap(to, false);
+        } else {
+            view = map;
+        }
+        List<Integer> ids = new ArrayList<>();
+        view.values().forEach(ids::addAll);
+        return ids;
+    }
+
+    /**
+     * Replaces the filter with one sized for twice the keys now indexed, dropping keys no longer indexed.
+     */
+    private void rebuildFilter() {
+        DataBloomFilter rebuilt = new DataBloomFilter(entries.size() * 2);
+        for (Object key : entries.keySet()) {
+            rebuilt.add((String) key);
+        }
+        filter = rebuilt;
+        staleKeys = 0;
+    }
+
+    /**
+     * Reads the indexed key from a record.
+     *
+     * @param record The record.
+     * @return The raw key value.
+     */
+    private Object readKey(Object record) {
+        try {
+            return field.get(record);
+        } catch (IllegalAccessException e) {
+            logger.error("Could not read the indexed key {}", field.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Converts a raw key into the form stored in the index.
+     *
+     * @param value The raw key.
+     * @return The normalized key.
+     */
+    private Object normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return ordered ? value : value.toString();
+    }
+}
@@ -15,36 +15,36 @@
 
 package com.zynotic.studios.quadsquad.questlog.services;
 
-import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataChangeListener;
 import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
-import com.zynotic.studios.quadsquad.questlog.utils.DataContainer;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
-import jakarta.validation.ValidatorFactory;
-import org.hibernate.validator.HibernateValidator;
 
-import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.*;
 
 /**
  * Service class for managing data operations.
  * Supports reading, writing, detecting duplicate key-value pair, adding, updating, and deleting data.
+ * Records are served from an indexed in-memory store shared by every service bound to the same file,
+ * so lookups by ID, unique key or ordered key do not re-read the file.
+ * The records read are shared with every other reader and must not be modified; to change one, take a copy
+ * with {@link #editDataById(int)}, modify it and pass it to {@link #updateData(DataIdentifier)}.
+ * Writes take effect in memory immediately and are flushed to the file in the background.
+ * Several application instances may share a data file: a flush first merges in what the others wrote,
+ * keeping the last written version of a record changed by more than one of them.
+ * A data file that exists but cannot be read is never overwritten: reads return no data and writes throw.
+ * Services are cheap to create: the object mapper, validator and key metadata of each entity type are
+ * built once per process and shared, see {@link EntityType}.
  *
  * @param <P> The type of data entity implementing the DataIdentifier interface.
  */
 public class DataService<P extends DataIdentifier> {
     private final String DATA_FILE_PATH; // File path for storing data
-    private final ObjectMapper objectMapper; // Object mapper for JSON serialization/deserialization
-    private final Class<P> typeParameterClass; // Class type parameter
+    private final EntityType<P> entityType; // Shared JSON, key and field metadata of the entity
     private final List<String> uniqueKeys; // List of unique keys
-    ValidatorFactory validatorFactory;
-    Validator validator;
+    private final List<String> orderedKeys; // List of ordered keys
+    private final List<String> deferredKeys; // List of deferred keys
+    private final DataStore<P> store; // Indexed in-memory store of the data file
 
     /**
      * Constructs a DataService instance with the specified data file location, entity class, and unique keys.
@@ -54,12 +54,11 @@ public class DataService<P extends DataIdentifier> {
      */
     public DataService(String dataFileLocation, Class<P> typeParameterClass) {
         this.DATA_FILE_PATH = dataFileLocation;
-        this.typeParameterClass = typeParameterClass;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.uniqueKeys = getUniqueKeys();
-        this.validatorFactory = Validation.byProvider(HibernateValidator.class).configure().buildValidatorFactory();
-        this.validator = validatorFactory.getValidator();
+        this.entityType = EntityType.of(typeParameterClass);
+        this.uniqueKeys = entityType.uniqueKeys();
+        this.orderedKeys = entityType.orderedKeys();
+        this.deferredKeys = entityType.deferredKeys();
+        this.store = DataStore.forFile(DATA_FILE_PATH, entityType);
     }
 
     /**
@@ -67,28 +66,29 @@ public class DataService<P extends DataIdentifier> {
      * @return The next available ID.
      */
     private int getNextDataId() {
-        List<P> data = readData();
-        return data.isEmpty() ? 0 : data.stream().mapToInt(P::getId).max().getAsInt() + 1;
+        return store.nextId();
     }
 
     /**
      * Reads data from the file.
+     * The records are summaries: fields of deferred keys are left null unless set since the file was loaded,
+     * see {@link #getDeferredValue(int, String)}.
      *
-     * @return The list of data read from the file.
+     * @return The list of data read from the file, whose entries must not be modified.
      */
     public List<P> readData() {
-        try {
-            File file = new File(DATA_FILE_PATH);
-            if (!file.exists()) {
-                return new DataContainer<P>().getData();
-            }
-            JavaType type = objectMapper.getTypeFactory().constructParametricType(DataContainer.class, typeParameterClass);
-            DataContainer<P> container = objectMapper.readValue(file, type);
-            return container.getData();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new DataContainer<P>().getData();
-        }
+        return store.readAll();
+    }
+
+    /**
+     * Pins the current version of the data.
+     * The snapshot is immutable and costs nothing to take, so long scans such as reports or exports
+     * can read it without blocking writers or seeing their half-applied changes.
+     *
+     * @return The current snapshot of the data.
+     */
+    public DataSnapshot<P> snapshot() {
+        return store.snapshot();
     }
 
     /**
@@ -97,16 +97,7 @@ public class DataService<P extends DataIdentifier> {
      * @param data The data to write.
      */
     protected void writeData(List<P> data) {
-        DataContainer<P> container = new DataContainer<>();
-        container.setData(data);
-
-        try {
-            File file = new File(DATA_FILE_PATH);
-            JavaType type = objectMapper.getTypeFactory().constructParametricType(DataContainer.class, typeParameterClass);
-            objectMapper.writerFor(type).writeValue(file, container);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        store.writeAll(data);
     }
 
     /**
@@ -118,21 +109,8 @@ public class DataService<P extends DataIdentifier> {
      */
     public boolean isDuplicate(String key, Object value) {
         try {
-            Field field = typeParameterClass.getDeclaredField(key);
-            field.setAccessible(true);
-            String valueAsString = value != null ? value.toString() : null;
-            return readData().stream()
-                    .map(data -> {
-                        try {
-                            Object fieldValue = field.get(data);
-                            return fieldValue != null ? fieldValue.toString() : null;
-                        } catch (IllegalAccessException e) {
-                            e.printStackTrace();
-                            return null;
-                        }
-                    })
-                    .anyMatch(fieldValue -> Objects.equals(fieldValue, valueAsString));
-        } catch (NoSuchFieldException e) {
+            return store.conflicts(key, value, null);
+        } catch (IllegalArgumentException e) {
             e.printStackTrace();
             return false;
         }
@@ -143,12 +121,13 @@ public class DataService<P extends DataIdentifier> {
      *
      * @param data The data to add.
      * @throws IOException If an I/O error occurs.
+     * @throws IllegalStateException If the data file could not be read, so writing would overwrite it.
      */
     public void addData(P data) throws IOException {
-        Set<ConstraintViolation<P>> violations = validator.validate(data);
-        if (!violations.isEmpty()) {
-            for (ConstraintViolation<P> violation : violations) {
-                System.out.println("Validation error: " + violation.getMessage());
+        List<String> errors = newDataErrors(data);
+        if (!errors.isEmpty()) {
+            for (String error : errors) {
+                System.out.println("Validation error: " + error);
             }
         } else {
             data.setId(getNextDataId());
@@ -159,9 +138,7 @@ public class DataService<P extends DataIdentifier> {
                 }
             }
 
-            List<P> allData = readData();
-            allData.add(data);
-            writeData(allData);
+            store.insert(data);
         }
     }
 
@@ -174,10 +151,9 @@ public class DataService<P extends DataIdentifier> {
      */
     private Object getFieldValue(P data, String key) {
         try {
-            Field field = typeParameterClass.getDeclaredField(key);
-            field.setAccessible(true);
+            Field field = entityType.field(key);
             return field.get(data);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
+        } catch (IllegalArgumentException | IllegalAccessException e) {
             e.printStackTrace();
             return null;
         }
@@ -185,25 +161,26 @@ public class DataService<P extends DataIdentifier> {
 
     /**
      * Updates existing data.
+     * Only the properties changed since the entry last passed validation are validated again.
+     * Unique keys are only checked against other records, so an entry never conflicts with itself.
      *
      * @param updatedData The updated data.
+     * @throws IllegalStateException If the data file could not be read, so writing would overwrite it.
      */
     public void updateData(P updatedData) {
-        Set<ConstraintViolation<P>> violations = validator.validate(updatedData);
-        if (!violations.isEmpty()) {
-            for (ConstraintViolation<P> violation : violations) {
-                System.out.println("Validation error: " + violation.getMessage());
+        List<String> errors = validationErrors(updatedData);
+        if (!errors.isEmpty()) {
+            for (String error : errors) {
+                System.out.println("Validation error: " + error);
             }
         } else {
             for (String key : uniqueKeys) {
-                if (isDuplicate(key, getFieldValue(updatedData, key))) {
+                if (store.conflicts(key, getFieldValue(updatedData, key), updatedData.getId())) {
                     return;
                 }
             }
 
-            List<P> data = readData();
-            data.replaceAll(d -> d.getId() == updatedData.getId() ? updatedData : d);
-            writeData(data);
+            store.replace(updatedData);
         }
     }
 
@@ -211,21 +188,53 @@ public class DataService<P extends DataIdentifier> {
      * Deletes data by ID.
      *
      * @param dataId The ID of the data to delete.
+     * @throws IllegalStateException If the data file could not be read, so writing would overwrite it.
      */
     public void deleteData(int dataId) {
-        List<P> allData = readData();
-        allData.removeIf(data -> data.getId() == dataId);
-        writeData(allData);
+        store.delete(dataId);
+        entityType.propertyValidator().forget(dataId);
+    }
+
+    /**
+     * Retrieves the value of a deferred key of the data with the given ID, reading it from the file if needed.
+     *
+     * @param dataId The ID of the data.
+     * @param key    The deferred key.
+     * @return An optional containing the value, if the data exists and has one.
+     */
+    public Optional<Object> getDeferredValue(int dataId, String key) {
+        return Optional.ofNullable(store.getDeferred(dataId, key));
+    }
+
+    /**
+     * Checks whether changes made to the data file by other application instances are reported to the
+     * change listeners as they happen.
+     *
+     * @return True if the data file is watched.
+     */
+    boolean isWatched() {
+        return store.isWatched();
     }
 
     /**
      * Retrieves data by ID.
      *
      * @param dataId The ID of the data to retrieve.
-     * @return An optional containing the data, if found.
+     * @return An optional containing the data, which must not be modified, if found.
      */
     public Optional<P> getDataById(int dataId) {
-        return readData().stream().filter(data -> data.getId() == dataId).findFirst();
+        return store.get(dataId);
+    }
+
+    /**
+     * Retrieves a copy of data by ID, to modify and pass to {@link #updateData(DataIdentifier)}.
+     * The data other readers see only changes once the update is made.
+     *
+     * @param dataId The ID of the data to edit.
+     * @return An optional containing a copy of the data, if found.
+     */
+    public Optional<P> editDataById(int dataId) {
+        return store.get(dataId).map(store::copy);
     }
 
     /**
@@ -233,40 +242,94 @@ public class DataService<P extends DataIdentifier> {
      *
      * @param key   The key to filter by.
      * @param value The value to filter by.
-     * @return An optional containing the data matching the key-value pair, if found.
+     * @return An optional containing the data matching the key-value pair, which must not be modified, if found.
      */
     public Optional<P> getDataByKeyValue(String key, Object value) {
-        return readData().stream()
-                .filter(data -> {
-                    try {
-                        Field field = typeParameterClass.getDeclaredField(key);
-                        field.setAccessible(true);
-                        Object fieldValue = field.get(data);
-                        return Objects.equals(fieldValue, value);
-                    } catch (NoSuchFieldException | IllegalAccessException e) {
-                        e.printStackTrace();
-                        return false;
-                    }
-                })
-                .findFirst();
+        try {
+            return store.find(key, value).stream().findFirst();
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return Optional.empty();
+        }
     }
 
     /**
-     * Retrieves the unique keys associated with the entity class.
+     * Retrieves data whose ordered key falls within a range, sorted by that key.
      *
-     * @return The list of unique keys.
+     * @param key  The ordered key to filter by.
+     * @param from The inclusive lower bound, or null for unbounded.
+     * @param to   The exclusive upper bound, or null for unbounded.
+     * @return The list of data within the range, whose entries must not be modified.
+     * @throws IllegalArgumentException If the key is not one of the entity's ordered keys.
      */
-    private List<String> getUniqueKeys() {
-        if (typeParameterClass == null) {
-            return List.of();
-        }
-        try {
-            Constructor<P> constructor = typeParameterClass.getDeclaredConstructor();
-            P instance = constructor.newInstance();
-            return instance.uniqueKeys();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return List.of();
-        }
+    public List<P> getDataByRange(String key, Object from, Object to) {
+        return store.range(key, from, to);
+    }
+
+    /**
+     * Retrieves the store backing this service.
+     *
+     * @return The data store.
+     */
+    DataStore<P> store() {
+        return store;
+    }
+
+    /**
+     * Validates data and collects the violation messages.
+     * Properties holding the values they had when the same record last passed validation are skipped,
+     * see {@link PropertyValidator}.
+     *
+     * @param data The data to validate.
+     * @return The violation messages, empty if the data is valid.
+     */
+    List<String> validationErrors(P data) {
+        return entityType.propertyValidator().validate(data);
+    }
+
+    /**
+     * Validates data that is not stored yet and collects the violation messages.
+     * Every property is checked, and nothing is remembered for later validations.
+     *
+     * @param data The data to validate.
+     * @return The violation messages, empty if the data is valid.
+     */
+    List<String> newDataErrors(P data) {
+        return entityType.propertyValidator().validateNew(data);
+    }
+
+    /**
+     * Registers a listener notified whenever the data changes, whether through this application or
+     * through another instance writing the same data file. Listeners are called on the thread that made
+     * the change, or on a background thread for external changes.
+     *
+     * @param listener The listener.
+     */
+    public void addChangeListener(DataChangeListener<P> listener) {
+        store.addListener(listener);
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addChangeListener(DataChangeListener)}.
+     *
+     * @param listener The listener.
+     */
+    public void removeChangeListener(DataChangeListener<P> listener) {
+        store.removeListener(listener);
+    }
+
+    /**
+     * Writes pending changes of this service's data file to disk, waiting for the write to complete.
+     * Writes are otherwise flushed in the background shortly after they are made.
+     */
+    public void flush() {
+        store.flush();
+    }
+
+    /**
+     * Writes pending changes of every data file to disk, waiting for the writes to complete.
+     */
+    public static void flushAll() {
+        DataStore.flushAll();
     }
 }
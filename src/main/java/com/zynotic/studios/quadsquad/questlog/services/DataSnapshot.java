@@ -0,0 +1,124 @@
+/*
+ * DataSnapshot.java
+ * Immutable version of the records of a data file.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Immutable version of the records of a data file.
+ * Every write publishes a new snapshot, so a snapshot pinned by a reader never changes and never sees a
+ * half-applied batch, no matter how many writes happen while it is being read. Pinning one costs nothing.
+ * <p>
+ * The records handed out are the ones the snapshot holds, shared by every reader, so reading costs no copy.
+ * They must never be modified: to change a record, take a copy with {@link DataService#editDataById(int)},
+ * modify it and pass it to {@link DataService#updateData(DataIdentifier)}.
+ *
+ * @param <P> The type of data entity implementing the DataIdentifier interface.
+ */
+public final class DataSnapshot<P extends DataIdentifier> {
+    private final long version; // Version number, increasing with every write
+    private final List<P> data; // Records of this version
+    private volatile Map<Integer, P> byId; // Record ID -> record, built on first lookup
+
+    /**
+     * Constructs a snapshot over the given records.
+     *
+     * @param version The version number.
+     * @param data    The records, which must not be modified afterwards.
+     * @param byId    The ID index of the records, or null to build it on first lookup.
+     */
+    DataSnapshot(long version, List<P> data, Map<Integer, P> byId) {
+        this.version = version;
+        this.data = Collections.unmodifiableList(data);
+        this.byId = byId == null ? null : Collections.unmodifiableMap(byId);
+    }
+
+    /**
+     * Retrieves the version number of the snapshot.
+     *
+     * @return The version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Retrieves the records of the snapshot.
+     *
+     * @return An unmodifiable list of the records, which must not be modified.
+     */
+    public List<P> getData() {
+        return data;
+    }
+
+    /**
+     * Retrieves the number of records in the snapshot.
+     *
+     * @return The number of records.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Retrieves a record by ID.
+     *
+     * @param dataId The ID of the record.
+     * @return An optional containing the record, which must not be modified, if found.
+     */
+    public Optional<P> getDataById(int dataId) {
+        return Optional.ofNullable(byId().get(dataId));
+    }
+
+    /**
+     * Retrieves the records matching a condition.
+     *
+     * @param filter The condition, which must not modify the records it is given.
+     * @return The matching records, which must not be modified.
+     */
+    public List<P> filter(Predicate<? super P> filter) {
+        return data.stream().filter(filter).toList();
+    }
+
+    /**
+     * Retrieves the ID index, building it on first use.
+     *
+     * @return The ID index.
+     */
+    Map<Integer, P> byId() {
+        Map<Integer, P> index = byId;
+        if (index == null) {
+            Map<Integer, P> built = new HashMap<>(data.size() * 2);
+            for (P record : data) {
+                built.putIfAbsent(record.getId(), record);
+            }
+            index = Collections.unmodifiableMap(built);
+            byId = index;
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether the ID index has been built.
+     *
+     * @return True if the ID index exists.
+     */
+    boolean hasIdIndex() {
+        return byId != null;
+    }
+}
@@ -0,0 +1,987 @@
+/*
+ * DataStore.java
+ * In-memory, indexed view of a single data file shared by every DataService bound to it.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataChangeListener;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import com.zynotic.studios.quadsquad.questlog.utils.DataContainer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory, indexed view of a single data file.
+ * The file is parsed once and re-parsed only when it changes on disk; the primary key index and the
+ * secondary indexes are built lazily on first lookup and then maintained incrementally on every write.
+ * One store exists per data file, so every DataService bound to the same file sees the same records.
+ * <p>
+ * Records are held as immutable {@link DataSnapshot} versions. Writers copy the current version, apply
+ * their change and publish the next version atomically; readers take the current version without locking,
+ * so long scans never block writers and never observe a half-applied write. The records of a version are
+ * handed out as they are and never modified; a record is only copied when it is stored, so a caller's later
+ * changes stay out of the version, and when a caller takes it to edit, see {@link DataService#editDataById(int)}.
+ * <p>
+ * Every change, local or made by another application instance sharing the file, is reported to the
+ * registered {@link DataChangeListener}s. Changes made by other instances are picked up by the
+ * {@link DataFileWatcher}; only when the file cannot be watched is it checked on every access.
+ * If the file changed on disk while this instance holds unflushed writes, the flush first reads the file
+ * back and merges: records this instance added, updated or deleted since its last flush take its version,
+ * every other record takes the version on disk. Concurrent writes to the same record, or records added by
+ * two instances under the same ID, keep the version written last.
+ * <p>
+ * Writes are applied to memory immediately and written behind: a burst of small writes (task adds,
+ * completion toggles, status changes) is coalesced into a single atomic rewrite of the file by a
+ * background flusher. {@link #flush()} and {@link #flushAll()} force pending writes to disk. A flush that
+ * fails keeps the writes pending and is retried, waiting longer after each consecutive failure.
+ * <p>
+ * Values of deferred keys are not loaded with the records; see {@link DeferredValues}.
+ * <p>
+ * Every file is written at the entity's current schema version. Records of a file written at an older
+ * version are migrated one by one as it is read, and the file itself is upgraded by the next write that
+ * rewrites it anyway, so an upgrade never needs a separate pass over the whole file.
+ * <p>
+ * A file that exists but cannot be read, for instance one written at a newer schema version, is never
+ * overwritten: the store shows no records and refuses every write until the file can be read again.
+ *
+ * @param <P> The type of data entity implementing the DataIdentifier interface.
+ */
+final class DataStore<P extends DataIdentifier> {
+    private static final Logger logger = LogManager.getLogger(DataStore.class);
+
+    private static final Map<String, DataStore<?>> stores = new ConcurrentHashMap<>(); // Data file path -> store
+    private static final Set<Path> recoveredDirectories = ConcurrentHashMap.newKeySet(); // Directories checked for interrupted commits
+    private static final long FLUSH_DELAY_MILLIS = 200; // Time writes are coalesced before being flushed
+    private static final long MAX_FLUSH_RETRY_MILLIS = 30_000; // Longest wait before retrying a failed flush
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "questlog-data-flusher");
+        thread.setDaemon(true);
+        return thread;
+    }); // Background thread writing pending changes to disk
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DataStore::flushAll, "questlog-data-flush-on-exit"));
+    }
+
+    private final File file; // Data file backing the store
+    private final Class<P> typeParameterClass; // Class type parameter
+    private final EntityType<P> entityType; // JSON and key metadata of the entity
+    private final List<String> uniqueKeys; // Keys indexed with a hashed index
+    private final List<String> orderedKeys; // Keys indexed with an ordered index
+    private final DeferredValues deferred; // Values left in the file until requested
+
+    private volatile DataSnapshot<P> current; // Current version of the records, null until loaded
+    private volatile long loadedModified = -1; // Last modified time of the file when it was loaded or written
+    private volatile long loadedLength = -1; // Length of the file when it was loaded or written
+    private final Map<String, DataIndex> indexes = new HashMap<>(); // Key -> secondary index, opened on first lookup
+    private final Object ioLock = new Object(); // Serializes flushes so the file never goes back in time
+    private volatile boolean dirty; // Whether memory holds writes not yet on disk
+    private volatile boolean flushing; // Whether a flush is writing the file right now
+    private ScheduledFuture<?> pendingFlush; // Scheduled background flush, if any
+    private int failedFlushes; // Consecutive flushes that failed to write the file
+    private final Set<Integer> pendingIds = new HashSet<>(); // IDs added, updated or deleted since the last flush
+    private final Set<Integer> pendingInserts = new HashSet<>(); // IDs added since the last flush
+    private boolean pendingReplaceAll; // Whether every record was replaced since the last flush
+    private volatile boolean watched; // Whether the file is watched for changes made by other instances
+    private volatile IOException loadFailure; // Why the file could not be read, null if it was; writes are refused while set
+    private final List<DataChangeListener<P>> listeners = new CopyOnWriteArrayList<>(); // Listeners notified of changes
+
+    /**
+     * Constructs a store over the given file.
+     *
+     * @param file       The data file.
+     * @param entityType The entity type.
+     */
+    private DataStore(File file, EntityType<P> entityType) {
+        this.file = file;
+        this.typeParameterClass = entityType.typeClass();
+        this.entityType = entityType;
+        this.uniqueKeys = entityType.uniqueKeys();
+        this.orderedKeys = entityType.orderedKeys();
+        this.deferred = new DeferredValues(file, entityType);
+    }
+
+    /**
+     * Retrieves the store for the given file, creating it on first use.
+     *
+     * @param dataFileLocation The file path for storing data.
+     * @param entityType       The entity type.
+     * @param <P>              The type of data entity.
+     * @return The shared store for the file.
+     */
+    @SuppressWarnings("unchecked")
+    static <P extends DataIdentifier> DataStore<P> forFile(String dataFileLocation, EntityType<P> entityType) {
+        File file = new File(dataFileLocation).getAbsoluteFile();
+        Path directory = file.toPath().getParent();
+        if (directory != null && recoveredDirectories.add(directory)) {
+            DataTransaction.recover(directory);
+        }
+        DataStore<?> store = stores.computeIfAbsent(file.getPath(), path -> {
+            DataStore<P> created = new DataStore<>(file, entityType);
+            created.watched = DataFileWatcher.watch(created);
+            return created;
+        });
+        if (store.typeParameterClass != entityType.typeClass()) {
+            throw new IllegalStateException("Data file '" + dataFileLocation + "' is already bound to " + store.typeParameterClass.getName());
+        }
+        return (DataStore<P>) store;
+    }
+
+    /**
+     * Retrieves the current version of the records without locking.
+     *
+     * @return The current snapshot.
+     */
+    DataSnapshot<P> snapshot() {
+        DataSnapshot<P> snapshot = current;
+        if (snapshot == null || isStale()) {
+            synchronized (this) {
+                snapshot = records();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Retrieves all records.
+     *
+     * @return A mutable list of the records, which are shared with every reader and must not be modified.
+     */
+    List<P> readAll() {
+        return new ArrayList<>(snapshot().getData());
+    }
+
+    /**
+     * Replaces all records by copies of the given ones and writes them to the file.
+     *
+     * @param data The new records.
+     * @throws IllegalStateException If the file could not be read, so writing would overwrite it.
+     */
+    void writeAll(List<P> data) {
+        DataChangeEvent<P> event;
+        synchronized (this) {
+            DataSnapshot<P> previous = records();
+            checkWritable();
+            invalidateIndexes();
+            publishVersion(data.stream().map(entityType::copy).collect(Collectors.toCollection(ArrayList::new)), null);
+            pendingReplaceAll = true;
+            persist();
+            event = diff(previous, current, Set.of(), false);
+        }
+        fire(event);
+    }
+
+    /**
+     * Copies a record, so the copy can be modified without changing the record every reader shares.
+     *
+     * @param data The record.
+     * @return The copy.
+     */
+    P copy(P data) {
+        return entityType.copy(data);
+    }
+
+    /**
+     * Retrieves the next available ID for new data.
+     *
+     * @return The next available ID.
+     */
+    synchronized int nextId() {
+        List<P> data = records().getData();
+        return data.isEmpty() ? 0 : data.stream().mapToInt(P::getId).max().getAsInt() + 1;
+    }
+
+    /**
+     * Retrieves a record by ID without locking.
+     *
+     * @param id The ID of the record.
+     * @return An optional containing the record, which must not be modified, if found.
+     */
+    Optional<P> get(int id) {
+        return snapshot().getDataById(id);
+    }
+
+    /**
+     * Retrieves the value of a deferred key of a record.
+     * A value set in memory since the file was loaded takes precedence over the one in the file.
+     *
+     * @param id  The ID of the record.
+     * @param key The deferred key.
+     * @return The value, or null if the record or the value does not exist.
+     */
+    Object getDeferred(int id, String key) {
+        if (!deferred.isDeferred(key)) {
+            throw new IllegalArgumentException("Key '" + key + "' is not a deferred key of " + typeParameterClass.getSimpleName());
+        }
+        Field field = field(key);
+        synchronized (ioLock) {
+            P record = snapshot().byId().get(id);
+            if (record == null) {
+                return null;
+            }
+            return record.holdsDeferred(key) ? read(field, record) : deferred.read(key, id);
+        }
+    }
+
+    /**
+     * Retrieves the records whose key equals the given value.
+     * Indexed keys are answered from their index, other keys fall back to a scan.
+     *
+     * @param key   The key to filter by.
+     * @param value The value to filter by.
+     * @return The matching records, which must not be modified.
+     */
+    synchronized List<P> find(String key, Object value) {
+        DataIndex index = index(key);
+        if (index == null) {
+            Field field = field(key);
+            return records().getData().stream().filter(data -> Objects.equals(read(field, data), value)).toList();
+        }
+        Map<Integer, P> byId = records().byId();
+        Field field = field(key);
+        return index.get(value).stream()
+                .map(byId::get)
+                .filter(data -> data != null && Objects.equals(read(field, data), value))
+                .sorted(Comparator.comparingInt(P::getId))
+                .toList();
+    }
+
+    /**
+     * Checks whether a record other than the given one has the same string form of a key.
+     *
+     * @param key    The key to check.
+     * @param value  The value to check.
+     * @param selfId The ID of the record to ignore, or null to consider every record.
+     * @return True if another record holds the value.
+     */
+    synchronized boolean conflicts(String key, Object value, Integer selfId) {
+        String valueAsString = value != null ? value.toString() : null;
+        DataIndex index = index(key);
+        if (index == null || index.isOrdered()) {
+            Field field = field(key);
+            return records().getData().stream()
+                    .filter(data -> selfId == null || data.getId() != selfId)
+                    .map(data -> read(field, data))
+                    .anyMatch(fieldValue -> Objects.equals(fieldValue != null ? fieldValue.toString() : null, valueAsString));
+        }
+        if (!index.mightContain(valueAsString)) {
+            return false;
+        }
+        return index.get(valueAsString).stream().anyMatch(id -> selfId == null || id.intValue() != selfId);
+    }
+
+    /**
+     * Retrieves the records whose ordered key falls within the given range, in key order.
+     *
+     * @param key  The ordered key.
+     * @param from The inclusive lower bound, or null for unbounded.
+     * @param to   The exclusive upper bound, or null for unbounded.
+     * @return The matching records, which must not be modified.
+     */
+    synchronized List<P> range(String key, Object from, Object to) {
+        DataIndex index = index(key);
+        if (index == null || !index.isOrdered()) {
+            throw new IllegalArgumentException("Key '" + key + "' is not an ordered key of " + typeParameterClass.getSimpleName());
+        }
+        Map<Integer, P> byId = records().byId();
+        return index.range(from, to).stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Appends a copy of a record and writes the file.
+     *
+     * @param data The record to append.
+     * @throws IllegalStateException If the file could not be read, so writing would overwrite it.
+     */
+    void insert(P data) {
+        fire(insertLocked(data));
+    }
+
+    /**
+     * Appends a copy of a record while holding the store's monitor.
+     *
+     * @param added The record to append.
+     * @return The change event to fire.
+     */
+    private synchronized DataChangeEvent<P> insertLocked(P added) {
+        DataSnapshot<P> previous = records();
+        checkWritable();
+        P data = entityType.copy(added);
+        List<P> next = new ArrayList<>(previous.size() + 1);
+        next.addAll(previous.getData());
+        next.add(data);
+        Map<Integer, P> nextById = copyIdIndex(previous);
+        if (nextById != null) {
+            nextById.putIfAbsent(data.getId(), data);
+        }
+        indexes.values().forEach(index -> index.put(data.getId(), data));
+        deferred.forget(data.getId());
+        publishVersion(next, nextById);
+        pendingIds.add(data.getId());
+        pendingInserts.add(data.getId());
+        persist();
+        return new DataChangeEvent<>(current, Set.of(data.getId()), Set.of(), Set.of(), false);
+    }
+
+    /**
+     * Replaces the record with the same ID by a copy of the given one and writes the file.
+     *
+     * @param data The updated record.
+     * @throws IllegalStateException If the file could not be read, so writing would overwrite it.
+     */
+    void replace(P data) {
+        fire(replaceLocked(data));
+    }
+
+    /**
+     * Replaces the record with the same ID by a copy of the given one while holding the store's monitor.
+     *
+     * @param updated The updated record.
+     * @return The change event to fire, or null if no record has the ID.
+     */
+    private synchronized DataChangeEvent<P> replaceLocked(P updated) {
+        DataSnapshot<P> previous = records();
+        checkWritable();
+        P data = entityType.copy(updated);
+        List<P> next = new ArrayList<>(previous.getData());
+        boolean replaced = false;
+        for (int i = 0; i < next.size(); i++) {
+            if (next.get(i).getId() == data.getId()) {
+                next.set(i, data);
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            return null;
+        }
+        Map<Integer, P> nextById = copyIdIndex(previous);
+        if (nextById != null) {
+            nextById.put(data.getId(), data);
+        }
+        indexes.values().forEach(index -> index.put(data.getId(), data));
+        publishVersion(next, nextById);
+        pendingIds.add(data.getId());
+        persist();
+        return new DataChangeEvent<>(current, Set.of(), Set.of(data.getId()), Set.of(), false);
+    }
+
+    /**
+     * Removes the record with the given ID and writes the file.
+     *
+     * @param id The ID of the record to remove.
+     * @throws IllegalStateException If the file could not be read, so writing would overwrite it.
+     */
+    void delete(int id) {
+        fire(deleteLocked(id));
+    }
+
+    /**
+     * Removes the record with the given ID while holding the store's monitor.
+     *
+     * @param id The ID of the record to remove.
+     * @return The change event to fire, or null if no record has the ID.
+     */
+    private synchronized DataChangeEvent<P> deleteLocked(int id) {
+        DataSnapshot<P> previous = records();
+        checkWritable();
+        List<P> next = new ArrayList<>(previous.getData());
+        if (!next.removeIf(data -> data.getId() == id)) {
+            return null;
+        }
+        Map<Integer, P> nextById = copyIdIndex(previous);
+        if (nextById != null) {
+            nextById.remove(id);
+        }
+        indexes.values().forEach(index -> index.remove(id));
+        deferred.forget(id);
+        publishVersion(next, nextById);
+        pendingIds.add(id);
+        pendingInserts.remove(id);
+        persist();
+        return new DataChangeEvent<>(current, Set.of(), Set.of(), Set.of(id), false);
+    }
+
+    /**
+     * Retrieves the data file backing the store.
+     *
+     * @return The data file.
+     */
+    File file() {
+        return file;
+    }
+
+    /**
+     * Retrieves the lock serializing writes of the data file.
+     * A caller holding both this lock and the store's monitor must acquire this lock first.
+     *
+     * @return The I/O lock.
+     */
+    Object ioLock() {
+        return ioLock;
+    }
+
+    /**
+     * Finds a unique key whose string form is shared by two of the given records.
+     *
+     * @param data The records to check.
+     * @return The first conflicting key, or null if every unique key is unique.
+     */
+    String findUniqueConflict(List<P> data) {
+        for (String key : uniqueKeys) {
+            Field field = field(key);
+            Set<String> seen = new HashSet<>();
+            for (P record : data) {
+                Object value = read(field, record);
+                if (!seen.add(value != null ? value.toString() : null)) {
+                    return key;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the records with ones already written to the file by a transaction.
+     * Must be called while holding both the I/O lock and the store's monitor.
+     * The returned event must be fired once the locks are released.
+     *
+     * @param data       The committed records.
+     * @param touchedIds The IDs the transaction added, updated or deleted.
+     * @param written    The content written to the file.
+     * @return The change event to fire.
+     */
+    synchronized DataChangeEvent<P> publish(List<P> data, Set<Integer> touchedIds, DeferredValues.Serialized written) {
+        // The file already holds the new records, so compare against the version in memory rather than reloading
+        DataSnapshot<P> previous = current != null ? current : new DataSnapshot<>(0, List.of(), null);
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        invalidateIndexes();
+        deferred.install(written.spans());
+        publishVersion(new ArrayList<>(data), null);
+        dirty = false;
+        clearPending();
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+        return diff(previous, current, touchedIds, false);
+    }
+
+    /**
+     * Checks whether the file is watched for changes made by other application instances.
+     *
+     * @return True if such changes are noticed as they happen and reported to the listeners.
+     */
+    boolean isWatched() {
+        return watched;
+    }
+
+    /**
+     * Checks that the file was read, so writing it cannot destroy records that were never loaded.
+     * Must be called while holding the store's monitor, after the records were loaded.
+     *
+     * @throws IllegalStateException If the file exists but could not be read.
+     */
+    void checkWritable() {
+        IOException failure = loadFailure;
+        if (failure != null) {
+            throw new IllegalStateException(file.getName() + " could not be read and is not overwritten: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Registers a listener notified of every change.
+     *
+     * @param listener The listener.
+     */
+    void addListener(DataChangeListener<P> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener.
+     */
+    void removeListener(DataChangeListener<P> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners of a change.
+     * Must be called without holding the store's monitor.
+     *
+     * @param event The change, or null if nothing changed.
+     */
+    void fire(DataChangeEvent<P> event) {
+        if (event == null || event.isEmpty()) {
+            return;
+        }
+        for (DataChangeListener<P> listener : listeners) {
+            try {
+                listener.onDataChanged(event);
+            } catch (RuntimeException e) {
+                logger.error("Change listener of {} failed", file, e);
+            }
+        }
+    }
+
+    /**
+     * Reloads the file if another application instance changed it, and notifies the listeners.
+     * A file that cannot be parsed (for instance while it is still being written) is left for the next event.
+     */
+    void reloadIfChanged() {
+        DataChangeEvent<P> event;
+        synchronized (this) {
+            if (current == null || dirty || flushing || !fileChanged()) {
+                return;
+            }
+            DeferredValues.Parsed<P> loaded;
+            try {
+                loaded = tryLoad();
+            } catch (IOException e) {
+                logger.warn("Could not reload {}, keeping the records already loaded", file, e);
+                return;
+            }
+            loadFailure = null;
+            DataSnapshot<P> previous = current;
+            invalidateIndexes();
+            deferred.install(loaded.spans());
+            publishVersion(loaded.data(), null);
+            event = diff(previous, current, Set.of(), true);
+        }
+        fire(event);
+    }
+
+    /**
+     * Writes pending changes of every store to disk.
+     */
+    static void flushAll() {
+        stores.values().forEach(DataStore::flush);
+    }
+
+    /**
+     * Writes pending changes to disk, waiting for the write to complete.
+     * Changes another instance wrote to the file in the meantime are merged in first, see {@link #mergeIfChanged()}.
+     */
+    void flush() {
+        fire(flushLocked());
+    }
+
+    /**
+     * Writes pending changes to disk while holding the I/O lock.
+     *
+     * @return The change event of records merged in from the file, to fire once the locks are released.
+     */
+    private DataChangeEvent<P> flushLocked() {
+        synchronized (ioLock) {
+            DataSnapshot<P> snapshot;
+            DataChangeEvent<P> merged = null;
+            Set<Integer> flushedIds;
+            Set<Integer> flushedInserts;
+            boolean flushedReplaceAll;
+            synchronized (this) {
+                if (pendingFlush != null) {
+                    pendingFlush.cancel(false);
+                    pendingFlush = null;
+                }
+                if (!dirty || loadFailure != null) {
+                    return null;
+                }
+                try {
+                    merged = mergeIfChanged();
+                } catch (IOException e) {
+                    logger.warn("Could not read back {} before writing it", file, e);
+                    retryFlush();
+                    return null;
+                }
+                snapshot = current;
+                flushedIds = new HashSet<>(pendingIds);
+                flushedInserts = new HashSet<>(pendingInserts);
+                flushedReplaceAll = pendingReplaceAll;
+                clearPending();
+                dirty = false;
+                flushing = true;
+            }
+            boolean written = false;
+            try {
+                DeferredValues.Serialized serialized = serialize(snapshot.getData());
+                written = write(serialized.content());
+                if (written) {
+                    deferred.install(serialized.spans());
+                }
+            } catch (IllegalStateException e) {
+                logger.error("Could not serialize {}", file, e);
+            } finally {
+                synchronized (this) {
+                    flushing = false;
+                    if (written) {
+                        failedFlushes = 0;
+                        loadedModified = file.lastModified();
+                        loadedLength = file.length();
+                    } else {
+                        // The records in memory are still the only copy of the change, so keep them dirty
+                        dirty = true;
+                        pendingIds.addAll(flushedIds);
+                        pendingInserts.addAll(flushedInserts);
+                        pendingReplaceAll |= flushedReplaceAll;
+                        retryFlush();
+                    }
+                }
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Reads back the file another instance changed and merges it into the unflushed records.
+     * Records added, updated or deleted since the last flush keep the version in memory, every other record
+     * takes the version on disk. After every record was replaced, the records in memory are kept as they are.
+     * Must be called while holding both the I/O lock and the store's monitor.
+     *
+     * @return The change event of the records taken from the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private DataChangeEvent<P> mergeLocked() throws IOException {
+        DeferredValues.Parsed<P> loaded = tryLoad();
+        loadFailure = null;
+        // Deferred values still in the file are copied from where they are now
+        deferred.install(loaded.spans());
+        pendingInserts.forEach(deferred::forget);
+        if (pendingReplaceAll) {
+            return null;
+        }
+        DataSnapshot<P> previous = current;
+        Map<Integer, P> local = previous.byId();
+        List<P> merged = new ArrayList<>(loaded.data().size() + pendingIds.size());
+        Set<Integer> seen = new HashSet<>();
+        for (P record : loaded.data()) {
+            int id = record.getId();
+            P kept = pendingIds.contains(id) ? local.get(id) : record;
+            if (kept != null && seen.add(id)) {
+                merged.add(kept);
+            }
+        }
+        for (P record : previous.getData()) {
+            if (pendingIds.contains(record.getId()) && seen.add(record.getId())) {
+                merged.add(record);
+            }
+        }
+        invalidateIndexes();
+        publishVersion(merged, null);
+        return diff(previous, current, Set.of(), true);
+    }
+
+    /**
+     * Merges in what another instance wrote to the file since it was last loaded or written, so a write
+     * that replaces the whole file, such as a transaction commit, builds on it instead of discarding it.
+     * Must be called while holding both the I/O lock and the store's monitor.
+     *
+     * @return The change event of the records taken from the file, to fire once the locks are released,
+     * or null if the file did not change.
+     * @throws IOException If the file changed but cannot be read back.
+     */
+    synchronized DataChangeEvent<P> mergeIfChanged() throws IOException {
+        records();
+        return fileChanged() ? mergeLocked() : null;
+    }
+
+    /**
+     * Forgets which records changed since the last flush, once they are on disk.
+     * Must be called while holding the store's monitor.
+     */
+    private void clearPending() {
+        pendingIds.clear();
+        pendingInserts.clear();
+        pendingReplaceAll = false;
+    }
+
+    /**
+     * Schedules another flush after one failed, waiting longer after each consecutive failure.
+     * Must be called while holding the store's monitor.
+     */
+    private void retryFlush() {
+        failedFlushes++;
+        long delay = Math.min(MAX_FLUSH_RETRY_MILLIS, FLUSH_DELAY_MILLIS << Math.min(failedFlushes, 16));
+        logger.warn("Could not write {}, retrying in {} ms", file, delay);
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+        }
+        pendingFlush = flusher.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retrieves the current version, loading the file on first use or after it changed on disk.
+     * Must be called while holding the store's monitor.
+     *
+     * @return The current snapshot.
+     */
+    private DataSnapshot<P> records() {
+        if (current == null || isStale()) {
+            DeferredValues.Parsed<P> loaded = load();
+            invalidateIndexes();
+            deferred.install(loaded.spans());
+            publishVersion(loaded.data(), null);
+        }
+        return current;
+    }
+
+    /**
+     * Checks whether the file changed on disk since it was loaded or written.
+     * The file is not consulted while memory holds writes that have not been flushed yet.
+     *
+     * @return True if the records must be re-read.
+     */
+    private boolean isStale() {
+        if (watched && current != null) {
+            return false;
+        }
+        return !dirty && !flushing && fileChanged();
+    }
+
+    /**
+     * Checks whether the file differs from the one last loaded or written.
+     *
+     * @return True if the modification time or length changed.
+     */
+    private boolean fileChanged() {
+        return file.lastModified() != loadedModified || file.length() != loadedLength;
+    }
+
+    /**
+     * Computes the change between two versions of the records.
+     *
+     * @param previous   The version before the change.
+     * @param next       The version after the change.
+     * @param touchedIds IDs to report as updated even if their record is the same object.
+     * @param deep       True to compare records present in both versions by content rather than by identity,
+     *                   which is the case for versions read back from a file changed by another instance.
+     * @return The change event.
+     */
+    private DataChangeEvent<P> diff(DataSnapshot<P> previous, DataSnapshot<P> next, Set<Integer> touchedIds, boolean deep) {
+        Map<Integer, P> before = previous.byId();
+        Map<Integer, P> after = next.byId();
+        Set<Integer> added = new HashSet<>();
+        Set<Integer> updated = new HashSet<>();
+        Set<Integer> removed = new HashSet<>(before.keySet());
+        removed.removeAll(after.keySet());
+        for (Map.Entry<Integer, P> entry : after.entrySet()) {
+            P old = before.get(entry.getKey());
+            if (old == null) {
+                added.add(entry.getKey());
+            } else if (touchedIds.contains(entry.getKey())
+                    || (old != entry.getValue() && (!deep || !EntityType.objectMapper().valueToTree(old).equals(EntityType.objectMapper().valueToTree(entry.getValue()))))) {
+                updated.add(entry.getKey());
+            }
+        }
+        return new DataChangeEvent<>(next, added, updated, removed, deep);
+    }
+
+    /**
+     * Publishes the next version of the records.
+     * Must be called while holding the store's monitor.
+     *
+     * @param data The records of the next version, which must not be modified afterwards.
+     * @param byId The ID index of the records, or null to build it on first lookup.
+     */
+    private void publishVersion(List<P> data, Map<Integer, P> byId) {
+        long version = current == null ? 0 : current.getVersion() + 1;
+        current = new DataSnapshot<>(version, data, byId);
+    }
+
+    /**
+     * Copies the ID index of a version so the next version does not have to rebuild it.
+     *
+     * @param previous The previous version.
+     * @return A mutable copy of the ID index, or null if the previous version never built one.
+     */
+    private Map<Integer, P> copyIdIndex(DataSnapshot<P> previous) {
+        return previous.hasIdIndex() ? new HashMap<>(previous.byId()) : null;
+    }
+
+    /**
+     * Reads the records from the file.
+     * A file that cannot be read yields no records and marks the store as failed, so it refuses every
+     * write until the file is read successfully.
+     *
+     * @return The records read from the file, empty if it cannot be read.
+     */
+    private DeferredValues.Parsed<P> load() {
+        try {
+            DeferredValues.Parsed<P> loaded = tryLoad();
+            loadFailure = null;
+            return loaded;
+        } catch (IOException e) {
+            if (loadFailure == null) {
+                logger.error("Could not read {}; it is left untouched and writes to it are refused", file, e);
+            }
+            loadFailure = e;
+            loadedModified = file.lastModified();
+            loadedLength = file.length();
+            return new DeferredValues.Parsed<>(new DataContainer<P>().getData(), null);
+        }
+    }
+
+    /**
+     * Reads the records from the file, remembering the file state only if reading succeeds.
+     *
+     * @return The records read from the file, none if the file does not exist.
+     * @throws IOException If the file cannot be read or parsed, or was written at a newer schema version.
+     */
+    private DeferredValues.Parsed<P> tryLoad() throws IOException {
+        long modified = file.lastModified();
+        long length = file.length();
+        DeferredValues.Parsed<P> loaded;
+        if (!file.exists()) {
+            loaded = new DeferredValues.Parsed<>(new DataContainer<P>().getData(), null);
+        } else {
+            loaded = deferred.parse(Files.readAllBytes(file.toPath()));
+        }
+        loadedModified = modified;
+        loadedLength = length;
+        return loaded;
+    }
+
+    /**
+     * Marks the records as changed and schedules a background flush if none is pending.
+     */
+    private void persist() {
+        dirty = true;
+        if (pendingFlush == null) {
+            pendingFlush = flusher.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Serializes the given records.
+     * Must be called while holding the I/O lock, since deferred values are copied from the file on disk.
+     *
+     * @param data The records to serialize.
+     * @return The JSON content of the data file.
+     */
+    DeferredValues.Serialized serialize(List<P> data) {
+        if (deferred.isEnabled()) {
+            return deferred.serialize(data);
+        }
+        DataContainer<P> container = new DataContainer<>();
+        container.setSchemaVersion(entityType.schemaVersion());
+        container.setData(data);
+        try {
+            return new DeferredValues.Serialized(entityType.containerWriter().writeValueAsBytes(container), null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Durably replaces the data file with the given content.
+     * The content is written to a temporary file, synced, and moved over the data file,
+     * so readers never observe a partially written file.
+     *
+     * @param content The new content of the data file.
+     * @return True if the file was replaced.
+     */
+    private boolean write(byte[] content) {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                out.write(content);
+                out.getChannel().force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Could not replace {} with its new content", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves the secondary index for a key, building it on first use.
+     *
+     * @param key The key.
+     * @return The index, or null if the key is not indexed.
+     */
+    private DataIndex index(String key) {
+        boolean ordered = orderedKeys.contains(key);
+        if (!ordered && !uniqueKeys.contains(key)) {
+            return null;
+        }
+        List<P> data = records().getData();
+        DataIndex index = indexes.get(key);
+        if (index == null) {
+            index = new DataIndex(field(key), ordered);
+            for (P record : data) {
+                index.put(record.getId(), record);
+            }
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Drops the secondary indexes so they are rebuilt on next lookup.
+     */
+    private void invalidateIndexes() {
+        indexes.clear();
+    }
+
+    /**
+     * Resolves an accessible field of the entity by name.
+     *
+     * @param key The field name.
+     * @return The field.
+     */
+    private Field field(String key) {
+        return entityType.field(key);
+    }
+
+    /**
+     * Reads a field value from a record.
+     *
+     * @param field The field.
+     * @param data  The record.
+     * @return The field value, or null if it cannot be read.
+     */
+    private static Object read(Field field, Object data) {
+        try {
+            return field.get(data);
+        } catch (IllegalAccessException e) {
+            logger.error("Could not read field {}", field.getName(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,467 @@
+/*
+ * DataTransaction.java
+ * All-or-nothing batch of changes spanning one or more data services.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * All-or-nothing batch of changes spanning one or more data services.
+ * Changes are staged in memory, validated together on {@link #commit()}, and written with one durable
+ * write per data file. A commit marker listing the written files makes the commit atomic across files:
+ * if the application stops half-way, the commit is rolled forward the next time the files are opened.
+ * The marker is kept in the directory of the first data file; every other directory involved gets a
+ * reference to it first, so whichever directory is opened first finds the commit, and a reference whose
+ * marker was never written is discarded with the files it lists.
+ * <p>
+ * Example, creating a project together with its starter tasks:
+ * <pre>{@code
+ * DataTransaction transaction = new DataTransaction();
+ * Project project = transaction.add(projectService, new Project(user, "Release"));
+ * transaction.add(taskService, new Task(user, project, "Write notes", null, dueDate));
+ * transaction.commit();
+ * }</pre>
+ */
+public class DataTransaction {
+    private static final Logger logger = LogManager.getLogger(DataTransaction.class);
+
+    private static final String COMMIT_MARKER = ".questlog-commit"; // Name of the commit marker file
+    private static final String COMMIT_REFERENCE = ".questlog-commit-ref"; // Name of the reference to a marker in another directory
+    private static final Object markerLock = new Object(); // Keeps commits of this process from sharing marker files
+    private static final String TEMP_SUFFIX = ".tx"; // Suffix of files written by a commit before they are moved in place
+
+    private final Map<DataStore<?>, StagedChanges<?>> staged = new LinkedHashMap<>(); // Store -> changes staged for it
+    private boolean committed; // Whether commit has been called
+
+    /**
+     * Stages new data, assigning its ID immediately so other staged data can refer to it.
+     *
+     * @param service The service the data belongs to.
+     * @param data    The data to add.
+     * @param <P>     The type of data entity.
+     * @return The data, with its ID set.
+     */
+    public <P extends DataIdentifier> P add(DataService<P> service, P data) {
+        StagedChanges<P> changes = changesFor(service);
+        data.setId(changes.nextId());
+        changes.changes.add(new Change<>(ChangeType.ADD, data, data.getId()));
+        return data;
+    }
+
+    /**
+     * Stages an update of existing data.
+     *
+     * @param service     The service the data belongs to.
+     * @param updatedData The updated data.
+     * @param <P>         The type of data entity.
+     */
+    public <P extends DataIdentifier> void update(DataService<P> service, P updatedData) {
+        changesFor(service).changes.add(new Change<>(ChangeType.UPDATE, updatedData, updatedData.getId()));
+    }
+
+    /**
+     * Stages the deletion of data by ID.
+     *
+     * @param service The service the data belongs to.
+     * @param dataId  The ID of the data to delete.
+     * @param <P>     The type of data entity.
+     */
+    public <P extends DataIdentifier> void delete(DataService<P> service, int dataId) {
+        changesFor(service).changes.add(new Change<>(ChangeType.DELETE, null, dataId));
+    }
+
+    /**
+     * Validates and applies every staged change.
+     * Nothing is written unless all data is valid, unique keys stay unique, added IDs are still free
+     * and updated data still exists. Records another instance wrote to a data file in the meantime are
+     * kept, and count when checking these, so an ID that instance added since is no longer free.
+     *
+     * @return True if the changes were committed, false if validation failed and nothing was written.
+     * @throws IOException If a data file changed by another instance cannot be read back, or writing fails.
+     */
+    public boolean commit() throws IOException {
+        if (committed) {
+            throw new IllegalStateException("Transaction has already been committed");
+        }
+        committed = true;
+
+        boolean valid = true;
+        for (StagedChanges<?> changes : staged.values()) {
+            valid &= changes.validate();
+        }
+        if (!valid || staged.isEmpty()) {
+            return valid;
+        }
+
+        List<StagedChanges<?>> ordered = new ArrayList<>(staged.values());
+        ordered.sort(Comparator.comparing(changes -> changes.service.store().file().getPath()));
+        List<Runnable> events = new ArrayList<>();
+        try {
+            return commitLocked(ordered, 0, events);
+        } finally {
+            events.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Completes a commit interrupted after its marker was written, and removes the marker.
+     * A reference to a marker in another directory completes that commit if the marker exists, and
+     * otherwise discards the files the unfinished commit wrote to this directory.
+     *
+     * @param directory The data directory to check.
+     */
+    static void recover(Path directory) {
+        synchronized (markerLock) {
+            try {
+                Path marker = directory.resolve(COMMIT_MARKER);
+                if (Files.exists(marker)) {
+                    rollForward(marker);
+                }
+                Path reference = directory.resolve(COMMIT_REFERENCE);
+                if (Files.exists(reference)) {
+                    List<String> lines = Files.readAllLines(reference, StandardCharsets.UTF_8);
+                    Path referenced = lines.isEmpty() ? null : Path.of(lines.get(0));
+                    if (referenced != null && Files.exists(referenced)) {
+                        rollForward(referenced);
+                    } else {
+                        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                            String[] paths = line.split("\t");
+                            if (paths.length == 2) {
+                                Files.deleteIfExists(Path.of(paths[0]));
+                            }
+                        }
+                    }
+                    Files.deleteIfExists(reference);
+                }
+            } catch (IOException e) {
+                logger.error("Could not recover the interrupted commit in {}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Moves the files listed in a commit marker in place, then removes the marker and its references.
+     *
+     * @param marker The commit marker.
+     * @throws IOException If a file cannot be moved or the marker cannot be removed.
+     */
+    private static void rollForward(Path marker) throws IOException {
+        Set<Path> directories = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(marker, StandardCharsets.UTF_8)) {
+            String[] paths = line.split("\t");
+            if (paths.length == 2) {
+                if (Files.exists(Path.of(paths[0]))) {
+                    move(Path.of(paths[0]), Path.of(paths[1]));
+                }
+                directories.add(Path.of(paths[1]).getParent());
+            }
+        }
+        Files.delete(marker);
+        directories.remove(marker.getParent());
+        for (Path directory : directories) {
+            Files.deleteIfExists(directory.resolve(COMMIT_REFERENCE));
+        }
+        logger.info("Completed the interrupted commit of {}", marker);
+    }
+
+    /**
+     * Acquires the I/O locks and then the monitors of every store, in file order, and commits.
+     *
+     * @param ordered The staged changes, sorted by data file.
+     * @param depth   The number of locks already held.
+     * @param events  Receives the change notifications to fire once the locks are released.
+     * @return True if the changes were committed.
+     * @throws IOException If a data file changed by another instance cannot be read back, or writing fails.
+     */
+    private boolean commitLocked(List<StagedChanges<?>> ordered, int depth, List<Runnable> events) throws IOException {
+        if (depth == ordered.size() * 2) {
+            return write(ordered, events);
+        }
+        DataStore<?> store = ordered.get(depth % ordered.size()).service.store();
+        synchronized (depth < ordered.size() ? store.ioLock() : store) {
+            return commitLocked(ordered, depth + 1, events);
+        }
+    }
+
+    /**
+     * Computes the new content of every data file, writes it, and publishes it to the stores.
+     *
+     * @param ordered The staged changes, sorted by data file.
+     * @param events  Receives the change notifications to fire once the locks are released.
+     * @return True if the changes were committed.
+     * @throws IOException If a data file changed by another instance cannot be read back, or writing fails.
+     */
+    private boolean write(List<StagedChanges<?>> ordered, List<Runnable> events) throws IOException {
+        List<Prepared<?>> prepared = new ArrayList<>();
+        for (StagedChanges<?> changes : ordered) {
+            Prepared<?> result = changes.prepare(events);
+            if (result == null) {
+                return false;
+            }
+            prepared.add(result);
+        }
+
+        synchronized (markerLock) {
+            Path directory = prepared.get(0).target.getParent();
+            Path marker = directory.resolve(COMMIT_MARKER);
+            Map<Path, StringBuilder> movesByDirectory = new LinkedHashMap<>();
+            StringBuilder moves = new StringBuilder();
+            try {
+                for (Prepared<?> result : prepared) {
+                    writeDurably(result.temp, result.written.content());
+                    String move = result.temp + "\t" + result.target + "\n";
+                    moves.append(move);
+                    movesByDirectory.computeIfAbsent(result.target.getParent(), key -> new StringBuilder()).append(move);
+                }
+                movesByDirectory.remove(directory);
+                // References go first, so no directory can be opened without noticing a decided commit
+                for (Map.Entry<Path, StringBuilder> entry : movesByDirectory.entrySet()) {
+                    writeAtomically(entry.getKey().resolve(COMMIT_REFERENCE), marker + "\n" + entry.getValue());
+                }
+                writeAtomically(marker, moves.toString());
+            } catch (IOException e) {
+                for (Prepared<?> result : prepared) {
+                    Files.deleteIfExists(result.temp);
+                }
+                for (Path other : movesByDirectory.keySet()) {
+                    Files.deleteIfExists(other.resolve(COMMIT_REFERENCE));
+                }
+                throw e;
+            }
+
+            // The commit is decided once the marker exists; a failure past this point is rolled forward by recover
+            for (Prepared<?> result : prepared) {
+                move(result.temp, result.target);
+            }
+            Files.delete(marker);
+            for (Path other : movesByDirectory.keySet()) {
+                Files.delete(other.resolve(COMMIT_REFERENCE));
+            }
+        }
+        for (Prepared<?> result : prepared) {
+            events.add(result.publish());
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the staged changes of a service, creating them on first use.
+     *
+     * @param service The service.
+     * @param <P>     The type of data entity.
+     * @return The staged changes.
+     */
+    @SuppressWarnings("unchecked")
+    private <P extends DataIdentifier> StagedChanges<P> changesFor(DataService<P> service) {
+        if (committed) {
+            throw new IllegalStateException("Transaction has already been committed");
+        }
+        return (StagedChanges<P>) staged.computeIfAbsent(service.store(), store -> new StagedChanges<>(service));
+    }
+
+    /**
+     * Writes a file and forces its content to disk.
+     *
+     * @param path    The file to write.
+     * @param content The content.
+     * @throws IOException If writing fails.
+     */
+    private static void writeDurably(Path path, byte[] content) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (FileOutputStream out = new FileOutputStream(path.toFile())) {
+            out.write(content);
+            out.getChannel().force(true);
+        }
+    }
+
+    /**
+     * Writes a file through a temporary file moved in place, so it is either complete or absent.
+     *
+     * @param path    The file to write.
+     * @param content The content.
+     * @throws IOException If writing fails.
+     */
+    private static void writeAtomically(Path path, String content) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        writeDurably(temp, content.getBytes(StandardCharsets.UTF_8));
+        move(temp, path);
+    }
+
+    /**
+     * Moves a file over another, atomically where the file system supports it.
+     *
+     * @param source The file to move.
+     * @param target The file to replace.
+     * @throws IOException If moving fails.
+     */
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Kind of a staged change.
+     */
+    private enum ChangeType {
+        ADD, UPDATE, DELETE
+    }
+
+    /**
+     * A single staged change.
+     *
+     * @param type The kind of change.
+     * @param data The added or updated data, null for deletions.
+     * @param id   The ID of the data.
+     * @param <P>  The type of data entity.
+     */
+    private record Change<P>(ChangeType type, P data, int id) {
+    }
+
+    /**
+     * Changes staged for a single data service.
+     *
+     * @param <P> The type of data entity.
+     */
+    private static final class StagedChanges<P extends DataIdentifier> {
+        private final DataService<P> service; // Service the changes belong to
+        private final List<Change<P>> changes = new ArrayList<>(); // Changes in staging order
+        private int nextId = -1; // Next ID to assign to added data, -1 until first add
+
+        private StagedChanges(DataService<P> service) {
+            this.service = service;
+        }
+
+        /**
+         * Retrieves the next ID for staged data.
+         *
+         * @return The next ID.
+         */
+        private int nextId() {
+            if (nextId < 0) {
+                nextId = service.store().nextId();
+            }
+            return nextId++;
+        }
+
+        /**
+         * Validates the added and updated data, logging any violation.
+         *
+         * @return True if all data is valid.
+         */
+        private boolean validate() {
+            boolean valid = true;
+            for (Change<P> change : changes) {
+                if (change.data() == null) {
+                    continue;
+                }
+                List<String> errors = change.type() == ChangeType.ADD
+                        ? service.newDataErrors(change.data()) : service.validationErrors(change.data());
+                for (String error : errors) {
+                    logger.warn("Validation error: {}", error);
+                    valid = false;
+                }
+            }
+            return valid;
+        }
+
+        /**
+         * Applies the changes to a copy of the current records and serializes the result.
+         * What another instance wrote to the data file since it was loaded is merged in first, so the
+         * commit does not discard it; see {@link DataStore#mergeIfChanged()}.
+         * Must be called while holding the store's locks.
+         *
+         * @param events Receives the notification of records merged in from the file.
+         * @return The prepared write, or null if the changes no longer apply.
+         * @throws IOException           If the data file changed but cannot be read back.
+         * @throws IllegalStateException If the data file could not be read, so writing would overwrite it.
+         */
+        private Prepared<P> prepare(List<Runnable> events) throws IOException {
+            DataStore<P> store = service.store();
+            DataChangeEvent<P> merged = store.mergeIfChanged();
+            if (merged != null) {
+                events.add(() -> store.fire(merged));
+            }
+            List<P> records = new ArrayList<>(store.snapshot().getData());
+            store.checkWritable();
+            for (Change<P> change : changes) {
+                int id = change.id();
+                boolean exists = records.stream().anyMatch(data -> data.getId() == id);
+                switch (change.type()) {
+                    case ADD -> {
+                        if (exists) {
+                            logger.warn("Transaction conflict: ID {} is already taken in {}", id, store.file().getName());
+                            return null;
+                        }
+                        records.add(store.copy(change.data()));
+                    }
+                    case UPDATE -> {
+                        if (!exists) {
+                            logger.warn("Transaction conflict: ID {} no longer exists in {}", id, store.file().getName());
+                            return null;
+                        }
+                        P updated = store.copy(change.data());
+                        records.replaceAll(data -> data.getId() == id ? updated : data);
+                    }
+                    case DELETE -> records.removeIf(data -> data.getId() == id);
+                }
+            }
+            String conflict = store.findUniqueConflict(records);
+            if (conflict != null) {
+                logger.warn("Transaction conflict: duplicate value for '{}' in {}", conflict, store.file().getName());
+                return null;
+            }
+            Path target = store.file().toPath();
+            Set<Integer> touched = new HashSet<>();
+            changes.forEach(change -> touched.add(change.id()));
+            return new Prepared<>(store, records, touched, store.serialize(records), target.resolveSibling(target.getFileName() + TEMP_SUFFIX), target);
+        }
+    }
+
+    /**
+     * New content of a data file, ready to be written.
+     *
+     * @param store   The store of the data file.
+     * @param records The committed records.
+     * @param touched The IDs of the added, updated and deleted records.
+     * @param written The serialized records.
+     * @param temp    The temporary file the content is written to.
+     * @param target  The data file.
+     * @param <P>     The type of data entity.
+     */
+    private record Prepared<P extends DataIdentifier>(DataStore<P> store, List<P> records, Set<Integer> touched, DeferredValues.Serialized written, Path temp, Path target) {
+        /**
+         * Publishes the committed records to the store.
+         *
+         * @return The notification of the change, to run once the locks are released.
+         */
+        private Runnable publish() {
+            DataChangeEvent<P> event = store.publish(records, touched, written);
+            return () -> store.fire(event);
+        }
+    }
+}
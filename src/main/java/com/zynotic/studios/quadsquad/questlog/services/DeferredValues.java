@@ -0,0 +1,355 @@
+/*
+ * DeferredValues.java
+ * Locations of text values left in the data file instead of being loaded into memory.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getApplicationProperty;
+
+/**
+ * Locations of text values left in the data file instead of being loaded into memory.
+ * The deferred keys of an entity (see {@link DataIdentifier#deferredKeys()}) are skipped when the file is
+ * parsed: the record's field stays null and only the byte span of the value in the file is kept.
+ * The value is decoded on demand by ID, and copied over from the old file when the file is rewritten,
+ * unless the record holds a value of its own (see {@link DataIdentifier#holdsDeferred(String)}), null included.
+ * <p>
+ * Spans always describe the file currently on disk. They are replaced whenever the file is loaded or
+ * rewritten, and must only be read or replaced while holding the store's I/O lock.
+ * <p>
+ * With {@code APP_DATA_OFFHEAP_TEXT=true}, the values are instead copied into an off-heap {@link TextArena}
+ * when the file is loaded, so reading one never touches the disk and the text still stays out of the heap.
+ */
+final class DeferredValues {
+    private static final Logger logger = LogManager.getLogger(DeferredValues.class);
+
+    private static final boolean OFF_HEAP = Boolean.parseBoolean(getApplicationProperty("APP_DATA_OFFHEAP_TEXT")); // Whether values are kept in an arena
+
+    private final File file; // Data file the spans point into
+    private final ObjectMapper objectMapper; // Object mapper for JSON serialization/deserialization
+    private final EntityType<?> entityType; // Type of the records
+    private final List<String> keys; // Deferred keys
+    private volatile Spans spans = new Spans(Map.of(), null); // Locations of the values of the loaded records
+
+    /**
+     * Constructs the deferred values of a data file.
+     *
+     * @param file       The data file.
+     * @param entityType The type of the records, declaring the deferred keys.
+     */
+    DeferredValues(File file, EntityType<?> entityType) {
+        this.file = file;
+        this.objectMapper = EntityType.objectMapper();
+        this.entityType = entityType;
+        this.keys = entityType.deferredKeys();
+    }
+
+    /**
+     * Checks whether any key is deferred.
+     *
+     * @return True if the entity declares deferred keys.
+     */
+    boolean isEnabled() {
+        return !keys.isEmpty();
+    }
+
+    /**
+     * Checks whether a key is deferred.
+     *
+     * @param key The key.
+     * @return True if the key is deferred.
+     */
+    boolean isDeferred(String key) {
+        return keys.contains(key);
+    }
+
+    /**
+     * Parses the content of the data file record by record, leaving the deferred values out of the records.
+     * Records written at an older schema version are upgraded on the way (see {@link DataIdentifier#migrations()});
+     * their deferred values are kept in the records instead, so the next write stores them at the current version.
+     *
+     * @param content The content of the data file.
+     * @param <P>     The type of data entity.
+     * @return The records and the spans of their deferred values.
+     * @throws IOException If the content cannot be parsed or was written at a newer schema version.
+     */
+    <P extends DataIdentifier> Parsed<P> parse(byte[] content) throws IOException {
+        List<P> data = new ArrayList<>();
+        Spans parsedSpans = emptySpans(OFF_HEAP ? new TextArena() : null);
+        int version = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object in " + file.getName());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                JsonToken token = parser.nextToken();
+                if ("schemaVersion".equals(parser.currentName()) && token == JsonToken.VALUE_NUMBER_INT) {
+                    version = parser.getIntValue();
+                    if (version > entityType.schemaVersion()) {
+                        throw new IOException(file.getName() + " was written at schema version " + version + ", newer than the supported " + entityType.schemaVersion());
+                    }
+                    continue;
+                }
+                if (!"data".equals(parser.currentName()) || token != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                boolean migrating = version < entityType.schemaVersion();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (migrating) {
+                        ObjectNode node = objectMapper.readTree(parser);
+                        entityType.migrate(version, node);
+                        data.add(entityType.recordReader().readValue(node));
+                        continue;
+                    }
+                    if (keys.isEmpty()) {
+                        data.add(entityType.recordReader().readValue(parser));
+                        continue;
+                    }
+                    Map<String, Span> found = new HashMap<>();
+                    TokenBuffer buffer = new TokenBuffer(parser, null);
+                    buffer.writeStartObject();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        JsonToken value = parser.nextToken();
+                        if (value == JsonToken.VALUE_STRING && keys.contains(name)) {
+                            long start = parser.currentTokenLocation().getByteOffset();
+                            parser.finishToken();
+                            int length = (int) (parser.currentLocation().getByteOffset() - start);
+                            found.put(name, parsedSpans.arena() == null
+                                    ? new Span(start, length)
+                                    : new Span(parsedSpans.arena().append(content, (int) start, length), length));
+                            continue;
+                        }
+                        buffer.writeFieldName(name);
+                        buffer.copyCurrentStructure(parser);
+                    }
+                    buffer.writeEndObject();
+                    P record;
+                    try (JsonParser recordParser = buffer.asParser(parser.getCodec())) {
+                        record = entityType.recordReader().readValue(recordParser);
+                    }
+                    data.add(record);
+                    found.forEach((key, span) -> parsedSpans.byKey().get(key).put(record.getId(), span));
+                }
+            }
+        }
+        return new Parsed<>(data, parsedSpans);
+    }
+
+    /**
+     * Serializes records, taking the deferred values left out of memory from the current file or arena.
+     * The returned spans must be installed once the content replaces the file.
+     *
+     * @param data The records.
+     * @return The content of the data file and the spans of its deferred values.
+     */
+    Serialized serialize(List<? extends DataIdentifier> data) {
+        Spans current = spans;
+        Spans writtenSpans = emptySpans(null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RandomAccessFile source = current.arena() != null || !file.exists() ? null : new RandomAccessFile(file, "r");
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("schemaVersion", entityType.schemaVersion());
+            generator.writeFieldName("data");
+            generator.writeStartArray();
+            for (DataIdentifier record : data) {
+                TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+                entityType.recordWriter().writeValue(buffer, record);
+                try (JsonParser parser = buffer.asParser(objectMapper)) {
+                    parser.nextToken();
+                    generator.writeStartObject();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        JsonToken value = parser.nextToken();
+                        generator.writeFieldName(name);
+                        if (!keys.contains(name)) {
+                            generator.copyCurrentStructure(parser);
+                            continue;
+                        }
+                        // A null the record holds is a cleared value; one it does not hold was left in the file
+                        String text = value == JsonToken.VALUE_STRING ? parser.getText()
+                                : record.holdsDeferred(name) ? null : read(current, source, name, record.getId());
+                        if (text == null) {
+                            generator.writeNull();
+                            continue;
+                        }
+                        generator.flush();
+                        long start = out.size();
+                        generator.writeString(text);
+                        generator.flush();
+                        writtenSpans.byKey().get(name).put(record.getId(), new Span(start, (int) (out.size() - start)));
+                    }
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize " + file.getName(), e);
+        }
+        byte[] content = out.toByteArray();
+        if (current.arena() != null) {
+            // The arena still holds every value not set in memory, and values set in memory take precedence
+            return new Serialized(content, null);
+        }
+        // Spans were measured from the end of the field name, so they still include the separator before the value
+        for (Map<Integer, Span> byId : writtenSpans.byKey().values()) {
+            byId.replaceAll((id, span) -> {
+                int skipped = 0;
+                while (content[(int) span.offset() + skipped] != '"') {
+                    skipped++;
+                }
+                return new Span(span.offset() + skipped, span.length() - skipped);
+            });
+        }
+        return new Serialized(content, writtenSpans);
+    }
+
+    /**
+     * Reads a deferred value from the file or arena.
+     *
+     * @param key The deferred key.
+     * @param id  The ID of the record.
+     * @return The value, or null if the record has none.
+     */
+    String read(String key, int id) {
+        Spans current = spans;
+        try (RandomAccessFile source = current.arena() != null ? null : new RandomAccessFile(file, "r")) {
+            return read(current, source, key, id);
+        } catch (IOException e) {
+            logger.error("Could not read {} of record {} from {}", key, id, file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the spans with the ones of the file now on disk.
+     *
+     * @param installed The spans of the file, or null to keep the current ones.
+     */
+    void install(Spans installed) {
+        if (installed != null) {
+            spans = installed;
+        }
+    }
+
+    /**
+     * Forgets the deferred values of a record, after it is deleted or replaced by a new record with the same ID.
+     *
+     * @param id The ID of the record.
+     */
+    void forget(int id) {
+        spans.byKey().values().forEach(byId -> byId.remove(id));
+    }
+
+    /**
+     * Reads a deferred value from an arena or an open data file.
+     *
+     * @param current The spans to look the value up in.
+     * @param source  The open data file, or null if the values are in an arena or there is no file.
+     * @param key     The deferred key.
+     * @param id      The ID of the record.
+     * @return The value, or null if the record has none.
+     * @throws IOException If the value cannot be read or the file no longer holds a string at the span.
+     */
+    private String read(Spans current, RandomAccessFile source, String key, int id) throws IOException {
+        Span span = current.byKey().getOrDefault(key, Map.of()).get(id);
+        if (span == null || (source == null && current.arena() == null)) {
+            return null;
+        }
+        InputStream in;
+        if (current.arena() != null) {
+            in = current.arena().open(span.offset(), span.length());
+        } else {
+            byte[] bytes = new byte[span.length()];
+            source.seek(span.offset());
+            source.readFully(bytes);
+            in = new ByteArrayInputStream(bytes);
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                throw new IOException("Deferred '" + key + "' of record " + id + " is out of date in " + file.getName());
+            }
+            return parser.getText();
+        }
+    }
+
+    /**
+     * Creates an empty span table with one mutable map per deferred key.
+     *
+     * @param arena The arena the spans will point into, or null if they point into the file.
+     * @return The span table.
+     */
+    private Spans emptySpans(TextArena arena) {
+        Map<String, Map<Integer, Span>> empty = new HashMap<>();
+        keys.forEach(key -> empty.put(key, new ConcurrentHashMap<>()));
+        return new Spans(empty, arena);
+    }
+
+    /**
+     * Location of a JSON string value in the data file or arena, quotes included.
+     *
+     * @param offset The byte offset of the value in the file, or its address in the arena.
+     * @param length The length of the value in bytes.
+     */
+    record Span(long offset, int length) {
+    }
+
+    /**
+     * Locations of the deferred values of a set of records.
+     *
+     * @param byKey Key -> record ID -> location of the value.
+     * @param arena The arena holding the values, or null if they are read from the file.
+     */
+    record Spans(Map<String, Map<Integer, Span>> byKey, TextArena arena) {
+    }
+
+    /**
+     * Records parsed from a data file, with the spans of their deferred values.
+     *
+     * @param data  The records.
+     * @param spans The spans.
+     * @param <P>   The type of data entity.
+     */
+    record Parsed<P extends DataIdentifier>(List<P> data, Spans spans) {
+    }
+
+    /**
+     * Serialized content of a data file, with the spans of its deferred values.
+     *
+     * @param content The content.
+     * @param spans   The spans, or null if the current ones stay valid.
+     */
+    record Serialized(byte[] content, Spans spans) {
+    }
+}
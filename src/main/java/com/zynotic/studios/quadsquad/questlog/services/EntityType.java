@@ -0,0 +1,308 @@
+/*
+ * EntityType.java
+ * Process-wide registry of the JSON and validation machinery of each entity type.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zynotic.studios.quadsquad.questlog.entities.EntityCodecs;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import com.zynotic.studios.quadsquad.questlog.interfaces.RecordMigration;
+import com.zynotic.studios.quadsquad.questlog.utils.DataContainer;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.validator.HibernateValidator;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of the JSON and validation machinery of each entity type.
+ * Object mappers, readers, writers and validators are thread-safe and costly to build, so they are built
+ * once and shared by every {@link DataService}, {@link DataStore} and {@link DataTransaction}; creating a
+ * service only looks its entity type up here.
+ *
+ * @param <P> The type of data entity.
+ */
+final class EntityType<P extends DataIdentifier> {
+    private static final Logger logger = LogManager.getLogger(EntityType.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(EntityCodecs.module()); // Object mapper shared by every entity type
+    private static final Map<Class<?>, EntityType<?>> types = new ConcurrentHashMap<>(); // Entity class -> entity type
+
+    private final Class<P> typeClass; // Entity class
+    private final ObjectReader recordReader; // Reader of single records
+    private final ObjectWriter recordWriter; // Writer of single records
+    private final ObjectWriter containerWriter; // Writer of whole data files
+    private final List<String> uniqueKeys; // Unique keys of the entity
+    private final List<String> orderedKeys; // Ordered keys of the entity
+    private final List<String> deferredKeys; // Deferred keys of the entity
+    private final List<RecordMigration> migrations; // Migrations of the stored form, oldest first
+    private final Map<String, Field> fields = new ConcurrentHashMap<>(); // Key -> accessible field, resolved on first use
+    private volatile PropertyValidator<P> propertyValidator; // Incremental validator, built on first validation
+
+    /**
+     * Builds the machinery of an entity type.
+     *
+     * @param typeClass The entity class.
+     */
+    private EntityType(Class<P> typeClass) {
+        this.typeClass = typeClass;
+        JavaType recordType = objectMapper.constructType(typeClass);
+        JavaType containerType = objectMapper.getTypeFactory().constructParametricType(DataContainer.class, typeClass);
+        this.recordReader = objectMapper.readerFor(recordType);
+        this.recordWriter = objectMapper.writerFor(recordType);
+        this.containerWriter = objectMapper.writerFor(containerType);
+        P instance = newInstance(typeClass);
+        this.uniqueKeys = instance == null ? List.of() : List.copyOf(instance.uniqueKeys());
+        this.orderedKeys = instance == null ? List.of() : List.copyOf(instance.orderedKeys());
+        this.deferredKeys = instance == null ? List.of() : List.copyOf(instance.deferredKeys());
+        this.migrations = instance == null ? List.of() : List.copyOf(instance.migrations());
+    }
+
+    /**
+     * Retrieves the entity type of a class, building it on first use.
+     *
+     * @param typeClass The entity class.
+     * @param <P>       The type of data entity.
+     * @return The shared entity type.
+     */
+    @SuppressWarnings("unchecked")
+    static <P extends DataIdentifier> EntityType<P> of(Class<P> typeClass) {
+        return (EntityType<P>) types.computeIfAbsent(typeClass, type -> new EntityType<>(typeClass));
+    }
+
+    /**
+     * Retrieves the object mapper shared by every entity type.
+     *
+     * @return The object mapper.
+     */
+    static ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Retrieves the validator shared by every entity type, building it on first use.
+     *
+     * @return The validator.
+     */
+    static Validator validator() {
+        return SharedValidator.VALIDATOR;
+    }
+
+    /**
+     * Retrieves the incremental validator of the entity, building it on first use.
+     *
+     * @return The property validator.
+     */
+    PropertyValidator<P> propertyValidator() {
+        PropertyValidator<P> built = propertyValidator;
+        if (built == null) {
+            synchronized (this) {
+                built = propertyValidator;
+                if (built == null) {
+                    built = new PropertyValidator<>(this);
+                    propertyValidator = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Retrieves the entity class.
+     *
+     * @return The entity class.
+     */
+    Class<P> typeClass() {
+        return typeClass;
+    }
+
+    /**
+     * Retrieves the reader of single records.
+     *
+     * @return The record reader.
+     */
+    ObjectReader recordReader() {
+        return recordReader;
+    }
+
+    /**
+     * Retrieves the writer of single records.
+     *
+     * @return The record writer.
+     */
+    ObjectWriter recordWriter() {
+        return recordWriter;
+    }
+
+    /**
+     * Retrieves the writer of whole data files.
+     *
+     * @return The container writer.
+     */
+    ObjectWriter containerWriter() {
+        return containerWriter;
+    }
+
+    /**
+     * Retrieves the unique keys of the entity.
+     *
+     * @return The unique keys.
+     */
+    List<String> uniqueKeys() {
+        return uniqueKeys;
+    }
+
+    /**
+     * Retrieves the ordered keys of the entity.
+     *
+     * @return The ordered keys.
+     */
+    List<String> orderedKeys() {
+        return orderedKeys;
+    }
+
+    /**
+     * Retrieves the deferred keys of the entity.
+     *
+     * @return The deferred keys.
+     */
+    List<String> deferredKeys() {
+        return deferredKeys;
+    }
+
+    /**
+     * Retrieves the current schema version of the entity.
+     *
+     * @return The schema version, the number of migrations.
+     */
+    int schemaVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Upgrades a record written at an older schema version to the current one.
+     *
+     * @param version The schema version the record was written at.
+     * @param record  The JSON object of the record, upgraded in place.
+     */
+    void migrate(int version, ObjectNode record) {
+        for (int step = version; step < migrations.size(); step++) {
+            migrations.get(step).migrate(record);
+        }
+    }
+
+    /**
+     * Copies a record through its JSON form, so the copy shares no mutable state with the original.
+     * The record is buffered as tokens rather than text, so nothing is formatted or parsed.
+     *
+     * @param data The record, or null.
+     * @return The copy, or null if the record is null.
+     * @throws IllegalStateException If the record cannot be written or read back.
+     */
+    P copy(P data) {
+        if (data == null) {
+            return null;
+        }
+        try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+            recordWriter.writeValue(buffer, data);
+            if (deferredKeys.stream().allMatch(data::holdsDeferred)) {
+                return recordReader.readValue(buffer.asParser());
+            }
+            // Leave out the deferred values the record does not hold, so the copy does not hold them either
+            try (TokenBuffer held = new TokenBuffer(objectMapper, false); JsonParser parser = buffer.asParser()) {
+                parser.nextToken();
+                held.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    if (deferredKeys.contains(name) && !data.holdsDeferred(name)) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    held.writeFieldName(name);
+                    held.copyCurrentStructure(parser);
+                }
+                held.writeEndObject();
+                return recordReader.readValue(held.asParser());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not copy " + typeClass.getSimpleName() + " " + data.getId(), e);
+        }
+    }
+
+    /**
+     * Resolves an accessible field of the entity by name, looking it up only the first time.
+     *
+     * @param key The field name.
+     * @return The field.
+     * @throws IllegalArgumentException If the entity has no such field.
+     */
+    Field field(String key) {
+        Field field = fields.get(key);
+        if (field == null) {
+            try {
+                field = typeClass.getDeclaredField(key);
+                field.setAccessible(true);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Unknown key '" + key + "' for " + typeClass.getSimpleName(), e);
+            }
+            fields.put(key, field);
+        }
+        return field;
+    }
+
+    /**
+     * Creates a throwaway instance of an entity class to read its key declarations.
+     *
+     * @param typeClass The entity class.
+     * @param <P>       The type of data entity.
+     * @return The instance, or null if it cannot be created.
+     */
+    private static <P> P newInstance(Class<P> typeClass) {
+        try {
+            Constructor<P> constructor = typeClass.getDeclaredConstructor();
+            return constructor.newInstance();
+        } catch (Exception e) {
+            logger.error("Could not create an instance of {}", typeClass.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Holder of the shared validator, so the validator factory is only built once validation is first needed.
+     */
+    private static final class SharedValidator {
+        private static final Validator VALIDATOR = Validation.byProvider(HibernateValidator.class)
+                .configure()
+                .buildValidatorFactory()
+                .getValidator(); // Validator shared by every entity type
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * ProjectTransactions.java
+ * All-or-nothing changes of projects together with their tasks.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.Project;
+import com.zynotic.studios.quadsquad.questlog.entities.Task;
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Changes of a project together with its tasks, each committed as one {@link DataTransaction}, so the
+ * project and its tasks are either all written or all left as they were.
+ * The changes are staged on copies of the stored records, so objects held by the caller only change
+ * through the change events of a commit that succeeded.
+ */
+public final class ProjectTransactions {
+    private final DataService<Project> projectService; // Service of the projects
+    private final DataService<Task> taskService; // Service of the tasks
+
+    /**
+     * Constructs the transactions over a project and a task service.
+     *
+     * @param projectService The project service.
+     * @param taskService    The task service.
+     */
+    public ProjectTransactions(DataService<Project> projectService, DataService<Task> taskService) {
+        this.projectService = projectService;
+        this.taskService = taskService;
+    }
+
+    /**
+     * Adds a project together with its starter tasks.
+     *
+     * @param user         The user the project belongs to.
+     * @param title        The title of the project.
+     * @param starterTasks The titles of the starter tasks.
+     * @param dueDate      The due date of the starter tasks.
+     * @return An optional containing the added project, empty if nothing was added.
+     * @throws IOException If writing the data files fails.
+     */
+    public Optional<Project> createProject(User user, String title, List<String> starterTasks, ZonedDateTime dueDate) throws IOException {
+        DataTransaction transaction = new DataTransaction();
+        Project project = transaction.add(projectService, new Project(user, title));
+        for (String taskTitle : starterTasks) {
+            transaction.add(taskService, new Task(user, project, taskTitle, null, dueDate));
+        }
+        return transaction.commit() ? Optional.of(project) : Optional.empty();
+    }
+
+    /**
+     * Archives a project together with its active tasks, so no task is left active in an archived project.
+     *
+     * @param projectId The ID of the project.
+     * @return True if the project and its tasks were archived, false if nothing was changed.
+     * @throws IOException If writing the data files fails.
+     */
+    public boolean archiveProject(int projectId) throws IOException {
+        Optional<Project> project = projectService.editDataById(projectId);
+        if (project.isEmpty()) {
+            return false;
+        }
+        DataTransaction transaction = new DataTransaction();
+        for (Task task : taskService.getDataByRange("boundToProject", projectId, projectId + 1)) {
+            if (task.getStatus() == 1) {
+                Task archived = taskService.store().copy(task);
+                archived.setStatus(2);
+                transaction.update(taskService, archived);
+            }
+        }
+        project.get().setStatus(2);
+        transaction.update(projectService, project.get());
+        return transaction.commit();
+    }
+}
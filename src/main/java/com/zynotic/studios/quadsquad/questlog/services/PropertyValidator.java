@@ -0,0 +1,264 @@
+/*
+ * PropertyValidator.java
+ * Validation of entities limited to the properties that changed since they were last found valid.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Validation of entities limited to the properties that changed since they were last found valid.
+ * The constrained property values of each record are remembered, by record ID, once they pass validation.
+ * The next validation of that record only runs the constraints of properties whose value differs, so
+ * toggling a task's completion or a user's status no longer re-runs every pattern and allowed-values check.
+ * <p>
+ * Whether a value passes its constraints depends only on the value, so a remembered value stays valid
+ * whatever record it is compared with. New records are validated whole and not remembered, as their ID is
+ * only assigned once they pass.
+ * <p>
+ * Constraints are run as {@link CompiledConstraints} checks where possible. Properties they cannot handle
+ * are validated by Hibernate Validator, which is only built once such a property is first validated.
+ * Entities with class-level or getter constraints are always validated whole by Hibernate Validator.
+ *
+ * @param <P> The type of data entity.
+ */
+final class PropertyValidator<P extends DataIdentifier> {
+    private static final Logger logger = LogManager.getLogger(PropertyValidator.class);
+
+    private static final Object UNVALIDATED = new Object(); // Marks values that must be validated again
+    private static final int SNAPSHOT_DEPTH = 8; // Deepest nesting of objects copied into a snapshot
+    private static final ClassValue<Field[]> snapshotFields = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                        continue;
+                    }
+                    if (!field.trySetAccessible()) {
+                        return null;
+                    }
+                    fields.add(field);
+                }
+            }
+            return fields.toArray(Field[]::new);
+        }
+    }; // Instance fields copied into snapshots of a class, null if they cannot all be read
+
+    private final String[] properties; // Names of the constrained properties
+    private final Field[] fields; // Fields of the constrained properties
+    private final List<CompiledConstraints.Check>[] checks; // Compiled checks per property, null if left to Hibernate
+    private final boolean wholeBean; // Whether the entity must be validated whole by Hibernate
+    private final Map<Integer, Object[]> validated = new ConcurrentHashMap<>(); // Record ID -> values last found valid
+
+    /**
+     * Constructs the validator of an entity type, compiling the constraints of its fields.
+     *
+     * @param entityType The entity type.
+     */
+    @SuppressWarnings("unchecked")
+    PropertyValidator(EntityType<P> entityType) {
+        this.wholeBean = !CompiledConstraints.supportsClass(entityType.typeClass());
+        List<Field> constrained = wholeBean ? List.of() : CompiledConstraints.constrainedFields(entityType.typeClass());
+        this.properties = new String[constrained.size()];
+        this.fields = new Field[constrained.size()];
+        this.checks = new List[constrained.size()];
+        for (int i = 0; i < constrained.size(); i++) {
+            properties[i] = constrained.get(i).getName();
+            fields[i] = entityType.field(properties[i]);
+            checks[i] = CompiledConstraints.compile(fields[i]);
+        }
+    }
+
+    /**
+     * Validates a record, checking only the properties that changed since the record was last validated.
+     *
+     * @param data The record.
+     * @return The violation messages, empty if the record is valid.
+     */
+    List<String> validate(P data) {
+        return validate(data, true);
+    }
+
+    /**
+     * Validates a record that is not stored yet, checking every property.
+     * Nothing is remembered, since the record has no ID of its own until it is added.
+     *
+     * @param data The record.
+     * @return The violation messages, empty if the record is valid.
+     */
+    List<String> validateNew(P data) {
+        return validate(data, false);
+    }
+
+    /**
+     * Validates a record, checking only the properties that changed since the record was last validated
+     * if it is remembered.
+     *
+     * @param data     The record.
+     * @param remember Whether to compare with and remember the values last found valid for the record's ID.
+     * @return The violation messages, empty if the record is valid.
+     */
+    private List<String> validate(P data, boolean remember) {
+        List<String> errors = new ArrayList<>();
+        if (wholeBean) {
+            EntityType.validator().validate(data).forEach(violation -> errors.add(violation.getMessage()));
+            return errors;
+        }
+        Object[] values = new Object[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            values[i] = fingerprint(read(fields[i], data));
+        }
+        Object[] previous = remember ? validated.get(data.getId()) : null;
+        for (int i = 0; i < properties.length; i++) {
+            if (previous == null || previous[i] == UNVALIDATED || !Objects.equals(previous[i], values[i])) {
+                int before = errors.size();
+                validateProperty(data, i, errors);
+                if (errors.size() > before) {
+                    values[i] = UNVALIDATED;
+                }
+            }
+        }
+        if (remember) {
+            validated.put(data.getId(), values);
+        }
+        return errors;
+    }
+
+    /**
+     * Forgets the values remembered for a record, after it is deleted.
+     *
+     * @param id The ID of the record.
+     */
+    void forget(int id) {
+        validated.remove(id);
+    }
+
+    /**
+     * Validates a single property of a record.
+     *
+     * @param data   The record.
+     * @param index  The index of the property.
+     * @param errors The list the violation messages are added to.
+     */
+    private void validateProperty(P data, int index, List<String> errors) {
+        if (checks[index] != null) {
+            Object value = read(fields[index], data);
+            for (CompiledConstraints.Check check : checks[index]) {
+                if (!check.test().test(value)) {
+                    errors.add(check.message());
+                }
+            }
+            return;
+        }
+        Validator validator = EntityType.validator();
+        validator.validateProperty(data, properties[index]).forEach(violation -> errors.add(violation.getMessage()));
+        Object value = fields[index].isAnnotationPresent(Valid.class) ? read(fields[index], data) : null;
+        if (value != null) {
+            validator.validate(value).forEach(violation -> errors.add(violation.getMessage()));
+        }
+    }
+
+    /**
+     * Computes a comparable snapshot of a property value.
+     * Immutable values are kept as they are. Other objects, such as nested phone numbers, are copied into a
+     * snapshot of their field values, so a change made to them in place is noticed even though the property
+     * still refers to the same object. Objects whose fields cannot all be read are always validated again.
+     *
+     * @param value The value.
+     * @return The snapshot, or {@link #UNVALIDATED} if none can be taken.
+     */
+    private static Object fingerprint(Object value) {
+        return fingerprint(value, 0);
+    }
+
+    /**
+     * Computes a comparable snapshot of a value nested at a given depth.
+     *
+     * @param value The value.
+     * @param depth The number of objects the value is nested in.
+     * @return The snapshot, or {@link #UNVALIDATED} if none can be taken.
+     */
+    private static Object fingerprint(Object value, int depth) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum || value instanceof TemporalAccessor) {
+            return value;
+        }
+        if (depth == SNAPSHOT_DEPTH) {
+            return UNVALIDATED;
+        }
+        List<Object> values = new ArrayList<>();
+        if (value.getClass().isArray()) {
+            for (int i = 0; i < Array.getLength(value); i++) {
+                values.add(Array.get(value, i));
+            }
+        } else if (value instanceof Collection<?> collection) {
+            values.addAll(collection);
+        } else {
+            Field[] fields = snapshotFields.get(value.getClass());
+            if (fields == null) {
+                return UNVALIDATED;
+            }
+            for (Field field : fields) {
+                values.add(read(field, value));
+            }
+        }
+        for (int i = 0; i < values.size(); i++) {
+            Object snapshot = fingerprint(values.get(i), depth + 1);
+            if (snapshot == UNVALIDATED) {
+                return UNVALIDATED;
+            }
+            values.set(i, snapshot);
+        }
+        return new Nested(value.getClass(), Collections.unmodifiableList(values));
+    }
+
+    /**
+     * Snapshot of a nested object, equal to another only if both objects are of the same class and had
+     * equal field values, or elements, when the snapshots were taken.
+     *
+     * @param type   The class of the object.
+     * @param values The snapshots of the field values or elements of the object.
+     */
+    private record Nested(Class<?> type, List<Object> values) {
+    }
+
+    /**
+     * Reads a field value from a record.
+     *
+     * @param field The field.
+     * @param data  The record.
+     * @return The field value, or null if it cannot be read.
+     */
+    private static Object read(Field field, Object data) {
+        try {
+            return field.get(data);
+        } catch (IllegalAccessException e) {
+            logger.error("Could not read field {}", field.getName(), e);
+            return null;
+        }
+    }
+}
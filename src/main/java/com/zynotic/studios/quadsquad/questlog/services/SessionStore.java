@@ -0,0 +1,289 @@
+/*
+ * SessionStore.java
+ * Persistent remember-me sessions restoring a sign-in without verifying the password again.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.entities.UserSession;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Persistent remember-me sessions restoring a sign-in without verifying the password again.
+ * Remembering a sign-in creates a random token, kept in the user's home directory on this device, and a
+ * {@link UserSession} in {@code database/sessions.json} holding only an HMAC of the token together with the
+ * user, a fingerprint of the device and the expiry. Restoring recomputes the HMAC and compares it in constant
+ * time, so a session costs one SHA-256 HMAC to restore instead of an Argon2 verification.
+ * <p>
+ * The HMAC key is generated on first use and kept next to the token, so sessions copied to another
+ * device, or edited to point at another user or a later expiry, do not verify. Sessions expire after
+ * {@link #LIFETIME}; expired ones are removed whenever a session is restored.
+ */
+public final class SessionStore {
+    private static final Logger logger = LogManager.getLogger(SessionStore.class);
+
+    private static final String MAC_ALGORITHM = "HmacSHA256"; // Algorithm of the session tags
+    private static final int KEY_LENGTH = 32; // Length of the HMAC key, in bytes
+    private static final int TOKEN_LENGTH = 32; // Length of the session tokens, in bytes
+    private static final Duration LIFETIME = Duration.ofDays(30); // Time a remembered session lasts
+    private static final Path DEVICE_DIRECTORY = Path.of(System.getProperty("user.home"), ".questlog"); // Directory of the device's secrets
+    private static final Path KEY_FILE = DEVICE_DIRECTORY.resolve("session.key"); // HMAC key of this device
+    private static final Path TOKEN_FILE = DEVICE_DIRECTORY.resolve("session.token"); // Token of the remembered session
+
+    private static final SecureRandom random = new SecureRandom(); // Source of keys and tokens
+
+    private final DataService<UserSession> sessionsService = new DataService<>("database/sessions.json", UserSession.class); // Stored sessions
+    private final DataService<User> usersService = new DataService<>("database/users.json", User.class); // Users the sessions belong to
+
+    /**
+     * Remembers the sign-in of a user on this device, replacing any session remembered before.
+     *
+     * @param user The signed-in user.
+     */
+    public void remember(User user) {
+        forget();
+        try {
+            byte[] token = new byte[TOKEN_LENGTH];
+            random.nextBytes(token);
+            String device = deviceFingerprint();
+            Instant expiresAt = Instant.now().plus(LIFETIME).truncatedTo(ChronoUnit.SECONDS);
+            String tag = tag(token, user.getId(), device, expiresAt);
+            UserSession session = new UserSession(user.getId(), device, tag, expiresAt);
+            sessionsService.addData(session);
+            // A session failing validation is silently left out, so only hand out a token for one that was stored
+            boolean stored = sessionsService.getDataById(session.getId())
+                    .filter(added -> added.getUserId() == user.getId() && tag.equals(added.getTag()))
+                    .isPresent();
+            if (!stored) {
+                logger.error("Session of user {} could not be stored, the sign-in is not remembered", user.getId());
+                return;
+            }
+            writePrivate(TOKEN_FILE, (session.getId() + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(token)).getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | GeneralSecurityException e) {
+            logger.error("Could not remember the sign-in of user {}", user.getId(), e);
+        }
+    }
+
+    /**
+     * Restores the session remembered on this device.
+     * A session that is missing, expired, from another device or whose tag does not match is forgotten.
+     *
+     * @return An optional containing the signed-in user, if the session is valid.
+     */
+    public Optional<User> restore() {
+        removeExpired();
+        if (!Files.exists(TOKEN_FILE)) {
+            return Optional.empty();
+        }
+        try {
+            String[] parts = Files.readString(TOKEN_FILE, StandardCharsets.US_ASCII).trim().split("\\.", 2);
+            if (parts.length == 2) {
+                Optional<UserSession> session = sessionsService.getDataById(Integer.parseInt(parts[0]));
+                byte[] token = Base64.getUrlDecoder().decode(parts[1]);
+                if (session.isPresent() && isValid(session.get(), token)) {
+                    Optional<User> user = usersService.getDataById(session.get().getUserId());
+                    if (user.isPresent()) {
+                        return user;
+                    }
+                }
+            }
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            logger.warn("Could not read the remembered session", e);
+        }
+        logger.info("Remembered session is no longer valid");
+        forget();
+        return Optional.empty();
+    }
+
+    /**
+     * Forgets the session remembered on this device, if any.
+     * The stored session is only deleted if the token on this device is the one it was created for, so a
+     * stale or tampered token never deletes the session of another user or device.
+     */
+    public void forget() {
+        try {
+            if (Files.exists(TOKEN_FILE)) {
+                String[] parts = Files.readString(TOKEN_FILE, StandardCharsets.US_ASCII).trim().split("\\.", 2);
+                try {
+                    if (parts.length == 2) {
+                        Optional<UserSession> session = sessionsService.getDataById(Integer.parseInt(parts[0]));
+                        if (session.isPresent() && matches(session.get(), Base64.getUrlDecoder().decode(parts[1]))) {
+                            sessionsService.deleteData(session.get().getId());
+                        }
+                    }
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    logger.warn("Could not check the remembered session, only its token is removed", e);
+                }
+                Files.delete(TOKEN_FILE);
+            }
+        } catch (IOException e) {
+            logger.error("Could not forget the remembered session", e);
+        }
+    }
+
+    /**
+     * Checks a stored session against the token presented for it.
+     *
+     * @param session The stored session.
+     * @param token   The presented token.
+     * @return True if the session has not expired, belongs to this device and its tag matches the token.
+     * @throws IOException              If the HMAC key cannot be read.
+     * @throws GeneralSecurityException If the HMAC cannot be computed.
+     */
+    private boolean isValid(UserSession session, byte[] token) throws IOException, GeneralSecurityException {
+        return session.getExpiresAt() != null && Instant.now().isBefore(session.getExpiresAt()) && matches(session, token);
+    }
+
+    /**
+     * Checks that a stored session was created for the given token on this device, whether or not it expired.
+     * The tag binds the token to the user and the expiry, so a match also confirms the session's user.
+     *
+     * @param session The stored session.
+     * @param token   The presented token.
+     * @return True if the session belongs to this device and its tag matches the token.
+     * @throws IOException              If the HMAC key cannot be read.
+     * @throws GeneralSecurityException If the HMAC cannot be computed.
+     */
+    private boolean matches(UserSession session, byte[] token) throws IOException, GeneralSecurityException {
+        String device = deviceFingerprint();
+        if (session.getExpiresAt() == null || !device.equals(session.getDevice())) {
+            return false;
+        }
+        byte[] expected = Base64.getDecoder().decode(tag(token, session.getUserId(), device, session.getExpiresAt()));
+        byte[] stored = session.getTag() == null ? new byte[0] : Base64.getDecoder().decode(session.getTag());
+        return MessageDigest.isEqual(expected, stored);
+    }
+
+    /**
+     * Removes the stored sessions that have expired.
+     */
+    private void removeExpired() {
+        Instant now = Instant.now();
+        for (UserSession session : sessionsService.readData()) {
+            if (session.getExpiresAt() == null || !now.isBefore(session.getExpiresAt())) {
+                sessionsService.deleteData(session.getId());
+            }
+        }
+    }
+
+    /**
+     * Computes the tag binding a token to a user, a device and an expiry.
+     *
+     * @param token     The token.
+     * @param userId    The ID of the user.
+     * @param device    The device fingerprint.
+     * @param expiresAt The expiry.
+     * @return The tag, Base64 encoded.
+     * @throws IOException              If the HMAC key cannot be read or created.
+     * @throws GeneralSecurityException If the HMAC cannot be computed.
+     */
+    private static String tag(byte[] token, int userId, String device, Instant expiresAt) throws IOException, GeneralSecurityException {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(new SecretKeySpec(key(), MAC_ALGORITHM));
+        mac.update(token);
+        mac.update(("|" + userId + "|" + device + "|" + expiresAt.getEpochSecond()).getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(mac.doFinal());
+    }
+
+    /**
+     * Reads the HMAC key of this device, generating it on first use.
+     *
+     * @return The key.
+     * @throws IOException If the key cannot be read or created.
+     */
+    private static synchronized byte[] key() throws IOException {
+        if (Files.exists(KEY_FILE)) {
+            byte[] key = Files.readAllBytes(KEY_FILE);
+            if (key.length == KEY_LENGTH) {
+                return key;
+            }
+        }
+        byte[] key = new byte[KEY_LENGTH];
+        random.nextBytes(key);
+        writePrivate(KEY_FILE, key);
+        return key;
+    }
+
+    /**
+     * Computes the fingerprint of this device and operating system account.
+     *
+     * @return The fingerprint, Base64 encoded.
+     * @throws GeneralSecurityException If SHA-256 is not available.
+     */
+    private static String deviceFingerprint() throws GeneralSecurityException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        String identity = System.getProperty("os.name") + "|" + System.getProperty("os.arch") + "|"
+                + System.getProperty("user.name") + "|" + System.getProperty("user.home");
+        return Base64.getEncoder().encodeToString(digest.digest(identity.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes a file readable only by its owner, where the file system supports it.
+     * The content goes to a temporary file created owner-only from the start, which is then moved over the
+     * file, so the secret is never readable by others, not even for a moment.
+     *
+     * @param file    The file.
+     * @param content The content.
+     * @throws IOException If writing fails.
+     */
+    private static void writePrivate(Path file, byte[] content) throws IOException {
+        Path directory = file.getParent();
+        Files.createDirectories(directory, ownerOnly(directory, "rwx------"));
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp", ownerOnly(directory, "rw-------"));
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Builds the attributes creating a file or directory with the given owner-only permissions.
+     *
+     * @param directory   A directory of the file system the file is created on.
+     * @param permissions The POSIX permissions, such as {@code rw-------}.
+     * @return The attributes, none if the file system does not support POSIX permissions.
+     */
+    private static FileAttribute<?>[] ownerOnly(Path directory, String permissions) {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            // Not a POSIX file system; the file keeps the default permissions of the user's home
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))};
+    }
+}
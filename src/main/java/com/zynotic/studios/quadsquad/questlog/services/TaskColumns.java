@@ -0,0 +1,238 @@
+/*
+ * TaskColumns.java
+ * Column-oriented view of a snapshot of tasks.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.Task;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Column-oriented view of a snapshot of tasks.
+ * The fields filters look at are copied into parallel primitive arrays, one row per task in snapshot order,
+ * so section filters and counts run as tight loops over arrays instead of walking task objects.
+ * Only the rows that pass a filter are turned back into {@link Task} objects, straight from the snapshot.
+ * <p>
+ * The columns are built once per snapshot version and shared by every caller reading that version.
+ */
+public final class TaskColumns {
+    /**
+     * Value of the date columns for tasks without a date.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * Value of the project column for tasks not bound to a project.
+     */
+    public static final int NO_PROJECT = -1;
+
+    private static volatile TaskColumns latest; // Columns of the most recently viewed snapshot
+
+    private final DataSnapshot<Task> snapshot; // Snapshot the columns were built from
+    private final int[] ids; // Task IDs
+    private final int[] projects; // Project IDs, NO_PROJECT if unbound
+    private final long[] dueDates; // Due dates in epoch seconds, NO_DATE if missing
+    private final long[] addDates; // Creation dates in epoch seconds, NO_DATE if missing
+    private final byte[] statuses; // Statuses (0: Deleted, 1: Active, 2: Archived)
+    private final BitSet completed; // Rows of completed tasks
+    private final int[] users; // Dictionary codes of the users the tasks are bound to
+    private final Map<String, Integer> userCodes = new HashMap<>(); // Username -> dictionary code
+
+    /**
+     * Builds the columns of a snapshot.
+     *
+     * @param snapshot The snapshot.
+     */
+    private TaskColumns(DataSnapshot<Task> snapshot) {
+        this.snapshot = snapshot;
+        List<Task> tasks = snapshot.getData();
+        int size = tasks.size();
+        ids = new int[size];
+        projects = new int[size];
+        dueDates = new long[size];
+        addDates = new long[size];
+        statuses = new byte[size];
+        completed = new BitSet(size);
+        users = new int[size];
+        for (int row = 0; row < size; row++) {
+            Task task = tasks.get(row);
+            ids[row] = task.getTaskId();
+            projects[row] = task.getBoundToProject() == null ? NO_PROJECT : task.getBoundToProject();
+            dueDates[row] = task.getDueEpochSecond();
+            addDates[row] = task.getAddEpochSecond();
+            statuses[row] = (byte) task.getStatus();
+            completed.set(row, task.isCompleted());
+            users[row] = userCodes.computeIfAbsent(task.getBoundToUser(), username -> userCodes.size());
+        }
+    }
+
+    /**
+     * Retrieves the columns of a snapshot, building them if the snapshot has not been viewed yet.
+     *
+     * @param snapshot The snapshot of tasks.
+     * @return The columns of the snapshot.
+     */
+    public static TaskColumns of(DataSnapshot<Task> snapshot) {
+        TaskColumns columns = latest;
+        if (columns == null || columns.snapshot != snapshot) {
+            columns = new TaskColumns(snapshot);
+            latest = columns;
+        }
+        return columns;
+    }
+
+    /**
+     * Retrieves the snapshot the columns were built from.
+     *
+     * @return The snapshot.
+     */
+    public DataSnapshot<Task> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Retrieves the number of rows.
+     *
+     * @return The number of tasks.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Retrieves the dictionary code of a user.
+     *
+     * @param username The username.
+     * @return The code, or -1 if no task is bound to the user.
+     */
+    public int userCode(String username) {
+        Integer code = userCodes.get(username);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Retrieves the ID of the task in a row.
+     *
+     * @param row The row.
+     * @return The task ID.
+     */
+    public int id(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Retrieves the project ID of the task in a row.
+     *
+     * @param row The row.
+     * @return The project ID, or {@link #NO_PROJECT} if the task is not bound to a project.
+     */
+    public int project(int row) {
+        return projects[row];
+    }
+
+    /**
+     * Retrieves the due date of the task in a row.
+     *
+     * @param row The row.
+     * @return The due date in epoch seconds, or {@link #NO_DATE} if missing.
+     */
+    public long dueDate(int row) {
+        return dueDates[row];
+    }
+
+    /**
+     * Retrieves the creation date of the task in a row.
+     *
+     * @param row The row.
+     * @return The creation date in epoch seconds, or {@link #NO_DATE} if missing.
+     */
+    public long addDate(int row) {
+        return addDates[row];
+    }
+
+    /**
+     * Retrieves the status of the task in a row.
+     *
+     * @param row The row.
+     * @return The status (0: Deleted, 1: Active, 2: Archived).
+     */
+    public int status(int row) {
+        return statuses[row];
+    }
+
+    /**
+     * Checks whether the task in a row is completed.
+     *
+     * @param row The row.
+     * @return True if the task is completed.
+     */
+    public boolean isCompleted(int row) {
+        return completed.get(row);
+    }
+
+    /**
+     * Finds the rows of a user's tasks matching a condition.
+     *
+     * @param userCode The dictionary code of the user, see {@link #userCode(String)}.
+     * @param filter   The condition, given a row.
+     * @return The matching rows in snapshot order.
+     */
+    public int[] rows(int userCode, IntPredicate filter) {
+        if (userCode < 0) {
+            return new int[0];
+        }
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < users.length; row++) {
+            if (users[row] == userCode && filter.test(row)) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Counts a user's tasks matching a condition.
+     *
+     * @param userCode The dictionary code of the user, see {@link #userCode(String)}.
+     * @param filter   The condition, given a row.
+     * @return The number of matching tasks.
+     */
+    public int count(int userCode, IntPredicate filter) {
+        if (userCode < 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int row = 0; row < users.length; row++) {
+            if (users[row] == userCode && filter.test(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the task in a row.
+     *
+     * @param row The row.
+     * @return The task, which must not be modified.
+     */
+    public Task task(int row) {
+        return snapshot.getData().get(row);
+    }
+}
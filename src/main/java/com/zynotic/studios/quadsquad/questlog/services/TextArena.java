@@ -0,0 +1,67 @@
+/*
+ * TextArena.java
+ * Append-only off-heap storage for encoded text values.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only off-heap storage for encoded text values.
+ * Values are copied as UTF-8 bytes into direct buffers allocated in chunks, so the heap only holds
+ * their addresses and the garbage collector never scans or copies the text itself. An arena is filled
+ * once when a data file is loaded and only read afterwards; it is released with its last reference.
+ */
+final class TextArena {
+    private static final int CHUNK_SIZE = 1 << 20; // Size of a regular chunk, larger values get a chunk of their own
+
+    private final List<ByteBuffer> chunks = new ArrayList<>(); // Direct buffers holding the values
+    private ByteBuffer tail; // Chunk values are currently appended to
+
+    /**
+     * Copies a value into the arena.
+     *
+     * @param source The bytes holding the value.
+     * @param offset The offset of the value.
+     * @param length The length of the value.
+     * @return The address of the value in the arena.
+     */
+    synchronized long append(byte[] source, int offset, int length) {
+        if (tail == null || tail.remaining() < length) {
+            tail = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, length));
+            chunks.add(tail);
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | tail.position();
+        tail.put(source, offset, length);
+        return address;
+    }
+
+    /**
+     * Opens a stream over a value without copying it to the heap.
+     *
+     * @param address The address of the value.
+     * @param length  The length of the value.
+     * @return A stream over the value's bytes.
+     */
+    synchronized InputStream open(long address, int length) {
+        int position = (int) address;
+        ByteBuffer value = chunks.get((int) (address >>> 32)).duplicate();
+        value.limit(position + length).position(position);
+        return new ByteBufferBackedInputStream(value);
+    }
+}
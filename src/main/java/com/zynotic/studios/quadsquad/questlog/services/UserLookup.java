@@ -0,0 +1,117 @@
+/*
+ * UserLookup.java
+ * Cache of users by username and email for the sign-in path.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.utils.TinyLfuCache;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of users by username and email for the sign-in path.
+ * Found users are kept in a bounded {@link TinyLfuCache}, so repeated sign-ins skip the store's lock, index
+ * probe and sort. Users are dropped from the cache as soon as the users service reports them updated or
+ * removed, whether by this instance or, through the file watcher, by another one. Only found users are
+ * cached, so adding a user never needs an invalidation. The users returned are the stored ones and must not
+ * be modified, see {@link DataService#editDataById(int)}.
+ * <p>
+ * If the users file cannot be watched, changes made by other instances are only noticed when the store is
+ * read, so the cache is bypassed.
+ */
+public final class UserLookup {
+    private static final int DEFAULT_CAPACITY = 1024; // Users kept by the shared lookup
+    private static final UserLookup shared = new UserLookup(new DataService<>("database/users.json", User.class), DEFAULT_CAPACITY); // Lookup of the users file
+
+    private final DataService<User> usersService; // Service of the cached users
+    private final TinyLfuCache<String, User> cache; // Users by "username:" or "email:" prefixed key
+    private final AtomicLong generation = new AtomicLong(); // Number of invalidations so far
+
+    /**
+     * Constructs a lookup over a users service.
+     *
+     * @param usersService The users service.
+     * @param capacity     The most lookups kept.
+     */
+    public UserLookup(DataService<User> usersService, int capacity) {
+        this.usersService = usersService;
+        this.cache = new TinyLfuCache<>(capacity);
+        usersService.addChangeListener(event -> {
+            Set<Integer> updated = event.getUpdatedIds();
+            Set<Integer> removed = event.getRemovedIds();
+            if (!updated.isEmpty() || !removed.isEmpty()) {
+                generation.incrementAndGet();
+                cache.removeIf(user -> updated.contains(user.getId()) || removed.contains(user.getId()));
+            }
+        });
+    }
+
+    /**
+     * Retrieves the lookup shared by the scenes.
+     *
+     * @return The shared lookup of {@code database/users.json}.
+     */
+    public static UserLookup shared() {
+        return shared;
+    }
+
+    /**
+     * Finds a user by username.
+     *
+     * @param username The username.
+     * @return An optional containing the user, if found.
+     */
+    public Optional<User> byUsername(String username) {
+        return find("username", username);
+    }
+
+    /**
+     * Finds a user by email.
+     *
+     * @param email The email.
+     * @return An optional containing the user, if found.
+     */
+    public Optional<User> byEmail(String email) {
+        return find("email", email);
+    }
+
+    /**
+     * Finds a user by a unique key, from the cache if possible.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return An optional containing the user, if found.
+     */
+    private Optional<User> find(String key, String value) {
+        if (value == null || !usersService.isWatched()) {
+            return usersService.getDataByKeyValue(key, value);
+        }
+        String cacheKey = key + ":" + value;
+        User cached = cache.get(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long before = generation.get();
+        Optional<User> found = usersService.getDataByKeyValue(key, value);
+        if (found.isPresent() && generation.get() == before) {
+            cache.put(cacheKey, found.get());
+            if (generation.get() != before) {
+                cache.removeIf(user -> user == found.get()); // Invalidated while being cached
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Countries.java
+ * Country metadata for phone numbers: country codes, calling codes and flag indexes.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.utils;
+
+import java.util.BitSet;
+
+/**
+ * Country metadata for phone numbers: country codes, calling codes and flag indexes.
+ * The data is compiled in from the table generated into {@link CountryData}, so nothing is read from disk.
+ * A two-letter country code maps to a slot of a 26 × 26 table, a perfect hash, so every lookup is a couple
+ * of array reads. The index of a country is its position in the ordered list of countries and also
+ * identifies its flag.
+ * <p>
+ * Immutable once loaded, so it can be read from any thread.
+ */
+public final class Countries {
+    private static final int LETTERS = 26; // Letters of a country code position
+    private static final int MAX_CALLING_CODE = 9999; // Largest calling code of four digits
+
+    private static final String[] codes = new String[CountryData.ENTRIES.length]; // Country codes, ordered
+    private static final String[] callingCodes = new String[CountryData.ENTRIES.length]; // Calling codes, by country index
+    private static final short[] slots = new short[LETTERS * LETTERS]; // Country index plus one, by country code slot
+    private static final BitSet knownCallingCodes = new BitSet(); // Calling codes of any country
+
+    static {
+        for (int i = 0; i < CountryData.ENTRIES.length; i++) {
+            String entry = CountryData.ENTRIES[i];
+            codes[i] = entry.substring(0, 2);
+            callingCodes[i] = entry.substring(2);
+            slots[slot(codes[i])] = (short) (i + 1);
+            knownCallingCodes.set(Integer.parseInt(callingCodes[i]));
+        }
+    }
+
+    private Countries() {
+    }
+
+    /**
+     * Retrieves the country codes, ordered.
+     *
+     * @return A new array of the two-letter country codes.
+     */
+    public static String[] codes() {
+        return codes.clone();
+    }
+
+    /**
+     * Retrieves the number of countries.
+     *
+     * @return The number of countries.
+     */
+    public static int count() {
+        return codes.length;
+    }
+
+    /**
+     * Finds the index of a country, which also identifies its flag.
+     *
+     * @param code The two-letter country code.
+     * @return The index, or -1 if the country is unknown.
+     */
+    public static int indexOf(String code) {
+        int slot = code == null ? -1 : slot(code);
+        return slot < 0 ? -1 : slots[slot] - 1;
+    }
+
+    /**
+     * Checks whether a country code is known.
+     *
+     * @param code The two-letter country code.
+     * @return True if the country is known.
+     */
+    public static boolean isCountryCode(String code) {
+        return indexOf(code) >= 0;
+    }
+
+    /**
+     * Retrieves the calling code of a country.
+     *
+     * @param code The two-letter country code.
+     * @return The calling code, or null if the country is unknown.
+     */
+    public static String callingCode(String code) {
+        int index = indexOf(code);
+        return index < 0 ? null : callingCodes[index];
+    }
+
+    /**
+     * Checks whether a calling code belongs to any known country.
+     *
+     * @param callingCode The calling code, without a leading '+'.
+     * @return True if the calling code is known.
+     */
+    public static boolean isCallingCode(String callingCode) {
+        if (callingCode == null || callingCode.isEmpty() || callingCode.length() > 4 || callingCode.charAt(0) == '0') {
+            return false;
+        }
+        int value = 0;
+        for (int i = 0; i < callingCode.length(); i++) {
+            char digit = callingCode.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return false;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value <= MAX_CALLING_CODE && knownCallingCodes.get(value);
+    }
+
+    /**
+     * Computes the table slot of a country code.
+     *
+     * @param code The country code.
+     * @return The slot, or -1 if the code is not two uppercase letters.
+     */
+    private static int slot(String code) {
+        if (code.length() != 2) {
+            return -1;
+        }
+        int first = code.charAt(0) - 'A';
+        int second = code.charAt(1) - 'A';
+        if (first < 0 || first >= LETTERS || second < 0 || second >= LETTERS) {
+            return -1;
+        }
+        return first * LETTERS + second;
+    }
+}
@@ -18,6 +18,7 @@ package com.zynotic.studios.quadsquad.questlog.utils;
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonSetter;
 //
 import java.io.Serial;
@@ -30,13 +31,18 @@ import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
 
 /**
  * Utility class for holding data in a container.
+ * The schema version heads the container so it is known before the first record is read.
  * @param <P> The type of data identifier.
  */
 @JsonInclude(JsonInclude.Include.ALWAYS)
+@JsonPropertyOrder({"schemaVersion", "data"})
 public class DataContainer<P extends DataIdentifier> implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    @JsonProperty("schemaVersion") // JSON property name for the schema version
+    private int schemaVersion; // Schema version the data was written at, 0 if the file predates versioning
+
     @JsonProperty("data") // JSON property name for the data list
     private List<P> data; // List to hold the data
 
@@ -47,6 +53,24 @@ public class DataContainer<P extends DataIdentifier> implements Serializable {
         this.data = new ArrayList<>();
     }
 
+    /**
+     * Getter for the schema version.
+     * @return The schema version.
+     */
+    @JsonGetter
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    /**
+     * Setter for the schema version.
+     * @param schemaVersion The schema version to set.
+     */
+    @JsonSetter
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
     /**
      * Getter for the data list.
      * @return The data list.
@@ -0,0 +1,55 @@
+/*
+ * PooledStringDeserializer.java
+ * Jackson deserializer sharing instances of repeated string values.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Jackson deserializer sharing instances of repeated string values through the {@link StringPool}.
+ * Intended for low-cardinality fields, for example:
+ * <pre>{@code
+ * @JsonDeserialize(using = PooledStringDeserializer.class)
+ * private String boundToUser;
+ * }</pre>
+ */
+public class PooledStringDeserializer extends StdScalarDeserializer<String> {
+    /**
+     * Constructs the deserializer.
+     */
+    public PooledStringDeserializer() {
+        super(String.class);
+    }
+
+    /**
+     * Reads a string value, reusing the pooled instance when there is one.
+     *
+     * @param parser  The parser positioned on the value.
+     * @param context The deserialization context.
+     * @return The pooled string.
+     * @throws IOException If reading fails.
+     */
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            return StringPool.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        return StringPool.intern(context.readValue(parser, String.class));
+    }
+}
@@ -1,6 +1,7 @@
 package com.zynotic.studios.quadsquad.questlog.utils;
 
 import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.services.SessionStore;
 
 public class SessionManager {
 
@@ -8,6 +9,8 @@ public class SessionManager {
 
     private User user;
 
+    private final SessionStore sessionStore = new SessionStore();
+
     public boolean isSignedIn() {
         return isSignedIn;
     }
@@ -21,9 +24,21 @@ public class SessionManager {
         this.user = user;
     }
 
+    public void signInSuccess(User user, boolean remember) {
+        signInSuccess(user);
+        if (remember) {
+            sessionStore.remember(user);
+        }
+    }
+
+    public boolean restoreSession() {
+        sessionStore.restore().ifPresent(this::signInSuccess);
+        return isSignedIn;
+    }
+
     public void signOut() {
         isSignedIn = false;
         this.user = null;
+        sessionStore.forget();
     }
 }
-
@@ -0,0 +1,105 @@
+/*
+ * StringPool.java
+ * Bounded pool of shared instances of frequently repeated strings.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded pool of shared instances of frequently repeated strings.
+ * Each string maps to one slot by hash; a slot keeps the last string stored in it, so the pool never grows
+ * past its capacity and a collision only costs a missed share. Meant for low-cardinality values such as
+ * usernames, zone IDs and country codes, which repeat across thousands of records.
+ */
+public final class StringPool {
+    private static final int CAPACITY = 4096; // Number of slots, a power of two
+    private static final AtomicReferenceArray<String> slots = new AtomicReferenceArray<>(CAPACITY); // Pooled strings by slot
+
+    private StringPool() {
+    }
+
+    /**
+     * Retrieves the shared instance of a string.
+     *
+     * @param value The string.
+     * @return The pooled instance equal to the string, or null if the string is null.
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int slot = spread(value.hashCode());
+        String pooled = slots.get(slot);
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        slots.set(slot, value);
+        return value;
+    }
+
+    /**
+     * Retrieves the shared instance of a string held in a character buffer,
+     * creating a string only if the pool does not already hold one.
+     *
+     * @param buffer The buffer.
+     * @param offset The offset of the first character.
+     * @param length The number of characters.
+     * @return The pooled instance equal to the characters.
+     */
+    public static String intern(char[] buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = spread(hash);
+        String pooled = slots.get(slot);
+        if (pooled != null && matches(pooled, buffer, offset, length)) {
+            return pooled;
+        }
+        String value = new String(buffer, offset, length);
+        slots.set(slot, value);
+        return value;
+    }
+
+    /**
+     * Maps a hash code to a slot.
+     *
+     * @param hash The hash code, computed as by {@link String#hashCode()}.
+     * @return The slot.
+     */
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+    }
+
+    /**
+     * Checks whether a string equals the characters in a buffer.
+     *
+     * @param value  The string.
+     * @param buffer The buffer.
+     * @param offset The offset of the first character.
+     * @param length The number of characters.
+     * @return True if they are equal.
+     */
+    private static boolean matches(String value, char[] buffer, int offset, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * TimeZones.java
+ * Shared cache of time zones and their day boundaries.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getRequiredApplicationProperty;
+
+/**
+ * Shared cache of time zones and their day boundaries.
+ * Zone IDs are parsed once, and the bounds of the current day are computed once per zone and day,
+ * so code checking many timestamps against "today" only compares epoch seconds.
+ */
+public final class TimeZones {
+    private static final Map<String, ZoneId> zones = new ConcurrentHashMap<>(); // Zone ID -> parsed zone
+    private static final Map<ZoneId, Day> days = new ConcurrentHashMap<>(); // Zone -> current day in that zone
+    private static final ZoneId DEFAULT_ZONE = zoneOf(getRequiredApplicationProperty("APP_DEFAULT_TIMEZONE")); // Application's default zone
+
+    private TimeZones() {
+    }
+
+    /**
+     * Retrieves a time zone by ID, parsing it only the first time.
+     *
+     * @param zoneId The zone ID, such as "Asia/Dhaka".
+     * @return The time zone.
+     */
+    public static ZoneId zoneOf(String zoneId) {
+        return zones.computeIfAbsent(zoneId, ZoneId::of);
+    }
+
+    /**
+     * Retrieves the application's default time zone.
+     *
+     * @return The default time zone.
+     */
+    public static ZoneId defaultZone() {
+        return DEFAULT_ZONE;
+    }
+
+    /**
+     * Retrieves the current date in the application's default time zone.
+     *
+     * @return The current date.
+     */
+    public static LocalDate today() {
+        return today(DEFAULT_ZONE).date();
+    }
+
+    /**
+     * Retrieves the current day in a time zone.
+     *
+     * @param zone The time zone.
+     * @return The current day, cached until it ends.
+     */
+    public static Day today(ZoneId zone) {
+        long now = Instant.now().getEpochSecond();
+        Day day = days.get(zone);
+        if (day == null || !day.contains(now)) {
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochSecond(now), zone);
+            day = new Day(date, date.atStartOfDay(zone).toEpochSecond(), date.plusDays(1).atStartOfDay(zone).toEpochSecond());
+            days.put(zone, day);
+        }
+        return day;
+    }
+
+    /**
+     * A calendar day in a time zone, bounded in epoch seconds.
+     *
+     * @param date  The date.
+     * @param start The first second of the day, inclusive.
+     * @param end   The first second of the next day, exclusive.
+     */
+    public record Day(LocalDate date, long start, long end) {
+        /**
+         * Checks whether a timestamp falls within the day.
+         *
+         * @param epochSecond The timestamp in epoch seconds.
+         * @return True if the timestamp is on this day.
+         */
+        public boolean contains(long epochSecond) {
+            return epochSecond >= start && epochSecond < end;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * TinyLfuCache.java
+ * Bounded cache admitting entries by how often their keys are asked for.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache admitting entries by how often their keys are asked for, after W-TinyLFU.
+ * New entries go to a small LRU window. An entry pushed out of the window only enters the main LRU area,
+ * once that is full, if its key has been asked for more often than the key it would evict. Frequencies are
+ * estimated by a count-min sketch of 4-bit counters that are halved periodically, so the cache follows
+ * changes in what is popular and a burst of one-off keys, such as mistyped usernames, cannot flush it.
+ * <p>
+ * Every method is synchronized; the cache is meant for small, hot lookups.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public final class TinyLfuCache<K, V> {
+    private final int windowCapacity; // Entries held by the window
+    private final int mainCapacity; // Entries held by the main area
+    private final LinkedHashMap<K, V> window; // Recently added entries, least recently used first
+    private final LinkedHashMap<K, V> main; // Admitted entries, least recently used first
+    private final long[] sketch; // Count-min sketch of 16 4-bit counters per word
+    private final int sketchMask; // Mask of word indexes in the sketch
+    private final int sampleSize; // Increments after which the counters are halved
+    private int increments; // Increments since the counters were last halved
+
+    /**
+     * Constructs a cache.
+     *
+     * @param capacity The most entries the cache holds.
+     */
+    public TinyLfuCache(int capacity) {
+        int total = Math.max(2, capacity);
+        this.windowCapacity = Math.max(1, total / 100);
+        this.mainCapacity = total - windowCapacity;
+        this.window = new LinkedHashMap<>(16, 0.75f, true);
+        this.main = new LinkedHashMap<>(16, 0.75f, true);
+        int words = Integer.highestOneBit(Math.max(16, total) - 1) << 1;
+        this.sketch = new long[words];
+        this.sketchMask = words - 1;
+        this.sampleSize = 10 * total;
+    }
+
+    /**
+     * Retrieves the value of a key, counting the request towards the key's frequency.
+     *
+     * @param key The key.
+     * @return The cached value, or null if the key is not cached.
+     */
+    public synchronized V get(K key) {
+        record(key);
+        V value = main.get(key);
+        return value != null ? value : window.get(key);
+    }
+
+    /**
+     * Caches the value of a key.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public synchronized void put(K key, V value) {
+        if (main.containsKey(key)) {
+            main.put(key, value);
+            return;
+        }
+        window.put(key, value);
+        if (window.size() <= windowCapacity) {
+            return;
+        }
+        Iterator<Map.Entry<K, V>> oldest = window.entrySet().iterator();
+        Map.Entry<K, V> candidate = oldest.next();
+        oldest.remove();
+        if (main.size() < mainCapacity) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        Iterator<Map.Entry<K, V>> eldest = main.entrySet().iterator();
+        K victim = eldest.next().getKey();
+        if (frequency(candidate.getKey()) > frequency(victim)) {
+            eldest.remove();
+            main.put(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * Removes the entries whose value matches a condition.
+     *
+     * @param condition The condition.
+     */
+    public synchronized void removeIf(Predicate<? super V> condition) {
+        window.values().removeIf(condition);
+        main.values().removeIf(condition);
+    }
+
+    /**
+     * Removes every entry. Key frequencies are kept.
+     */
+    public synchronized void clear() {
+        window.clear();
+        main.clear();
+    }
+
+    /**
+     * Counts a request for a key in the sketch.
+     *
+     * @param key The key.
+     */
+    private void record(K key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            int word = index(hash, row);
+            int shift = offset(hash, row);
+            if (((sketch[word] >>> shift) & 0xF) < 0xF) {
+                sketch[word] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++increments >= sampleSize) {
+            halve();
+        }
+    }
+
+    /**
+     * Estimates how often a key was asked for.
+     *
+     * @param key The key.
+     * @return The estimated frequency, at most 15.
+     */
+    private int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int frequency = 0xF;
+        for (int row = 0; row < 4; row++) {
+            frequency = Math.min(frequency, (int) ((sketch[index(hash, row)] >>> offset(hash, row)) & 0xF));
+        }
+        return frequency;
+    }
+
+    /**
+     * Halves every counter, so old popularity fades.
+     */
+    private void halve() {
+        for (int i = 0; i < sketch.length; i++) {
+            sketch[i] = (sketch[i] >>> 1) & 0x7777_7777_7777_7777L;
+        }
+        increments /= 2;
+    }
+
+    /**
+     * Computes the word of a row's counter for a key.
+     *
+     * @param hash The spread hash of the key.
+     * @param row  The row.
+     * @return The word index.
+     */
+    private int index(int hash, int row) {
+        int mixed = (hash + row * 0x9E3779B9) * 0x85EBCA6B;
+        return (mixed ^ (mixed >>> 16)) & sketchMask;
+    }
+
+    /**
+     * Computes the bit offset of a row's counter within its word.
+     *
+     * @param hash The spread hash of the key.
+     * @param row  The row.
+     * @return The bit offset, a multiple of four.
+     */
+    private static int offset(int hash, int row) {
+        return ((hash >>> (row * 8)) & 0xF) << 2;
+    }
+
+    /**
+     * Spreads the bits of a hash code.
+     *
+     * @param hashCode The hash code.
+     * @return The spread hash.
+     */
+    private static int spread(int hashCode) {
+        int hash = hashCode * 0x31848BAB;
+        return hash ^ (hash >>> 14);
+    }
+}
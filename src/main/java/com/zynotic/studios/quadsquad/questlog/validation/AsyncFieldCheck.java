@@ -0,0 +1,175 @@
+/*
+ * AsyncFieldCheck.java
+ * Debounced check of a form field run off the JavaFX thread.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.validation;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Debounced check of a form field run off the JavaFX thread.
+ * The ValidatorFX check of a field asks for the expensive part of its validation, such as a uniqueness
+ * lookup or phone number parsing, with {@link #request}; the input is checked on a background thread once
+ * it has not changed for the debounce delay. A newer input cancels the check waiting for the older one,
+ * and the result of a check already running for an older input is dropped when it completes.
+ * <p>
+ * Completed results are posted back on the JavaFX thread through {@link #resultsProperty()}, which the
+ * ValidatorFX check depends on, so the check runs again and reads the result with {@link #errorFor}.
+ * Must only be used from the JavaFX thread.
+ *
+ * @param <T> The type of input checked.
+ */
+public final class AsyncFieldCheck<T> {
+    private static final Logger logger = LogManager.getLogger(AsyncFieldCheck.class);
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "questlog-field-validator");
+        thread.setDaemon(true);
+        return thread;
+    }); // Background thread running the checks
+    private static final String CHECK_FAILED = "Could not be checked, please try again"; // Error posted when a check throws
+
+    private final Duration debounce; // Time the input must stay unchanged before it is checked
+    private final Function<T, String> check; // Check returning an error message, or null if the input is valid
+    private final ReadOnlyLongWrapper results = new ReadOnlyLongWrapper(); // Number of results posted so far
+    private T requested; // Latest input asked for
+    private ScheduledFuture<?> pending; // Check of the latest input, if not completed
+    private T checked; // Input of the latest result
+    private String error; // Error of the latest result
+    private boolean hasResult; // Whether a result was posted yet
+    private boolean failed; // Whether the latest result is a failed check, to run again on the next request
+
+    /**
+     * Constructs a field check.
+     *
+     * @param debounce The time the input must stay unchanged before it is checked.
+     * @param check    The check, returning an error message or null if the input is valid; run off the
+     *                 JavaFX thread.
+     */
+    public AsyncFieldCheck(Duration debounce, Function<T, String> check) {
+        this.debounce = debounce;
+        this.check = check;
+    }
+
+    /**
+     * Asks for an input to be checked, unless it is already checked or being checked.
+     *
+     * @param input The input.
+     */
+    public void request(T input) {
+        if (Objects.equals(input, requested) && (pending != null || (isChecked(input) && !failed))) {
+            return;
+        }
+        requested = input;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.schedule(() -> {
+            String result = run(input);
+            Platform.runLater(() -> post(input, result));
+        }, debounce.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retrieves the error of an input, if its check has completed.
+     *
+     * @param input The input.
+     * @return The error message, or null if the input is valid or not checked yet.
+     */
+    public String errorFor(T input) {
+        return isChecked(input) ? error : null;
+    }
+
+    /**
+     * Checks whether the result of an input is known.
+     *
+     * @param input The input.
+     * @return True if the latest result is for the input.
+     */
+    public boolean isChecked(T input) {
+        return hasResult && Objects.equals(input, checked);
+    }
+
+    /**
+     * Checks an input right away on the calling thread, unless its result is already known.
+     * Used when the form is submitted, so no input is accepted before its check completed.
+     *
+     * @param input The input.
+     * @return The error message, or null if the input is valid.
+     */
+    public String checkNow(T input) {
+        if (!isChecked(input) || failed) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            requested = input;
+            post(input, run(input));
+        }
+        return error;
+    }
+
+    /**
+     * Runs the check of an input, turning a failure into an error result.
+     * A check that throws must still post a result, or the field would stay pending forever.
+     *
+     * @param input The input.
+     * @return The error message, or null if the input is valid.
+     */
+    private String run(T input) {
+        try {
+            return check.apply(input);
+        } catch (RuntimeException e) {
+            logger.warn("Field check failed, reporting it as an error", e);
+            return CHECK_FAILED;
+        }
+    }
+
+    /**
+     * Retrieves the number of results posted so far, which changes whenever a check completes.
+     *
+     * @return The property.
+     */
+    public ReadOnlyLongProperty resultsProperty() {
+        return results.getReadOnlyProperty();
+    }
+
+    /**
+     * Records the result of a check, unless a newer input was asked for in the meantime.
+     *
+     * @param input  The input checked.
+     * @param result The error message, or null if the input is valid.
+     */
+    private void post(T input, String result) {
+        if (!Objects.equals(input, requested)) {
+            return; // Stale: the field changed while the check was running
+        }
+        pending = null;
+        checked = input;
+        error = result;
+        failed = result == CHECK_FAILED;
+        hasResult = true;
+        results.set(results.get() + 1);
+    }
+}
@@ -7,6 +7,7 @@ import com.zynotic.studios.quadsquad.questlog.entities.User;
 import com.zynotic.studios.quadsquad.questlog.entities.UserPhoneNumber;
 import com.zynotic.studios.quadsquad.questlog.enums.Gender;
 import com.zynotic.studios.quadsquad.questlog.services.DataService;
+import com.zynotic.studios.quadsquad.questlog.utils.Countries;
 import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Control;
@@ -15,18 +16,18 @@ import net.synedra.validatorfx.Check;
 import net.synedra.validatorfx.Decoration;
 import net.synedra.validatorfx.ValidationMessage;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getRequiredApplicationProperty;
-import static com.zynotic.studios.quadsquad.questlog.entities.UserPhoneNumber.getCountries;
 
 /**
  * Utility class for input validation
@@ -50,17 +51,8 @@ public class SignUpInputValidation {
     private static final Pattern patternEmail = Pattern.compile(regexEmail);
     private static final Pattern patternPassword = Pattern.compile(regexPassword);
 
-    // Array of country codes
-    private static final String[] countryCodes;
-
-    // Static block to initialize country codes
-    static {
-        try {
-            countryCodes = getCountries();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
+    // Time a field must stay unchanged before its expensive checks run
+    private static final Duration checkDebounce = Duration.ofMillis(300);
 
     /**
      * Creates a decoration for the sign-up form.
@@ -117,6 +109,48 @@ public class SignUpInputValidation {
         };
     }
 
+    // Background checks
+
+    /**
+     * Creates the background check of whether a username is taken.
+     *
+     * @param usersService the users service
+     * @return the check of a username
+     */
+    public static AsyncFieldCheck<String> usernameAvailabilityCheck(DataService<User> usersService) {
+        return new AsyncFieldCheck<>(checkDebounce, username -> usersService.isDuplicate("username", username) ? "Username already exists" : null);
+    }
+
+    /**
+     * Creates the background check of whether an email address is taken.
+     *
+     * @param usersService the users service
+     * @return the check of an email address
+     */
+    public static AsyncFieldCheck<String> emailAvailabilityCheck(DataService<User> usersService) {
+        return new AsyncFieldCheck<>(checkDebounce, email -> usersService.isDuplicate("email", email) ? "Email address already exists" : null);
+    }
+
+    /**
+     * Creates the background check of a phone number, parsing and validating it and checking whether it is taken.
+     *
+     * @param usersService the users service
+     * @return the check of a [country code, subscriber number] pair
+     */
+    public static AsyncFieldCheck<List<String>> phoneNumberCheck(DataService<User> usersService) {
+        return new AsyncFieldCheck<>(checkDebounce, input -> {
+            UserPhoneNumber phoneNumber = new UserPhoneNumber(input.get(0), input.get(1), PhoneNumberUtil.PhoneNumberType.MOBILE);
+            if (phoneNumber.impossibleReason() != null) {
+                return phoneNumber.impossibleReason();
+            } else if (!phoneNumber.isValid()) {
+                return "Invalid phone number";
+            } else if (usersService.isDuplicate("phoneNumber", phoneNumber)) {
+                return "Phone number already exists";
+            }
+            return null;
+        });
+    }
+
     // Validation methods
 
     /**
@@ -143,10 +177,13 @@ public class SignUpInputValidation {
     /**
      * Validates the username field.
      *
+     * The availability of a well-formed username is checked in the background.
+     *
      * @param c the Check.Context
+     * @param availabilityCheck the background check of the username's availability
      * @param touchedUsername indicates if the username field has been touched
      */
-    public static void validatorUsername(Check.Context c, DataService<User> usersService, AtomicBoolean touchedUsername) {
+    public static void validatorUsername(Check.Context c, AsyncFieldCheck<String> availabilityCheck, AtomicBoolean touchedUsername) {
         String username = c.get("username");
         Matcher matcher = patternUsername.matcher(username);
         if (username.isEmpty()) {
@@ -158,8 +195,10 @@ public class SignUpInputValidation {
             if (!matcher.matches()) {
                 c.error("Username can only contain letters (a-z) and digits (0-9)");
             } else {
-                if (usersService.isDuplicate("username", username)) {
-                    c.error("Username already exists");
+                availabilityCheck.request(username);
+                String error = availabilityCheck.errorFor(username);
+                if (error != null) {
+                    c.error(error);
                 }
             }
         }
@@ -168,10 +207,13 @@ public class SignUpInputValidation {
     /**
      * Validates the username field.
      *
+     * The availability of a well-formed email address is checked in the background.
+     *
      * @param c the Check.Context
+     * @param availabilityCheck the background check of the email address's availability
      * @param touchedEmail indicates if the email field has been touched
      */
-    public static void validatorEmail(Check.Context c, DataService<User> usersService, AtomicBoolean touchedEmail) {
+    public static void validatorEmail(Check.Context c, AsyncFieldCheck<String> availabilityCheck, AtomicBoolean touchedEmail) {
         String email = c.get("email");
         Matcher matcher = patternEmail.matcher(email);
         if (email.isEmpty()) {
@@ -183,8 +225,10 @@ public class SignUpInputValidation {
             if (!matcher.matches()) {
                 c.error("Please enter a valid email address");
             } else {
-                if (usersService.isDuplicate("email", email)) {
-                    c.error("Email address already exists");
+                availabilityCheck.request(email);
+                String error = availabilityCheck.errorFor(email);
+                if (error != null) {
+                    c.error(error);
                 }
             }
         }
@@ -194,10 +238,13 @@ public class SignUpInputValidation {
     /**
      * Validates the phone number field.
      *
+     * Numbers with a known country code are parsed, validated and checked for availability in the background.
+     *
      * @param c the Check.Context
+     * @param phoneNumberCheck the background check of the phone number
      * @param touchedPhoneNumber indicates if the phone number field has been touched
      */
-    public static void validatorPhoneNumber(Check.Context c, DataService<User> usersService, AtomicBoolean touchedPhoneNumber) {
+    public static void validatorPhoneNumber(Check.Context c, AsyncFieldCheck<List<String>> phoneNumberCheck, AtomicBoolean touchedPhoneNumber) {
         String phoneNumberCountryCode = c.get("phoneNumberCountryCode");
         String phoneNumberSubscriberNumber = c.get("phoneNumberSubscriberNumber");
         if (phoneNumberSubscriberNumber.isEmpty()) {
@@ -206,20 +253,14 @@ public class SignUpInputValidation {
             }
         } else {
             touchedPhoneNumber.set(true);
-            if (!Arrays.asList(countryCodes).contains(phoneNumberCountryCode)) {
+            if (!Countries.isCountryCode(phoneNumberCountryCode)) {
                 c.error("Invalid country code");
             } else {
-                UserPhoneNumber phoneNumber = new UserPhoneNumber(phoneNumberCountryCode, phoneNumberSubscriberNumber, PhoneNumberUtil.PhoneNumberType.MOBILE);
-                if (phoneNumber.impossibleReason() != null) {
-                    c.error(phoneNumber.impossibleReason());
-                } else {
-                    if (!phoneNumber.isValid()) {
-                        c.error("Invalid phone number");
-                    } else {
-                        if (usersService.isDuplicate("phoneNumber", phoneNumber)) {
-                            c.error("Phone number already exists");
-                        }
-                    }
+                List<String> phoneNumber = List.of(phoneNumberCountryCode, phoneNumberSubscriberNumber);
+                phoneNumberCheck.request(phoneNumber);
+                String error = phoneNumberCheck.errorFor(phoneNumber);
+                if (error != null) {
+                    c.error(error);
                 }
             }
         }
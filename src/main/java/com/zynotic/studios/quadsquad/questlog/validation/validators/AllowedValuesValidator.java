@@ -6,20 +6,25 @@ import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 public class AllowedValuesValidator implements ConstraintValidator<AllowedValues, Object> {
 
-    private String[] valueList;
-    private Class<? extends Enum<?>> enumClass;
-    private Enum<?>[] enumConstants;
+    private Class<? extends Enum<?>> enumClass; // Enum whose constants are allowed, if any
+    private Set<String> accepted; // Allowed values and enum constant names
 
     @Override
     public void initialize(AllowedValues constraintAnnotation) {
-        this.valueList = constraintAnnotation.valueList();
-        this.enumClass = constraintAnnotation.enumClass();
-        if (enumClass != null && enumClass != DefaultEnum.class && enumClass.isEnum()) {
-            this.enumConstants = enumClass.getEnumConstants();
+        Set<String> values = new HashSet<>(Arrays.asList(constraintAnnotation.valueList()));
+        Class<? extends Enum<?>> annotatedEnum = constraintAnnotation.enumClass();
+        if (annotatedEnum != null && annotatedEnum != DefaultEnum.class && annotatedEnum.isEnum()) {
+            this.enumClass = annotatedEnum;
+            for (Enum<?> enumValue : annotatedEnum.getEnumConstants()) {
+                values.add(enumValue.name());
+            }
         }
+        this.accepted = Set.copyOf(values);
     }
 
     @Override
@@ -28,18 +33,10 @@ public class AllowedValuesValidator implements ConstraintValidator<AllowedValues
             return true; // Null values are considered valid
         }
 
-        if (enumClass != null && enumClass != DefaultEnum.class && enumClass.isEnum()) {
-            for (Enum<?> enumValue : enumConstants) {
-                if (enumValue.name().equals(value.toString())) {
-                    return true;
-                }
-            }
-        }
-
-        if (valueList.length > 0) {
-            return Arrays.asList(valueList).contains(value.toString());
+        if (enumClass != null && enumClass.isInstance(value)) {
+            return true; // Every constant of the enum is allowed
         }
 
-        return false;
+        return accepted.contains(value.toString());
     }
-}
\ No newline at end of file
+}
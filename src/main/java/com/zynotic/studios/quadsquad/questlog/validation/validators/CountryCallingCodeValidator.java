@@ -0,0 +1,18 @@
+package com.zynotic.studios.quadsquad.questlog.validation.validators;
+
+import com.zynotic.studios.quadsquad.questlog.annotations.CountryCallingCode;
+import com.zynotic.studios.quadsquad.questlog.utils.Countries;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class CountryCallingCodeValidator implements ConstraintValidator<CountryCallingCode, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true; // Null values are considered valid
+        }
+
+        return Countries.isCallingCode(value);
+    }
+}
@@ -0,0 +1,18 @@
+package com.zynotic.studios.quadsquad.questlog.validation.validators;
+
+import com.zynotic.studios.quadsquad.questlog.annotations.CountryCode;
+import com.zynotic.studios.quadsquad.questlog.utils.Countries;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class CountryCodeValidator implements ConstraintValidator<CountryCode, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true; // Null values are considered valid
+        }
+
+        return Countries.isCountryCode(value);
+    }
+}
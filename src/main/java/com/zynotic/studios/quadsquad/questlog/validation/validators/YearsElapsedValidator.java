@@ -1,19 +1,15 @@
 package com.zynotic.studios.quadsquad.questlog.validation.validators;
 
 import com.zynotic.studios.quadsquad.questlog.annotations.YearsElapsed;
+import com.zynotic.studios.quadsquad.questlog.utils.TimeZones;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
 import java.time.LocalDate;
 import java.time.Period;
-import java.time.ZoneId;
-
-import static com.zynotic.studios.quadsquad.questlog.configs.AppConfig.getRequiredApplicationProperty;
 
 public class YearsElapsedValidator implements ConstraintValidator<YearsElapsed, LocalDate> {
 
-    private static final String APP_DEFAULT_TIMEZONE = getRequiredApplicationProperty("APP_DEFAULT_TIMEZONE");
-
     private int minYears;
     private int maxYears;
 
@@ -29,7 +25,7 @@ public class YearsElapsedValidator implements ConstraintValidator<YearsElapsed,
             return true; // Null values are considered valid
         }
 
-        LocalDate now = LocalDate.now(ZoneId.of(APP_DEFAULT_TIMEZONE));
+        LocalDate now = TimeZones.today();
         int yearsElapsed = Period.between(value, now).getYears();
 
         return yearsElapsed >= minYears && yearsElapsed <= maxYears;
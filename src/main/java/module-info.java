@@ -4,6 +4,7 @@ module com.zynotic.studios.quadsquad.questlog {
     requires atlantafx.base;
     requires net.synedra.validatorfx;
     requires java.logging;
+    requires jdk.management;
     requires org.kordamp.ikonli.javafx;
     requires org.kordamp.ikonli.core;
     requires org.kordamp.ikonli.material2;
@@ -0,0 +1,136 @@
+/*
+ * EntityCodecsTest.java
+ * Tests of the streaming JSON codecs of the entities against reflective binding.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.entities;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link EntityCodecs}: each codec writes and reads exactly what reflective binding of the
+ * {@code @JsonProperty} fields does. The sample entities are filled from those fields, so a field added to
+ * an entity but not to its codec fails these tests instead of being dropped silently.
+ */
+class EntityCodecsTest {
+    private static final ObjectMapper codecs = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(EntityCodecs.module()); // Mapper using the codecs
+    private static final ObjectMapper reflective = new ObjectMapper()
+            .registerModule(new JavaTimeModule()); // Mapper binding the annotated fields reflectively
+
+    @ParameterizedTest
+    @ValueSource(classes = {Task.class, Project.class, User.class, UserPassword.class, UserPhoneNumber.class, UserSession.class})
+    void serializerWritesWhatReflectiveBindingWrites(Class<?> type) throws Exception {
+        Object entity = sample(type);
+
+        assertEquals(reflective.valueToTree(entity), codecs.valueToTree(entity));
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = {Task.class, Project.class, User.class, UserPassword.class, UserPhoneNumber.class, UserSession.class})
+    void deserializerReadsWhatReflectiveBindingReads(Class<?> type) throws Exception {
+        JsonNode json = reflective.valueToTree(sample(type));
+
+        Object decoded = codecs.treeToValue(json, type);
+
+        assertEquals(json, reflective.valueToTree(decoded));
+        assertEquals(reflective.valueToTree(reflective.treeToValue(json, type)), reflective.valueToTree(decoded));
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = {Task.class, Project.class, User.class, UserPassword.class, UserPhoneNumber.class, UserSession.class})
+    void writtenKeysAreTheAnnotatedFields(Class<?> type) throws Exception {
+        List<String> keys = new ArrayList<>();
+        codecs.valueToTree(sample(type)).fieldNames().forEachRemaining(keys::add);
+
+        assertEquals(jsonFields(type).stream().map(field -> field.getAnnotation(JsonProperty.class).value()).sorted().toList(),
+                keys.stream().sorted().toList());
+    }
+
+    /**
+     * Creates an entity with every {@code @JsonProperty} field set to a distinct value.
+     *
+     * @param type The entity class.
+     * @return The entity.
+     * @throws Exception If the entity cannot be created.
+     */
+    private static Object sample(Class<?> type) throws Exception {
+        Object entity = type.getDeclaredConstructor().newInstance();
+        int seed = 1;
+        for (Field field : jsonFields(type)) {
+            field.setAccessible(true);
+            field.set(entity, sampleValue(field.getType(), field.getName(), seed++));
+        }
+        return entity;
+    }
+
+    /**
+     * Creates a sample value of a field type.
+     *
+     * @param type The field type.
+     * @param name The field name, to tell string values apart.
+     * @param seed A number distinct for each field of an entity.
+     * @return The value.
+     * @throws Exception If a nested entity cannot be created.
+     */
+    private static Object sampleValue(Class<?> type, String name, int seed) throws Exception {
+        if (type == int.class || type == Integer.class) {
+            return seed;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return true;
+        } else if (type == String.class) {
+            return name.equals("timezone") ? "Asia/Dhaka" : name + "-" + seed; // Dates of users are read in their timezone
+        } else if (type == Instant.class) {
+            return Instant.ofEpochSecond(1_700_000_000L + seed, 123_456_789);
+        } else if (type == LocalDate.class) {
+            return LocalDate.of(2000, 1, seed % 28 + 1);
+        } else if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return constants[seed % constants.length];
+        } else if (type == Charset.class) {
+            return StandardCharsets.UTF_8;
+        }
+        return sample(type);
+    }
+
+    /**
+     * Finds the fields of an entity class mapped to JSON keys.
+     *
+     * @param type The entity class.
+     * @return The fields, in declaration order.
+     */
+    private static List<Field> jsonFields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(JsonProperty.class)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * CompiledConstraintsTest.java
+ * Tests of the compiled constraint checks against Hibernate Validator.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Field;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link CompiledConstraints}: on the fields of the real entities, every compiled check reports
+ * the same violations as Hibernate Validator does for the same value, valid or not.
+ */
+class CompiledConstraintsTest {
+    private static final List<String> TEXTS = List.of("", " ", "a", "ab", "tester", "tester1", "Tester", "tester!",
+            "tester@example.com", "Task title", "BD", "US", "XX", "880", "1", "12345", "1712345678", "MOBILE",
+            "FIXED_LINE", "MALE", "FEMALE", "Asia/Dhaka", "UTC", "Nowhere/City", "a".repeat(31), "a".repeat(101),
+            "a".repeat(256), "a".repeat(5000)); // Text values checked on every textual field
+    private static final List<Integer> NUMBERS = List.of(-1, 0, 1, 2, 3, 4, 100, Integer.MAX_VALUE); // Values checked on every integral field
+
+    @ParameterizedTest
+    @ValueSource(classes = {Task.class, Project.class, User.class, UserSession.class})
+    void compiledChecksReportWhatHibernateReports(Class<?> type) {
+        assertTrue(CompiledConstraints.supportsClass(type));
+        int compiled = 0;
+        for (Field field : CompiledConstraints.constrainedFields(type)) {
+            List<CompiledConstraints.Check> checks = CompiledConstraints.compile(field);
+            if (checks == null) {
+                continue;
+            }
+            compiled++;
+            for (Object value : samples(field.getType())) {
+                List<String> expected = new ArrayList<>();
+                EntityType.validator().validateValue(type, field.getName(), value).forEach(violation -> expected.add(violation.getMessage()));
+                List<String> actual = new ArrayList<>();
+                for (CompiledConstraints.Check check : checks) {
+                    if (!check.test().test(value)) {
+                        actual.add(check.message());
+                    }
+                }
+                assertEquals(expected.stream().sorted().toList(), actual.stream().sorted().toList(),
+                        () -> type.getSimpleName() + "." + field.getName() + " = " + value);
+            }
+        }
+        assertTrue(compiled > 0, "No field of " + type.getSimpleName() + " is compiled");
+    }
+
+    /**
+     * Creates the values checked on a field of a given type, including null.
+     *
+     * @param type The field type.
+     * @return The values.
+     */
+    private static List<Object> samples(Class<?> type) {
+        List<Object> values = new ArrayList<>();
+        if (!type.isPrimitive()) {
+            values.add(null);
+        }
+        Instant now = Instant.now();
+        if (CharSequence.class.isAssignableFrom(type)) {
+            values.addAll(TEXTS);
+        } else if (type == int.class || type == Integer.class) {
+            values.addAll(NUMBERS);
+        } else if (type == long.class || type == Long.class) {
+            NUMBERS.forEach(number -> values.add((long) number));
+        } else if (type == boolean.class || type == Boolean.class) {
+            values.addAll(List.of(true, false));
+        } else if (type == Instant.class) {
+            values.addAll(Stream.of(-36500, -1, 1, 36500).map(days -> now.plus(Duration.ofDays(days))).toList());
+        } else if (type == ZonedDateTime.class) {
+            values.addAll(Stream.of(-36500, -1, 1, 36500).map(days -> now.plus(Duration.ofDays(days)).atZone(ZoneOffset.UTC)).toList());
+        } else if (type == LocalDate.class) {
+            LocalDate today = LocalDate.now();
+            values.addAll(List.of(today.minusYears(150), today.minusYears(20), today.minusYears(5), today.minusDays(1), today.plusDays(1)));
+        } else if (type.isEnum()) {
+            values.addAll(Arrays.asList(type.getEnumConstants()));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * CredentialHasherTest.java
+ * Tests of background password hashing, verification and rehashing.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.entities.UserPassword;
+import com.zynotic.studios.quadsquad.questlog.entities.UserPhoneNumber;
+import com.zynotic.studios.quadsquad.questlog.enums.Gender;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link CredentialHasher}: a password verified at a cost below the calibrated one is hashed again
+ * and saved, while the user the caller holds is left as it is, and calibration never picks fewer iterations
+ * than the default.
+ */
+class CredentialHasherTest {
+    private static final long TIMEOUT_SECONDS = 60; // Longest wait for a background hash
+
+    @TempDir
+    Path directory; // Directory of the data files of a test
+
+    @Test
+    void passwordBelowTargetIsRehashedOnSignIn() throws Exception {
+        DataService<User> users = new DataService<>(directory.resolve("users.json").toString(), User.class);
+        users.addData(user(hashed("secret", 1)));
+        User held = users.getDataByKeyValue("username", "tester").orElseThrow();
+
+        assertTrue(CredentialHasher.verify(held, "secret", users).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (users.getDataById(held.getId()).orElseThrow().getPassword().getIterations() == 1) {
+            assertTrue(System.nanoTime() < deadline, "Password was not rehashed");
+            Thread.sleep(50);
+        }
+        User stored = users.getDataById(held.getId()).orElseThrow();
+        assertTrue(stored.getPassword().getIterations() >= UserPassword.ZPU_DEFAULT_ITERATIONS);
+        assertTrue(stored.verifyPassword("secret"));
+        assertEquals(1, held.getPassword().getIterations());
+    }
+
+    @Test
+    void wrongPasswordIsRejectedAndNotRehashed() throws Exception {
+        DataService<User> users = new DataService<>(directory.resolve("users.json").toString(), User.class);
+        users.addData(user(hashed("secret", 1)));
+        User held = users.getDataByKeyValue("username", "tester").orElseThrow();
+
+        assertFalse(CredentialHasher.verify(held, "guess", users).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CredentialHasher.hash("other").get(TIMEOUT_SECONDS, TimeUnit.SECONDS); // Runs after a rehash would have been queued
+
+        assertEquals(1, users.getDataById(held.getId()).orElseThrow().getPassword().getIterations());
+    }
+
+    @Test
+    void calibrationAimsAtTheTargetTime() {
+        long millisecond = TimeUnit.MILLISECONDS.toNanos(1);
+
+        // 10 ms per iteration on top of a fixed 10 ms
+        assertEquals(49, CredentialHasher.calibratedIterations(500 * millisecond, 20 * millisecond, 40 * millisecond));
+    }
+
+    @Test
+    void calibrationNeverGoesBelowTheDefaultIterations() {
+        long millisecond = TimeUnit.MILLISECONDS.toNanos(1);
+
+        assertEquals(UserPassword.ZPU_DEFAULT_ITERATIONS, CredentialHasher.calibratedIterations(500 * millisecond, 400 * millisecond, 1200 * millisecond));
+        assertEquals(UserPassword.ZPU_DEFAULT_ITERATIONS, CredentialHasher.calibratedIterations(millisecond, 500 * millisecond, 500 * millisecond));
+    }
+
+    @Test
+    void newPasswordsAreHashedWithTheCalibratedParameters() throws Exception {
+        CredentialHasher.calibrate();
+
+        UserPassword hashed = CredentialHasher.hash("secret").get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(hashed.getIterations() >= UserPassword.ZPU_DEFAULT_ITERATIONS);
+        assertEquals(UserPassword.ZPU_DEFAULT_MEMORY, hashed.getMemory());
+        assertEquals(CredentialHasher.lanes(), hashed.getParallelism());
+    }
+
+    /**
+     * Hashes a password at the default memory with a given number of iterations.
+     *
+     * @param password   The plain text password.
+     * @param iterations The iterations.
+     * @return The hashed password.
+     */
+    static UserPassword hashed(String password, int iterations) {
+        UserPassword hashed = new UserPassword(iterations, UserPassword.ZPU_DEFAULT_MEMORY, 1);
+        hashed.setPassword(password);
+        hashed.hashPassword();
+        return hashed;
+    }
+
+    /**
+     * Creates a valid user with a given password.
+     *
+     * @param password The hashed password.
+     * @return The user.
+     */
+    private static User user(UserPassword password) {
+        return new User("Test User", LocalDate.now().minusYears(20), Gender.MALE, "tester", password, "tester@example.com",
+                new UserPhoneNumber("BD", "1712345678", PhoneNumberUtil.PhoneNumberType.MOBILE));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * DataIndexTest.java
+ * Tests of the secondary indexes and their Bloom filters.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.UserSession;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link DataIndex} and {@link DataBloomFilter}: lookups after records are re-indexed under
+ * other keys, range lookups of ordered indexes, and rebuilding the filter.
+ */
+class DataIndexTest {
+    private static final EntityType<UserSession> SESSIONS = EntityType.of(UserSession.class); // Type of the indexed records
+
+    @Test
+    void reindexedRecordIsOnlyFoundUnderItsNewKey() {
+        DataIndex index = new DataIndex(SESSIONS.field("tag"), false);
+        index.put(0, session(0, "old", 0));
+        index.put(1, session(1, "shared", 0));
+        index.put(2, session(2, "shared", 0));
+
+        index.put(0, session(0, "new", 0));
+        index.put(1, session(1, "shared", 0)); // Same key, nothing to re-index
+
+        assertEquals(Set.of(), index.get("old"));
+        assertEquals(Set.of(0), index.get("new"));
+        assertEquals(Set.of(1, 2), index.get("shared"));
+        assertTrue(index.mightContain("new"));
+        assertTrue(index.mightContain("shared"));
+
+        index.remove(1);
+        assertEquals(Set.of(2), index.get("shared"));
+        index.remove(2);
+        assertEquals(Set.of(), index.get("shared"));
+    }
+
+    @Test
+    void nullKeysAreIndexedSeparately() {
+        DataIndex index = new DataIndex(SESSIONS.field("tag"), false);
+        assertFalse(index.mightContain(null));
+        index.put(0, session(0, null, 0));
+        assertTrue(index.mightContain(null));
+        assertEquals(Set.of(0), index.get(null));
+        index.put(0, session(0, "set", 0));
+        assertFalse(index.mightContain(null));
+        assertEquals(Set.of(0), index.get("set"));
+    }
+
+    @Test
+    void filterHasNoFalseNegativesAsItGrows() {
+        DataIndex index = new DataIndex(SESSIONS.field("tag"), false);
+        for (int id = 0; id < 1000; id++) {
+            index.put(id, session(id, "tag" + id, 0));
+        }
+        for (int id = 0; id < 1000; id++) {
+            assertTrue(index.mightContain("tag" + id), "tag" + id);
+            assertEquals(Set.of(id), index.get("tag" + id));
+        }
+    }
+
+    @Test
+    void filterForgetsRemovedKeysOnceRebuilt() {
+        DataIndex index = new DataIndex(SESSIONS.field("tag"), false);
+        for (int id = 0; id < 100; id++) {
+            index.put(id, session(id, "tag" + id, 0));
+        }
+        // The 64th removal leaves fewer keys indexed than removed, so the filter is rebuilt without them
+        for (int id = 0; id < 100; id++) {
+            index.remove(id);
+        }
+        int falsePositives = 0;
+        for (int id = 0; id < 64; id++) {
+            if (index.mightContain("tag" + id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives <= 3, "false positives " + falsePositives);
+        for (int id = 64; id < 100; id++) {
+            assertTrue(index.mightContain("tag" + id)); // Removed since the rebuild, still set
+            assertEquals(Set.of(), index.get("tag" + id));
+        }
+    }
+
+    @Test
+    void orderedIndexFollowsUpdatedKeys() {
+        DataIndex index = new DataIndex(SESSIONS.field("expiresAt"), true);
+        for (int id = 0; id < 5; id++) {
+            index.put(id, session(id, "tag", id * 10));
+        }
+        index.put(4, session(4, "tag", 5));
+
+        assertEquals(List.of(0, 4, 1), index.range(Instant.ofEpochSecond(0), Instant.ofEpochSecond(11)));
+        assertEquals(List.of(2, 3), index.range(Instant.ofEpochSecond(11), null));
+        assertThrows(IllegalStateException.class, () -> new DataIndex(SESSIONS.field("tag"), false).range(null, null));
+    }
+
+    @Test
+    void bloomFilterIsFullAtItsCapacity() {
+        DataBloomFilter filter = new DataBloomFilter(64);
+        for (int i = 0; i < 63; i++) {
+            filter.add("value" + i);
+        }
+        assertFalse(filter.isFull());
+        filter.add("value63");
+        assertTrue(filter.isFull());
+        for (int i = 0; i < 64; i++) {
+            assertTrue(filter.mightContain("value" + i));
+        }
+    }
+
+    /**
+     * Creates a session for indexing.
+     *
+     * @param id        The ID of the session.
+     * @param tag       The tag of the session.
+     * @param expiresAt The expiry of the session, in seconds since the epoch.
+     * @return The session.
+     */
+    private static UserSession session(int id, String tag, long expiresAt) {
+        return DataStoreTest.withId(id, new UserSession(1, "device", tag, Instant.ofEpochSecond(expiresAt)));
+    }
+}
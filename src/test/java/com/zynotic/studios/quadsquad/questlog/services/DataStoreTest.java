@@ -0,0 +1,213 @@
+/*
+ * DataStoreTest.java
+ * Tests of flushing, merging and indexed lookups of data files.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.Task;
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.entities.UserSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link DataStore} through {@link DataService}: round trips through the write-behind flush, flushes
+ * that fail, merging changes written by another instance, and lookups served from the indexes as records
+ * change.
+ * Stores are shared per file for the whole process, so every test uses files of its own directory and
+ * reads a written file back through a copy.
+ */
+class DataStoreTest {
+    @TempDir
+    Path directory; // Directory of the data files of a test
+
+    @Test
+    void flushedChangesAreReadBack() throws IOException {
+        DataService<UserSession> sessions = sessions("sessions.json");
+        sessions.addData(session(1, "first"));
+        sessions.addData(session(2, "second"));
+        sessions.addData(session(3, "third"));
+        sessions.updateData(withId(1, session(2, "second, updated")));
+        sessions.deleteData(2);
+        sessions.flush();
+
+        Map<Integer, UserSession> read = byId(copyOf("sessions.json").readData());
+        assertEquals(List.of(0, 1), List.copyOf(read.keySet()));
+        assertEquals("first", read.get(0).getTag());
+        assertEquals("second, updated", read.get(1).getTag());
+        assertEquals(2, read.get(1).getUserId());
+        assertEquals(sessions.getDataById(0).orElseThrow().getExpiresAt(), read.get(0).getExpiresAt());
+    }
+
+    @Test
+    void failedFlushKeepsChangesUntilTheyAreWritten() throws IOException {
+        Path file = directory.resolve("sessions.json");
+        Path blocker = directory.resolve("sessions.json.tmp");
+        DataService<UserSession> sessions = sessions("sessions.json");
+        sessions.addData(session(1, "kept"));
+
+        Files.createDirectory(blocker); // The temporary file cannot be created in its place
+        sessions.flush();
+        assertFalse(Files.exists(file));
+        assertEquals("kept", sessions.getDataById(0).orElseThrow().getTag());
+
+        Files.delete(blocker);
+        sessions.flush();
+        assertEquals("kept", copyOf("sessions.json").getDataById(0).orElseThrow().getTag());
+    }
+
+    @Test
+    void flushMergesRecordsWrittenByAnotherInstance() throws IOException {
+        DataService<UserSession> sessions = sessions("sessions.json");
+        sessions.addData(session(1, "mine"));
+        sessions.addData(session(2, "unchanged"));
+        sessions.flush();
+
+        // Another instance updates record 1 and adds record 2
+        DataService<UserSession> other = sessions("other.json");
+        other.addData(session(1, "mine"));
+        other.addData(session(2, "updated by the other instance"));
+        other.addData(session(3, "added by the other instance"));
+        other.flush();
+
+        sessions.updateData(withId(0, session(1, "updated here")));
+        Files.copy(directory.resolve("other.json"), directory.resolve("sessions.json"), StandardCopyOption.REPLACE_EXISTING);
+        sessions.flush();
+
+        Map<Integer, UserSession> merged = byId(copyOf("sessions.json").readData());
+        assertEquals("updated here", merged.get(0).getTag());
+        assertEquals("updated by the other instance", merged.get(1).getTag());
+        assertEquals("added by the other instance", merged.get(2).getTag());
+        assertEquals(merged.keySet(), byId(sessions.readData()).keySet());
+    }
+
+    @Test
+    void readsShareRecordsAndEditsTakeCopies() throws IOException {
+        DataService<Task> tasks = new DataService<>(directory.resolve("tasks.json").toString(), Task.class);
+        Task added = task("Stored", null);
+        tasks.addData(added);
+        added.setTitle("Changed after adding");
+
+        Task stored = tasks.getDataById(0).orElseThrow();
+        assertEquals("Stored", stored.getTitle());
+        assertSame(stored, tasks.readData().get(0));
+        assertSame(stored, tasks.snapshot().getDataById(0).orElseThrow());
+
+        Task edited = tasks.editDataById(0).orElseThrow();
+        assertNotSame(stored, edited);
+        edited.setTitle("Edited");
+        assertEquals("Stored", tasks.getDataById(0).orElseThrow().getTitle());
+        tasks.updateData(edited);
+        edited.setTitle("Changed after updating");
+        assertEquals("Edited", tasks.getDataById(0).orElseThrow().getTitle());
+        assertEquals("Stored", stored.getTitle());
+        assertTrue(tasks.editDataById(1).isEmpty());
+    }
+
+    @Test
+    void rangeAndKeyLookupsFollowUpdates() throws IOException {
+        DataService<UserSession> sessions = sessions("sessions.json");
+        sessions.addData(session(1, "a"));
+        sessions.addData(session(2, "b"));
+        sessions.updateData(withId(0, session(5, "a")));
+
+        assertTrue(sessions.getDataByKeyValue("userId", 1).isEmpty());
+        assertEquals(0, sessions.getDataByKeyValue("userId", 5).orElseThrow().getId());
+        assertTrue(sessions.isDuplicate("sessionId", 1));
+        assertFalse(sessions.isDuplicate("sessionId", 2));
+    }
+
+    /**
+     * Creates a service over a data file of the test's directory.
+     *
+     * @param name The name of the data file.
+     * @return The service.
+     */
+    private DataService<UserSession> sessions(String name) {
+        return new DataService<>(directory.resolve(name).toString(), UserSession.class);
+    }
+
+    /**
+     * Copies a data file and creates a service over the copy, so the file is loaded from scratch.
+     *
+     * @param name The name of the data file.
+     * @return The service over the copy.
+     * @throws IOException If the file cannot be copied.
+     */
+    private DataService<UserSession> copyOf(String name) throws IOException {
+        Path copy = Files.createTempFile(directory, "copy", ".json");
+        Files.copy(directory.resolve(name), copy, StandardCopyOption.REPLACE_EXISTING);
+        return new DataService<>(copy.toString(), UserSession.class);
+    }
+
+    /**
+     * Creates a session expiring tomorrow.
+     *
+     * @param userId The ID of the user.
+     * @param tag    The tag of the session.
+     * @return The session.
+     */
+    static UserSession session(int userId, String tag) {
+        return new UserSession(userId, "device", tag, Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Sets the ID of a session, so it replaces the stored session with that ID.
+     *
+     * @param id      The ID.
+     * @param session The session.
+     * @return The session.
+     */
+    static UserSession withId(int id, UserSession session) {
+        session.setId(id);
+        return session;
+    }
+
+    /**
+     * Maps records by ID, in ID order.
+     *
+     * @param records The records.
+     * @return The records by ID.
+     */
+    static Map<Integer, UserSession> byId(List<UserSession> records) {
+        return records.stream().collect(Collectors.toMap(UserSession::getId, Function.identity(), (a, b) -> a, TreeMap::new));
+    }
+
+    /**
+     * Creates a task of the test user due tomorrow.
+     *
+     * @param title       The title.
+     * @param description The description, or null.
+     * @return The task.
+     */
+    static Task task(String title, String description) {
+        User user = new User();
+        user.setUsername("tester");
+        return new Task(user, null, title, description, ZonedDateTime.now().plusDays(1));
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * DataTransactionTest.java
+ * Tests of all-or-nothing batches of changes.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.Task;
+import com.zynotic.studios.quadsquad.questlog.entities.UserSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link DataTransaction}: committing changes to several data files, leaving every file untouched
+ * when any change is rejected, keeping what another instance wrote to a file, and rolling an interrupted
+ * commit forward or discarding an undecided one, within one data directory and across several.
+ */
+class DataTransactionTest {
+    @TempDir
+    Path directory; // Directory of the data files of a test
+
+    @Test
+    void commitWritesEveryFile() throws IOException {
+        DataService<UserSession> sessions = new DataService<>(directory.resolve("sessions.json").toString(), UserSession.class);
+        DataService<Task> tasks = new DataService<>(directory.resolve("tasks.json").toString(), Task.class);
+        sessions.addData(DataStoreTest.session(1, "existing"));
+
+        DataTransaction transaction = new DataTransaction();
+        UserSession added = transaction.add(sessions, DataStoreTest.session(2, "added"));
+        transaction.update(sessions, DataStoreTest.withId(0, DataStoreTest.session(1, "updated")));
+        transaction.add(tasks, DataStoreTest.task("Task", "Description"));
+        assertTrue(transaction.commit());
+
+        assertEquals(1, added.getId());
+        assertEquals("updated", sessions.getDataById(0).orElseThrow().getTag());
+        assertEquals("added", sessions.getDataById(1).orElseThrow().getTag());
+        assertEquals(Optional.of("Description"), tasks.getDeferredValue(0, "description"));
+        assertTrue(Files.readString(directory.resolve("sessions.json")).contains("\"updated\""));
+        assertTrue(Files.readString(directory.resolve("tasks.json")).contains("\"Description\""));
+        assertFalse(Files.exists(directory.resolve(".questlog-commit")));
+        assertThrows(IllegalStateException.class, transaction::commit);
+    }
+
+    @Test
+    void rejectedChangeLeavesEveryFileUntouched() throws IOException {
+        DataService<UserSession> sessions = new DataService<>(directory.resolve("sessions.json").toString(), UserSession.class);
+        DataService<Task> tasks = new DataService<>(directory.resolve("tasks.json").toString(), Task.class);
+        sessions.addData(DataStoreTest.session(1, "existing"));
+        sessions.flush();
+        String before = Files.readString(directory.resolve("sessions.json"));
+
+        DataTransaction transaction = new DataTransaction();
+        transaction.update(sessions, DataStoreTest.withId(0, DataStoreTest.session(1, "updated")));
+        transaction.add(tasks, DataStoreTest.task(" ", null)); // Blank titles are invalid
+        assertFalse(transaction.commit());
+
+        assertEquals("existing", sessions.getDataById(0).orElseThrow().getTag());
+        assertTrue(tasks.readData().isEmpty());
+        assertEquals(before, Files.readString(directory.resolve("sessions.json")));
+        assertFalse(Files.exists(directory.resolve("tasks.json")));
+    }
+
+    @Test
+    void updateOfDeletedDataIsRejected() throws IOException {
+        DataService<UserSession> sessions = new DataService<>(directory.resolve("sessions.json").toString(), UserSession.class);
+        sessions.addData(DataStoreTest.session(1, "existing"));
+
+        DataTransaction transaction = new DataTransaction();
+        transaction.add(sessions, DataStoreTest.session(2, "added"));
+        transaction.update(sessions, DataStoreTest.withId(0, DataStoreTest.session(1, "updated")));
+        sessions.deleteData(0);
+        assertFalse(transaction.commit());
+
+        assertTrue(sessions.readData().isEmpty());
+    }
+
+    @Test
+    void commitKeepsRecordsAnotherInstanceWrote() throws IOException {
+        DataService<UserSession> sessions = new DataService<>(directory.resolve("sessions.json").toString(), UserSession.class);
+        DataService<Task> tasks = new DataService<>(directory.resolve("tasks.json").toString(), Task.class);
+        sessions.addData(DataStoreTest.session(1, "mine"));
+        sessions.flush();
+
+        // Another instance adds record 5 while this one holds an unflushed update of record 0
+        DataService<UserSession> other = new DataService<>(directory.resolve("other.json").toString(), UserSession.class);
+        other.writeData(List.of(DataStoreTest.withId(0, DataStoreTest.session(1, "mine")), DataStoreTest.withId(5, DataStoreTest.session(2, "theirs"))));
+        other.flush();
+        sessions.updateData(DataStoreTest.withId(0, DataStoreTest.session(1, "updated here")));
+        Files.copy(directory.resolve("other.json"), directory.resolve("sessions.json"), StandardCopyOption.REPLACE_EXISTING);
+
+        DataTransaction transaction = new DataTransaction();
+        UserSession added = transaction.add(sessions, DataStoreTest.session(3, "added"));
+        transaction.add(tasks, DataStoreTest.task("Task", null));
+        assertTrue(transaction.commit());
+
+        Map<Integer, UserSession> written = DataStoreTest.byId(new DataService<>(copyOf(directory.resolve("sessions.json")).toString(), UserSession.class).readData());
+        assertEquals(List.of(0, 1, 5), List.copyOf(written.keySet()));
+        assertEquals("updated here", written.get(0).getTag());
+        assertEquals("added", written.get(added.getId()).getTag());
+        assertEquals("theirs", written.get(5).getTag());
+        assertEquals("theirs", sessions.getDataById(5).orElseThrow().getTag());
+    }
+
+    @Test
+    void commitOfAnIdAnotherInstanceTookIsRejected() throws IOException {
+        DataService<UserSession> sessions = new DataService<>(directory.resolve("sessions.json").toString(), UserSession.class);
+        sessions.addData(DataStoreTest.session(1, "mine"));
+        sessions.flush();
+
+        DataTransaction transaction = new DataTransaction();
+        transaction.add(sessions, DataStoreTest.session(3, "added"));
+
+        // Another instance adds a record under the ID the transaction staged
+        DataService<UserSession> other = new DataService<>(directory.resolve("other.json").toString(), UserSession.class);
+        other.writeData(List.of(DataStoreTest.withId(0, DataStoreTest.session(1, "mine")), DataStoreTest.withId(1, DataStoreTest.session(2, "theirs"))));
+        other.flush();
+        Files.copy(directory.resolve("other.json"), directory.resolve("sessions.json"), StandardCopyOption.REPLACE_EXISTING);
+        String theirs = Files.readString(directory.resolve("sessions.json"));
+
+        assertFalse(transaction.commit());
+
+        assertEquals(theirs, Files.readString(directory.resolve("sessions.json")));
+        assertEquals("theirs", sessions.getDataById(1).orElseThrow().getTag());
+    }
+
+    @Test
+    void interruptedCommitIsRolledForward() throws IOException {
+        // A commit that stopped after writing its marker, before moving the files in place
+        Path target = directory.resolve("sessions.json");
+        Path temp = directory.resolve("sessions.json.tx");
+        Files.writeString(temp, sessionFile("committed"));
+        Files.writeString(target, "{\"data\":[]}");
+        Files.writeString(directory.resolve(".questlog-commit"), temp + "\t" + target + "\n", StandardCharsets.UTF_8);
+
+        DataService<UserSession> sessions = new DataService<>(target.toString(), UserSession.class);
+
+        assertEquals(List.of("committed"), sessions.readData().stream().map(UserSession::getTag).toList());
+        assertFalse(Files.exists(temp));
+        assertFalse(Files.exists(directory.resolve(".questlog-commit")));
+    }
+
+    @Test
+    void commitAcrossDirectoriesLeavesNoMarkers() throws IOException {
+        Path first = Files.createDirectory(directory.resolve("first"));
+        Path second = Files.createDirectory(directory.resolve("second"));
+        DataService<UserSession> sessions = new DataService<>(first.resolve("sessions.json").toString(), UserSession.class);
+        DataService<Task> tasks = new DataService<>(second.resolve("tasks.json").toString(), Task.class);
+
+        DataTransaction transaction = new DataTransaction();
+        transaction.add(sessions, DataStoreTest.session(1, "added"));
+        transaction.add(tasks, DataStoreTest.task("Task", null));
+        assertTrue(transaction.commit());
+
+        assertTrue(Files.readString(first.resolve("sessions.json")).contains("\"added\""));
+        assertTrue(Files.readString(second.resolve("tasks.json")).contains("\"Task\""));
+        try (var files = Files.list(first)) {
+            assertEquals(List.of(first.resolve("sessions.json")), files.toList());
+        }
+        try (var files = Files.list(second)) {
+            assertEquals(List.of(second.resolve("tasks.json")), files.toList());
+        }
+    }
+
+    @Test
+    void interruptedCommitAcrossDirectoriesIsRolledForwardFromEither() throws IOException {
+        Path first = Files.createDirectory(directory.resolve("first"));
+        Path second = Files.createDirectory(directory.resolve("second"));
+        Path marker = first.resolve(".questlog-commit");
+        String firstMove = interruptedWrite(first.resolve("sessions.json"), "first");
+        String secondMove = interruptedWrite(second.resolve("sessions.json"), "second");
+        Files.writeString(second.resolve(".questlog-commit-ref"), marker + "\n" + secondMove, StandardCharsets.UTF_8);
+        Files.writeString(marker, firstMove + secondMove, StandardCharsets.UTF_8);
+
+        // The second directory is opened first and only holds a reference to the marker
+        DataService<UserSession> inSecond = new DataService<>(second.resolve("sessions.json").toString(), UserSession.class);
+        assertEquals(List.of("second"), inSecond.readData().stream().map(UserSession::getTag).toList());
+        assertFalse(Files.exists(marker));
+        assertFalse(Files.exists(second.resolve(".questlog-commit-ref")));
+
+        DataService<UserSession> inFirst = new DataService<>(first.resolve("sessions.json").toString(), UserSession.class);
+        assertEquals(List.of("first"), inFirst.readData().stream().map(UserSession::getTag).toList());
+        assertFalse(Files.exists(first.resolve("sessions.json.tx")));
+        assertFalse(Files.exists(second.resolve("sessions.json.tx")));
+    }
+
+    @Test
+    void undecidedCommitIsDiscarded() throws IOException {
+        Path first = Files.createDirectory(directory.resolve("first"));
+        Path second = Files.createDirectory(directory.resolve("second"));
+        // The commit stopped after referencing its marker, before writing it
+        String secondMove = interruptedWrite(second.resolve("sessions.json"), "uncommitted");
+        Files.writeString(second.resolve(".questlog-commit-ref"), first.resolve(".questlog-commit") + "\n" + secondMove, StandardCharsets.UTF_8);
+
+        DataService<UserSession> sessions = new DataService<>(second.resolve("sessions.json").toString(), UserSession.class);
+
+        assertEquals(List.of("before"), sessions.readData().stream().map(UserSession::getTag).toList());
+        assertFalse(Files.exists(second.resolve("sessions.json.tx")));
+        assertFalse(Files.exists(second.resolve(".questlog-commit-ref")));
+    }
+
+    /**
+     * Copies a data file, so it can be loaded from scratch.
+     *
+     * @param file The data file.
+     * @return The copy.
+     * @throws IOException If the file cannot be copied.
+     */
+    private Path copyOf(Path file) throws IOException {
+        Path copy = Files.createTempFile(directory, "copy", ".json");
+        Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    /**
+     * Writes a data file holding one session tagged "before", and the file a commit would move over it.
+     *
+     * @param target The data file.
+     * @param tag    The tag of the session in the committed file.
+     * @return The line of the commit marker moving the committed file in place.
+     * @throws IOException If the files cannot be written.
+     */
+    private static String interruptedWrite(Path target, String tag) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tx");
+        Files.writeString(target, sessionFile("before"));
+        Files.writeString(temp, sessionFile(tag));
+        return temp + "\t" + target + "\n";
+    }
+
+    /**
+     * Builds the content of a data file holding one session.
+     *
+     * @param tag The tag of the session.
+     * @return The content.
+     */
+    private static String sessionFile(String tag) {
+        return "{\"data\":[{\"sessionId\":0,\"userId\":1,\"device\":\"device\",\"tag\":\"" + tag + "\",\"expiresAt\":4102444800}]}";
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * DeferredValuesTest.java
+ * Tests of values left in the data file until they are asked for.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link DeferredValues} through {@link DataService}: task descriptions are left out of the loaded
+ * records, read back by their span, and carried over or cleared when the file is rewritten.
+ */
+class DeferredValuesTest {
+    private static final String ESCAPED = "Line one\nLine \"two\" \\ tab\t, unicode ✓ é 😀"; // Description needing JSON escapes
+
+    @TempDir
+    Path directory; // Directory of the data files of a test
+
+    @Test
+    void deferredValuesAreReadByTheirSpan() throws IOException {
+        DataService<Task> tasks = tasks("tasks.json");
+        tasks.addData(DataStoreTest.task("First", "Plain description"));
+        tasks.addData(DataStoreTest.task("Second", ESCAPED));
+        tasks.addData(DataStoreTest.task("Third", null));
+        tasks.flush();
+
+        DataService<Task> loaded = copyOf("tasks.json");
+        assertNull(loaded.getDataById(0).orElseThrow().getDescription());
+        assertFalse(loaded.getDataById(0).orElseThrow().holdsDeferred("description"));
+        assertEquals(Optional.of("Plain description"), loaded.getDeferredValue(0, "description"));
+        assertEquals(Optional.of(ESCAPED), loaded.getDeferredValue(1, "description"));
+        assertEquals(Optional.empty(), loaded.getDeferredValue(2, "description"));
+        assertEquals("Second", loaded.getDataById(1).orElseThrow().getTitle());
+    }
+
+    @Test
+    void deferredValuesSurviveRewritesOfOtherFields() throws IOException {
+        tasks("tasks.json").addData(DataStoreTest.task("First", ESCAPED));
+        tasks("tasks.json").addData(DataStoreTest.task("Second", "Second description"));
+        tasks("tasks.json").flush();
+
+        DataService<Task> loaded = copyOf("tasks.json");
+        Task first = loaded.editDataById(0).orElseThrow();
+        first.setTitle("First, renamed");
+        loaded.updateData(first);
+        loaded.flush();
+
+        assertEquals(Optional.of(ESCAPED), loaded.getDeferredValue(0, "description"));
+        DataService<Task> reloaded = copyOf(loaded);
+        assertEquals("First, renamed", reloaded.getDataById(0).orElseThrow().getTitle());
+        assertEquals(Optional.of(ESCAPED), reloaded.getDeferredValue(0, "description"));
+        assertEquals(Optional.of("Second description"), reloaded.getDeferredValue(1, "description"));
+    }
+
+    @Test
+    void replacedAndClearedValuesAreWritten() throws IOException {
+        DataService<Task> tasks = tasks("tasks.json");
+        tasks.addData(DataStoreTest.task("First", "Old"));
+        tasks.addData(DataStoreTest.task("Second", "Cleared"));
+        tasks.flush();
+
+        DataService<Task> loaded = copyOf("tasks.json");
+        Task first = loaded.editDataById(0).orElseThrow();
+        first.setDescription("New");
+        loaded.updateData(first);
+        Task second = loaded.editDataById(1).orElseThrow();
+        second.setDescription(null);
+        loaded.updateData(second);
+        assertEquals(Optional.of("New"), loaded.getDeferredValue(0, "description"));
+        loaded.flush();
+
+        DataService<Task> reloaded = copyOf(loaded);
+        assertEquals(Optional.of("New"), reloaded.getDeferredValue(0, "description"));
+        assertEquals(Optional.empty(), reloaded.getDeferredValue(1, "description"));
+    }
+
+    /**
+     * Creates a service over a data file of the test's directory.
+     *
+     * @param name The name of the data file.
+     * @return The service.
+     */
+    private DataService<Task> tasks(String name) {
+        return new DataService<>(directory.resolve(name).toString(), Task.class);
+    }
+
+    /**
+     * Copies a data file and creates a service over the copy, so the file is loaded from scratch.
+     *
+     * @param name The name of the data file.
+     * @return The service over the copy.
+     * @throws IOException If the file cannot be copied.
+     */
+    private DataService<Task> copyOf(String name) throws IOException {
+        return copyOf(directory.resolve(name));
+    }
+
+    /**
+     * Copies the data file of a service and creates a service over the copy.
+     *
+     * @param service The service.
+     * @return The service over the copy.
+     * @throws IOException If the file cannot be copied.
+     */
+    private DataService<Task> copyOf(DataService<Task> service) throws IOException {
+        return copyOf(service.store().file().toPath());
+    }
+
+    /**
+     * Copies a data file and creates a service over the copy.
+     *
+     * @param file The data file.
+     * @return The service over the copy.
+     * @throws IOException If the file cannot be copied.
+     */
+    private DataService<Task> copyOf(Path file) throws IOException {
+        Path copy = Files.createTempFile(directory, "copy", ".json");
+        Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+        return new DataService<>(copy.toString(), Task.class);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * ProjectTransactionsTest.java
+ * Tests of all-or-nothing changes of projects together with their tasks.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.Project;
+import com.zynotic.studios.quadsquad.questlog.entities.Task;
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link ProjectTransactions}: a project is created with its starter tasks or not at all, and
+ * archived together with its active tasks without changing the records the caller holds.
+ */
+class ProjectTransactionsTest {
+    @TempDir
+    Path directory; // Directory of the data files of a test
+
+    private DataService<Project> projects; // Stored projects
+    private DataService<Task> tasks; // Stored tasks
+    private ProjectTransactions transactions; // Transactions under test
+
+    @BeforeEach
+    void services() {
+        projects = new DataService<>(directory.resolve("projects.json").toString(), Project.class);
+        tasks = new DataService<>(directory.resolve("tasks.json").toString(), Task.class);
+        transactions = new ProjectTransactions(projects, tasks);
+    }
+
+    @Test
+    void projectIsCreatedWithItsStarterTasks() throws IOException {
+        Project project = transactions.createProject(user(), "Release", List.of("Write notes", "Tag build"), ZonedDateTime.now().plusDays(1)).orElseThrow();
+
+        assertEquals("Release", projects.getDataById(project.getId()).orElseThrow().getTitle());
+        assertEquals(List.of("Write notes", "Tag build"), tasksOf(project).stream().map(Task::getTitle).toList());
+    }
+
+    @Test
+    void invalidStarterTaskCreatesNothing() throws IOException {
+        assertTrue(transactions.createProject(user(), "Broken", List.of("Valid", " "), ZonedDateTime.now().plusDays(1)).isEmpty());
+
+        assertTrue(projects.readData().isEmpty());
+        assertTrue(tasks.readData().isEmpty());
+    }
+
+    @Test
+    void archivingAProjectArchivesItsActiveTasks() throws IOException {
+        Project project = transactions.createProject(user(), "Archived", List.of("Open", "Deleted"), ZonedDateTime.now().plusDays(1)).orElseThrow();
+        Task deleted = tasks.editDataById(tasksOf(project).get(1).getId()).orElseThrow();
+        deleted.setStatus(0);
+        tasks.updateData(deleted);
+        Project held = projects.getDataById(project.getId()).orElseThrow();
+
+        assertTrue(transactions.archiveProject(project.getId()));
+
+        assertEquals(2, projects.getDataById(project.getId()).orElseThrow().getStatus());
+        assertEquals(List.of(2, 0), tasksOf(project).stream().map(Task::getStatus).toList());
+        assertEquals(1, held.getStatus());
+    }
+
+    @Test
+    void archivingAMissingProjectChangesNothing() throws IOException {
+        assertFalse(transactions.archiveProject(7));
+        assertTrue(projects.readData().isEmpty());
+    }
+
+    /**
+     * Retrieves the tasks of a project, in ID order.
+     *
+     * @param project The project.
+     * @return The tasks.
+     */
+    private List<Task> tasksOf(Project project) {
+        return tasks.getDataByRange("boundToProject", project.getId(), project.getId() + 1);
+    }
+
+    /**
+     * Creates the user the projects belong to.
+     *
+     * @return The user.
+     */
+    private static User user() {
+        User user = new User();
+        user.setUsername("tester");
+        return user;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * PropertyValidatorTest.java
+ * Tests of validation limited to the properties that changed.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link PropertyValidator}: a remembered record is validated again wherever its values changed,
+ * including nested objects changed in place without changing their hash code.
+ */
+class PropertyValidatorTest {
+
+    @Test
+    void nestedObjectChangedInPlaceIsValidatedAgain() {
+        PropertyValidator<Card> validator = new PropertyValidator<>(EntityType.of(Card.class));
+        Card card = new Card(3, new Label("Inbox"));
+        assertEquals(List.of(), validator.validate(card));
+
+        card.label.text = " ";
+
+        assertEquals(List.of("Label text cannot be blank"), validator.validate(card));
+    }
+
+    @Test
+    void nestedObjectFixedInPlaceIsValidAgain() {
+        PropertyValidator<Card> validator = new PropertyValidator<>(EntityType.of(Card.class));
+        Card card = new Card(3, new Label(" "));
+        assertEquals(List.of("Label text cannot be blank"), validator.validate(card));
+
+        card.label.text = "Inbox";
+
+        assertEquals(List.of(), validator.validate(card));
+    }
+
+    @Test
+    void changedTopLevelValueIsValidatedAgain() {
+        PropertyValidator<Card> validator = new PropertyValidator<>(EntityType.of(Card.class));
+        Card card = new Card(3, new Label("Inbox"));
+        assertEquals(List.of(), validator.validate(card));
+
+        card.label = null;
+
+        assertEquals(List.of("Label cannot be null"), validator.validate(card));
+    }
+
+    /**
+     * Entity holding a nested label that is validated with it.
+     */
+    public static class Card implements DataIdentifier {
+        @JsonProperty("id")
+        private int id; // ID of the card
+
+        @NotNull(message = "Label cannot be null")
+        @Valid
+        @JsonProperty("label")
+        private Label label; // Label of the card
+
+        public Card() {
+        }
+
+        public Card(int id, Label label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Nested label whose hash code does not depend on its text, so changing the text keeps the hash code.
+     */
+    public static class Label {
+        @NotBlank(message = "Label text cannot be blank")
+        @JsonProperty("text")
+        private String text; // Text of the label
+
+        public Label() {
+        }
+
+        public Label(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Label label && Objects.equals(text, label.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+}
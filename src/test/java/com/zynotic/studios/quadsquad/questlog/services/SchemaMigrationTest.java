@@ -0,0 +1,160 @@
+/*
+ * SchemaMigrationTest.java
+ * Tests of versioned data files and the migration of their records.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zynotic.studios.quadsquad.questlog.entities.UserSession;
+import com.zynotic.studios.quadsquad.questlog.interfaces.DataIdentifier;
+import com.zynotic.studios.quadsquad.questlog.interfaces.RecordMigration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of schema versions: records of files written at older versions are migrated as they are read, the
+ * file is upgraded by the next write, and files that cannot be read, such as ones written at a newer
+ * version, are never overwritten.
+ */
+class SchemaMigrationTest {
+    @TempDir
+    Path directory; // Directory of the data files of a test
+
+    @Test
+    void unversionedFileIsMigratedThroughEveryStep() throws IOException {
+        Path file = directory.resolve("notes.json");
+        Files.writeString(file, "{\"data\":[{\"id\":0,\"name\":\"First\"},{\"id\":1,\"name\":\"Second\"}]}");
+
+        List<Note> notes = new DataService<>(file.toString(), Note.class).readData();
+
+        assertEquals(List.of("First", "Second"), notes.stream().map(Note::getTitle).toList());
+        assertEquals(List.of(1, 1), notes.stream().map(Note::getPriority).toList());
+    }
+
+    @Test
+    void fileIsMigratedFromTheVersionItWasWrittenAt() throws IOException {
+        Path file = directory.resolve("notes.json");
+        Files.writeString(file, "{\"schemaVersion\":1,\"data\":[{\"id\":0,\"title\":\"First\"}]}");
+
+        Note note = new DataService<>(file.toString(), Note.class).getDataById(0).orElseThrow();
+
+        assertEquals("First", note.getTitle());
+        assertEquals(1, note.getPriority());
+    }
+
+    @Test
+    void nextWriteUpgradesTheFile() throws IOException {
+        Path file = directory.resolve("notes.json");
+        Files.writeString(file, "{\"data\":[{\"id\":0,\"name\":\"First\"}]}");
+        DataService<Note> notes = new DataService<>(file.toString(), Note.class);
+
+        notes.addData(new Note("Second", 3));
+        notes.flush();
+
+        JsonNode written = EntityType.objectMapper().readTree(file.toFile());
+        assertEquals(2, written.get("schemaVersion").intValue());
+        assertEquals("First", written.get("data").get(0).get("title").textValue());
+        assertFalse(written.get("data").get(0).has("name"));
+        assertEquals(1, written.get("data").get(0).get("priority").intValue());
+        assertEquals(3, written.get("data").get(1).get("priority").intValue());
+    }
+
+    @Test
+    void currentFileIsNotMigrated() throws IOException {
+        Path file = directory.resolve("notes.json");
+        Files.writeString(file, "{\"schemaVersion\":2,\"data\":[{\"id\":0,\"title\":\"First\",\"priority\":5}]}");
+
+        assertEquals(5, new DataService<>(file.toString(), Note.class).getDataById(0).orElseThrow().getPriority());
+    }
+
+    @Test
+    void fileOfNewerVersionIsNeverOverwritten() throws IOException {
+        Path file = directory.resolve("notes.json");
+        String newer = "{\"schemaVersion\":3,\"data\":[{\"id\":0,\"title\":\"First\"}]}";
+        Files.writeString(file, newer);
+        DataService<Note> notes = new DataService<>(file.toString(), Note.class);
+
+        assertTrue(notes.readData().isEmpty());
+        assertThrows(IllegalStateException.class, () -> notes.addData(new Note("Lost", 1)));
+        notes.flush();
+        assertEquals(newer, Files.readString(file));
+    }
+
+    @Test
+    void unreadableFileIsNeverOverwritten() throws IOException {
+        Path file = directory.resolve("sessions.json");
+        Files.writeString(file, "{\"data\":[{\"sessionId\":");
+        DataService<UserSession> sessions = new DataService<>(file.toString(), UserSession.class);
+
+        assertTrue(sessions.readData().isEmpty());
+        assertThrows(IllegalStateException.class, () -> sessions.addData(DataStoreTest.session(1, "lost")));
+        sessions.flush();
+        assertEquals("{\"data\":[{\"sessionId\":", Files.readString(file));
+    }
+
+    /**
+     * Entity at schema version 2: version 1 renamed "name" to "title", version 2 added "priority".
+     */
+    public static class Note implements DataIdentifier {
+        @JsonProperty("id")
+        private int id; // ID of the note
+
+        @JsonProperty("title")
+        private String title; // Title of the note
+
+        @JsonProperty("priority")
+        private int priority; // Priority of the note
+
+        public Note() {
+        }
+
+        public Note(String title, int priority) {
+            this.title = title;
+            this.priority = priority;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public List<RecordMigration> migrations() {
+            return List.of(
+                    record -> record.set("title", record.remove("name")),
+                    record -> record.put("priority", 1)
+            );
+        }
+    }
+}
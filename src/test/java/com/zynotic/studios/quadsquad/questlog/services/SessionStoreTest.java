@@ -0,0 +1,112 @@
+/*
+ * SessionStoreTest.java
+ * Tests of remember-me sessions.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import com.zynotic.studios.quadsquad.questlog.entities.UserSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link SessionStore}: restoring a remembered sign-in, and refusing sessions whose tag does not
+ * verify or that expired.
+ * The store keeps its data in {@code database} under the working directory and its secrets under the user
+ * home, both of which the build points into {@code target}.
+ */
+class SessionStoreTest {
+    private static final Path TOKEN_FILE = Path.of(System.getProperty("user.home"), ".questlog", "session.token"); // Token of the remembered session
+
+    private final DataService<UserSession> sessions = new DataService<>("database/sessions.json", UserSession.class); // Stored sessions
+    private final DataService<User> users = new DataService<>("database/users.json", User.class); // Users the sessions belong to
+    private final SessionStore store = new SessionStore(); // Store under test
+    private User user; // Signed-in user
+
+    @BeforeEach
+    void signedOut() {
+        store.forget();
+        sessions.writeData(List.of());
+        User tester = new User();
+        tester.setUsername("tester");
+        tester.setId(0);
+        User other = new User();
+        other.setUsername("other");
+        other.setId(7);
+        users.writeData(List.of(tester, other));
+        user = users.getDataById(0).orElseThrow();
+    }
+
+    @Test
+    void rememberedSignInIsRestored() {
+        store.remember(user);
+
+        assertTrue(Files.exists(TOKEN_FILE));
+        assertEquals(1, sessions.readData().size());
+        assertEquals(Optional.of("tester"), store.restore().map(User::getUsername));
+        assertEquals(Optional.of("tester"), store.restore().map(User::getUsername));
+    }
+
+    @Test
+    void forgottenSignInIsNotRestored() {
+        store.remember(user);
+        store.forget();
+
+        assertFalse(Files.exists(TOKEN_FILE));
+        assertTrue(sessions.readData().isEmpty());
+        assertTrue(store.restore().isEmpty());
+    }
+
+    @Test
+    void tamperedTokenDoesNotVerifyOrDeleteTheSession() throws IOException {
+        store.remember(user);
+        String[] parts = Files.readString(TOKEN_FILE, StandardCharsets.US_ASCII).split("\\.", 2);
+        Files.writeString(TOKEN_FILE, parts[0] + ".AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", StandardCharsets.US_ASCII);
+
+        assertTrue(store.restore().isEmpty());
+        assertFalse(Files.exists(TOKEN_FILE));
+        assertEquals(1, sessions.readData().size());
+    }
+
+    @Test
+    void sessionPointedAtAnotherUserDoesNotVerify() {
+        store.remember(user);
+        UserSession session = sessions.readData().get(0);
+        sessions.updateData(DataStoreTest.withId(session.getId(), new UserSession(7, session.getDevice(), session.getTag(), session.getExpiresAt())));
+
+        assertTrue(users.getDataById(7).isPresent());
+        assertTrue(store.restore().isEmpty());
+        assertEquals(1, sessions.readData().size());
+    }
+
+    @Test
+    void expiredSessionIsRemovedAndNotRestored() {
+        store.remember(user);
+        UserSession session = sessions.readData().get(0);
+        sessions.updateData(DataStoreTest.withId(session.getId(), new UserSession(session.getUserId(), session.getDevice(), session.getTag(), Instant.now().minusSeconds(1))));
+
+        assertTrue(store.restore().isEmpty());
+        assertTrue(sessions.readData().isEmpty());
+        assertFalse(Files.exists(TOKEN_FILE));
+    }
+}
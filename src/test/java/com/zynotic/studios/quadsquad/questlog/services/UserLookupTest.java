@@ -0,0 +1,86 @@
+/*
+ * UserLookupTest.java
+ * Tests of the sign-in user lookup cache.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.services;
+
+import com.zynotic.studios.quadsquad.questlog.entities.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link UserLookup}: users found by username or email, and cached users dropped once they change.
+ */
+class UserLookupTest {
+    @TempDir
+    Path directory; // Directory of the data files of a test
+
+    @Test
+    void usersAreFoundByUsernameAndEmail() {
+        DataService<User> users = users();
+        users.writeData(List.of(user(0, "tester", "tester@example.com"), user(1, "other", "other@example.com")));
+        UserLookup lookup = new UserLookup(users, 16);
+
+        assertEquals(Optional.of(0), lookup.byUsername("tester").map(User::getId));
+        assertEquals(Optional.of(0), lookup.byUsername("tester").map(User::getId));
+        assertEquals(Optional.of(1), lookup.byEmail("other@example.com").map(User::getId));
+        assertTrue(lookup.byUsername("nobody").isEmpty());
+        assertTrue(lookup.byEmail(null).isEmpty());
+    }
+
+    @Test
+    void changedUsersAreLookedUpAgain() {
+        DataService<User> users = users();
+        users.writeData(List.of(user(0, "tester", "tester@example.com"), user(1, "other", "other@example.com")));
+        UserLookup lookup = new UserLookup(users, 16);
+        assertTrue(lookup.byUsername("tester").isPresent());
+        assertTrue(lookup.byEmail("other@example.com").isPresent());
+
+        users.writeData(List.of(user(0, "renamed", "tester@example.com")));
+
+        assertTrue(lookup.byUsername("tester").isEmpty());
+        assertEquals(Optional.of(0), lookup.byUsername("renamed").map(User::getId));
+        assertTrue(lookup.byEmail("other@example.com").isEmpty());
+    }
+
+    /**
+     * Creates a service over a users file of the test's directory.
+     *
+     * @return The service.
+     */
+    private DataService<User> users() {
+        return new DataService<>(directory.resolve("users.json").toString(), User.class);
+    }
+
+    /**
+     * Creates a user.
+     *
+     * @param id       The ID.
+     * @param username The username.
+     * @param email    The email.
+     * @return The user.
+     */
+    private static User user(int id, String username, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * TinyLfuCacheTest.java
+ * Tests of the frequency-admitted bounded cache.
+ * Copyright (C) 2024 Zynotic Studios, Quad Squad
+ * Licensed under the GNU General Public License, Version 3.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at https://www.gnu.org/licenses/gpl-3.0.html
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.zynotic.studios.quadsquad.questlog.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link TinyLfuCache}: eviction, admission by frequency and removal.
+ */
+class TinyLfuCacheTest {
+    private static final int CAPACITY = 100; // Capacity of the caches under test, one entry of it in the window
+
+    @Test
+    void neverHoldsMoreThanItsCapacity() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(CAPACITY);
+        for (int key = 0; key < 10 * CAPACITY; key++) {
+            cache.put(key, "value " + key);
+        }
+        int cached = 0;
+        for (int key = 0; key < 10 * CAPACITY; key++) {
+            if (cache.get(key) != null) {
+                cached++;
+            }
+        }
+        assertTrue(cached <= CAPACITY, "cached " + cached);
+    }
+
+    @Test
+    void burstOfOneOffKeysDoesNotEvictPopularKeys() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(CAPACITY);
+        for (int key = 0; key < CAPACITY; key++) {
+            cache.put(key, "popular " + key);
+            for (int request = 0; request < 5; request++) {
+                cache.get(key);
+            }
+        }
+        for (int key = 1000; key < 3000; key++) {
+            cache.put(key, "one-off " + key);
+        }
+        // Every popular key but the last, still in the window when the burst started, was admitted
+        for (int key = 0; key < CAPACITY - 1; key++) {
+            assertEquals("popular " + key, cache.get(key));
+        }
+        assertNull(cache.get(1000));
+    }
+
+    @Test
+    void frequentlyRequestedKeyEvictsTheLeastRecentlyUsedEntry() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(CAPACITY);
+        for (int key = 0; key < CAPACITY; key++) {
+            cache.put("key" + key, "cold");
+        }
+        for (int request = 0; request < 3; request++) {
+            assertNull(cache.get("hot"));
+        }
+        cache.put("hot", "hot");
+        cache.put("next", "next"); // Pushes the hot entry out of the window
+
+        assertEquals("hot", cache.get("hot"));
+        assertNull(cache.get("key0"));
+        assertEquals("cold", cache.get("key1"));
+    }
+
+    @Test
+    void updatesValuesOfAdmittedKeysInPlace() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(CAPACITY);
+        cache.put("a", "first");
+        cache.put("b", "pushes a out of the window");
+        cache.put("a", "second");
+        assertEquals("second", cache.get("a"));
+    }
+
+    @Test
+    void removesMatchingEntriesAndClears() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(CAPACITY);
+        for (int key = 0; key < 10; key++) {
+            cache.put(key, key % 2 == 0 ? "even" : "odd");
+        }
+        cache.removeIf("even"::equals);
+        assertNull(cache.get(0));
+        assertEquals("odd", cache.get(1));
+
+        cache.clear();
+        assertNull(cache.get(1));
+    }
+}